@@ -0,0 +1,26 @@
+package travel.itinerary;
+
+import java.util.Arrays;
+
+/**
+ * Entry point of {@code benchmarks.jar}: the JMH command line, with
+ * {@code -prof gc} added unless another profiler is asked for, so every run
+ * reports allocation rates next to the timings.
+ *
+ * {@code java -jar benchmarks/target/benchmarks.jar [jmh options] [benchmark regex]}
+ */
+public final class Benchmarks {
+    private Benchmarks() { }
+
+    public static void main(String[] args) throws Exception {
+        boolean profiled = Arrays.asList(args).contains("-prof");
+        if (!profiled) {
+            String[] withGc = new String[args.length + 2];
+            withGc[0] = "-prof";
+            withGc[1] = "gc";
+            System.arraycopy(args, 0, withGc, 2, args.length);
+            args = withGc;
+        }
+        org.openjdk.jmh.Main.main(args);
+    }
+}
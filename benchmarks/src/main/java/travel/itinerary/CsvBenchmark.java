@@ -0,0 +1,103 @@
+package travel.itinerary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load CSV and Save CSV: splitting records (the old {@code parseCSVLine}),
+ * encoding them into a model's columns, the per-row write loop, and a whole
+ * save through {@link ItineraryExporter#write}, temp file and fsync included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class CsvBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int rows;
+
+    private String csv;
+    private ItineraryTableModel.RowBlock block;
+    private final StringBuilder line = new StringBuilder(256);
+    private Path dir, file;
+
+    @Setup
+    public void setUp() throws IOException {
+        csv = SyntheticItineraries.csv(rows);
+        block = SyntheticItineraries.model(rows).copyRows();
+        dir = Files.createTempDirectory("itinerary-bench");
+        file = dir.resolve("trip.csv");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    /** Splits every record into fields, nothing more. */
+    @Benchmark
+    public int parseRecords(Blackhole bh) throws IOException {
+        String[] fields = new String[ItineraryTableModel.COLS.length];
+        int n = 0;
+        try (CsvRecordReader reader = new CsvRecordReader(new StringReader(csv))) {
+            while (reader.next(fields) >= 0) {
+                bh.consume(fields);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /** Splits and encodes every record into a new model's block, as Load CSV does. */
+    @Benchmark
+    public ItineraryTableModel.RowBlock loadRows() throws IOException {
+        ItineraryTableModel m = new ItineraryTableModel();
+        ItineraryTableModel.RowBlock out = m.newBlock(rows);
+        String[] fields = new String[ItineraryTableModel.COLS.length];
+        try (CsvRecordReader reader = new CsvRecordReader(new StringReader(csv))) {
+            reader.next(fields); // header
+            int n;
+            while ((n = reader.next(fields)) >= 0) out.add(fields, n);
+        }
+        return out;
+    }
+
+    /** The Save CSV row loop into a reused builder, without the file. */
+    @Benchmark
+    public long formatRows() {
+        ItineraryExporter.Context ctx = new ItineraryExporter.Context();
+        long chars = 0;
+        for (int r = 0; r < rows; r++) {
+            line.setLength(0);
+            ItineraryExporter.CSV.row(line, ctx, block, r);
+            chars += line.length();
+        }
+        return chars;
+    }
+
+    /** A whole Save CSV: encode, write, fsync and rename into place. */
+    @Benchmark
+    public boolean saveCsv() throws IOException {
+        return ItineraryExporter.write(file, ItineraryExporter.CSV, block, null, () -> false);
+    }
+}
@@ -0,0 +1,77 @@
+package travel.itinerary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generate Itinerary ({@code generateItineraryForCity}) for every one of
+ * {@code cities} cities at {@code days} days each, with the built-in three
+ * activities a day: from 72 rows up to about a million per operation.
+ *
+ * {@link #generate} uses the planner's plan cache, so with more cities than
+ * it holds most plans are encoded again; {@link #generateUncached} always
+ * encodes, which is the cost of a cache miss.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class GeneratorBenchmark {
+    @Param({"1", "7", "14"})
+    public int days;
+
+    @Param({"24", "240", "2400", "24000"})
+    public int cities;
+
+    private static final long START = LocalDate.of(2026, 6, 1).toEpochDay();
+
+    private ItineraryGenerator cached, uncached;
+    private String[] names;
+
+    @Setup
+    public void setUp() {
+        ItineraryTableModel codec = new ItineraryTableModel();
+        // no template file, so the built-in templates apply
+        cached = new ItineraryGenerator(codec, Paths.get("no-such-templates.csv"), ItineraryGenerator.DEFAULT_CACHE_PLANS);
+        uncached = new ItineraryGenerator(codec, Paths.get("no-such-templates.csv"), 0);
+        names = new String[cities];
+        for (int i = 0; i < cities; i++) names[i] = "City " + i;
+    }
+
+    @Benchmark
+    public int generate(Blackhole bh) throws IOException {
+        return run(cached, bh);
+    }
+
+    @Benchmark
+    public int generateUncached(Blackhole bh) throws IOException {
+        return run(uncached, bh);
+    }
+
+    private int run(ItineraryGenerator generator, Blackhole bh) throws IOException {
+        int total = 0;
+        for (int i = 0; i < cities; i++) {
+            ItineraryTableModel.RowBlock plan = generator.generate(names[i], days, START + (long) i * days);
+            total += plan.size();
+            bh.consume(plan);
+        }
+        return total;
+    }
+}
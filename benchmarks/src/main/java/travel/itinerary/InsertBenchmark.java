@@ -0,0 +1,89 @@
+package travel.itinerary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Putting rows into the model: one {@link ItineraryTableModel#addRow} per row
+ * as the editor does, one {@link ItineraryTableModel#appendBlock} as Load CSV
+ * and Generate do, and a single insert into the middle of a full model.
+ *
+ * With {@code listeners=editor} the model has the search index, summary and
+ * conflict checker attached, as in the planner window, so their upkeep is
+ * part of the cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class InsertBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"none", "editor"})
+    public String listeners;
+
+    private ItineraryTableModel codec, full;
+    private Object[][] tableRows;
+    private ItineraryTableModel.RowBlock block;
+    private Object[] extra;
+
+    @Setup
+    public void setUp() {
+        codec = new ItineraryTableModel();
+        block = SyntheticItineraries.block(codec, rows);
+        tableRows = SyntheticItineraries.tableRows(rows);
+        full = attach(new ItineraryTableModel(codec));
+        full.appendBlock(block);
+        extra = tableRows[rows / 2].clone();
+        extra[ItineraryTableModel.ACTIVITY] = "Inserted stop";
+    }
+
+    private ItineraryTableModel attach(ItineraryTableModel m) {
+        if (listeners.equals("editor")) {
+            new ItinerarySearchIndex(m);
+            new ItinerarySummary(m);
+            new ItineraryConflicts(m);
+        }
+        return m;
+    }
+
+    /** Rows added one at a time to an empty model. */
+    @Benchmark
+    public ItineraryTableModel addRows() {
+        ItineraryTableModel m = attach(new ItineraryTableModel(codec));
+        for (Object[] row : tableRows) m.addRow(row);
+        return m;
+    }
+
+    /** All rows appended to an empty model at once. */
+    @Benchmark
+    public ItineraryTableModel appendBlock() {
+        ItineraryTableModel m = attach(new ItineraryTableModel(codec));
+        m.appendBlock(block);
+        return m;
+    }
+
+    /** One row inserted into the middle of a model of {@code rows} rows, then removed again. */
+    @Benchmark
+    public int insertMiddle() {
+        int at = rows / 2;
+        full.insertRow(at, extra);
+        int id = full.rowId(at);
+        full.removeRow(at);
+        return id;
+    }
+}
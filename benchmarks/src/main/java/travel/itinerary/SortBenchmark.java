@@ -0,0 +1,50 @@
+package travel.itinerary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clicking a column header: each operation flips the sort on {@code column}
+ * between ascending and descending, which is a full sort of the model.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class SortBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"Date", "Time", "City", "Activity"})
+    public String column;
+
+    private ItineraryRowSorter sorter;
+    private int col;
+
+    @Setup
+    public void setUp() {
+        col = Arrays.asList(ItineraryTableModel.COLS).indexOf(column);
+        if (col < 0) throw new IllegalArgumentException("no column " + column);
+        sorter = new ItineraryRowSorter(SyntheticItineraries.model(rows));
+    }
+
+    @Benchmark
+    public int toggleSort() {
+        sorter.toggleSortOrder(col);
+        return sorter.convertRowIndexToModel(0);
+    }
+}
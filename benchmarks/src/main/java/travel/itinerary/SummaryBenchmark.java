@@ -0,0 +1,75 @@
+package travel.itinerary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export Summary and Copy Summary: the summary built from scratch, rebuilt
+ * after a one-row edit (its usual case in the editor), and the Export Summary
+ * file format's row loop.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class SummaryBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int rows;
+
+    private ItineraryTableModel model;
+    private ItinerarySummary summary;
+    private ItineraryTableModel.RowBlock block;
+    private final StringBuilder line = new StringBuilder(256);
+    private int edits;
+
+    @Setup
+    public void setUp() {
+        model = SyntheticItineraries.model(rows);
+        summary = new ItinerarySummary(model);
+        summary.text();
+        block = model.copyRows();
+    }
+
+    /** Every row rendered and the text assembled. */
+    @Benchmark
+    public String buildSummary() {
+        model.fireTableDataChanged();
+        return summary.text();
+    }
+
+    /** One row's notes changed, then the summary asked for again. */
+    @Benchmark
+    public String summaryAfterEdit() {
+        int e = edits++;
+        model.setValueAt(e % 2 == 0 ? "Edited" : "Edited again", (int) (e * 7919L % rows), ItineraryTableModel.NOTES);
+        return summary.text();
+    }
+
+    /** The Export Summary row loop into a reused builder, without the file. */
+    @Benchmark
+    public long formatSummary() {
+        ItineraryExporter.Context ctx = new ItineraryExporter.Context();
+        long chars = 0;
+        line.setLength(0);
+        ItineraryExporter.SUMMARY.begin(line);
+        for (int r = 0; r < rows; r++) {
+            line.setLength(0);
+            ItineraryExporter.SUMMARY.row(line, ctx, block, r);
+            chars += line.length();
+        }
+        return chars;
+    }
+}
@@ -0,0 +1,110 @@
+package travel.itinerary;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic made-up itineraries for the benchmarks.
+ *
+ * Rows look like real trips: about six activities a day, the city changing
+ * every few weeks, a few hundred distinct activities, an empty time now and
+ * then, and notes that are empty, repeated, or unique (some with commas and
+ * quotes, so CSV has to quote them). The same size always gives the same rows.
+ */
+final class SyntheticItineraries {
+    static final int ROWS_PER_DAY = 6;
+
+    private static final long SEED = 0x5EED_1711L;
+    private static final int FIRST_DAY = (int) LocalDate.of(2026, 1, 1).toEpochDay();
+    private static final String[] CITIES = {
+            "Paris", "Rome", "Tokyo", "Kyoto", "Lisbon", "Porto", "Barcelona", "Madrid", "Vienna", "Prague",
+            "Budapest", "Berlin", "Amsterdam", "Copenhagen", "Stockholm", "Oslo", "Reykjavik", "Dublin",
+            "Edinburgh", "London", "New York", "Chicago", "San Francisco", "Mexico City", "Lima", "Cusco",
+            "Buenos Aires", "Cape Town", "Marrakesh", "Istanbul", "Athens", "Dubai", "Mumbai", "Jaipur",
+            "Bangkok", "Hanoi", "Singapore", "Bali", "Sydney", "Auckland"};
+    private static final String[] DOING = {
+            "Visit", "Guided tour of", "Photos at", "Lunch near", "Walk around", "Tickets for", "Sunset at",
+            "Breakfast at", "Shopping at", "Day trip to"};
+    private static final String[] PLACES = {
+            "the old town", "the cathedral", "the central market", "the national museum", "the harbour",
+            "the botanical garden", "the castle", "the river front", "the modern art gallery", "the main square",
+            "the food hall", "the viewpoint", "the royal palace", "the beach", "the night market", "the zoo",
+            "the science centre", "the opera house", "the street food stalls", "the hot springs",
+            "the flea market", "the lighthouse", "the city walls", "the vineyard", "the tea house",
+            "the temple", "the aquarium", "the jazz club", "the observatory", "the bridge"};
+    private static final String[] NOTES = {
+            "Book ahead", "Bring cash", "Closed on Mondays", "Dress code applies", "Great time for photos",
+            "Try recommended local dishes", "Start early to avoid crowds", "Meet guide at the entrance"};
+    private static final String[] DURATIONS = {"30m", "45m", "1h", "1h30m", "2h", "2h 30m", "3h", "4h"};
+
+    private SyntheticItineraries() { }
+
+    /** Row {@code i} of every itinerary, in {@link ItineraryTableModel#COLS} order. */
+    static void row(SplittableRandom rnd, int i, String[] out) {
+        int day = i / ROWS_PER_DAY;
+        out[ItineraryTableModel.DATE] = LocalDate.ofEpochDay(FIRST_DAY + day).toString();
+        out[ItineraryTableModel.TIME] = rnd.nextInt(8) == 0 ? ""
+                : ItineraryTableModel.formatMinuteOfDay(8 * 60 + i % ROWS_PER_DAY * 120 + rnd.nextInt(4) * 15);
+        out[ItineraryTableModel.CITY] = CITIES[(day / 20 + rnd.nextInt(8) / 7) % CITIES.length];
+        out[ItineraryTableModel.ACTIVITY] = DOING[rnd.nextInt(DOING.length)] + " " + PLACES[rnd.nextInt(PLACES.length)];
+        out[ItineraryTableModel.DURATION] = DURATIONS[rnd.nextInt(DURATIONS.length)];
+        switch (rnd.nextInt(3)) {
+            case 0:
+                out[ItineraryTableModel.NOTES] = "";
+                break;
+            case 1:
+                out[ItineraryTableModel.NOTES] = NOTES[rnd.nextInt(NOTES.length)];
+                break;
+            default:
+                out[ItineraryTableModel.NOTES] = rnd.nextInt(10) == 0
+                        ? "Ask for \"" + PLACES[rnd.nextInt(PLACES.length)] + "\" pass, ref " + rnd.nextInt(1_000_000)
+                        : "Booking ref " + Integer.toString(rnd.nextInt(1 << 30), 36).toUpperCase() + ", seat " + (1 + rnd.nextInt(60));
+                break;
+        }
+    }
+
+    /** {@code rows} rows encoded against {@code codec}'s pools. */
+    static ItineraryTableModel.RowBlock block(ItineraryTableModel codec, int rows) {
+        SplittableRandom rnd = new SplittableRandom(SEED);
+        String[] fields = new String[ItineraryTableModel.COLS.length];
+        ItineraryTableModel.RowBlock block = codec.newBlock(rows);
+        for (int i = 0; i < rows; i++) {
+            row(rnd, i, fields);
+            block.add(fields, fields.length);
+        }
+        return block;
+    }
+
+    /** A model holding {@code rows} rows. */
+    static ItineraryTableModel model(int rows) {
+        ItineraryTableModel m = new ItineraryTableModel();
+        m.appendBlock(block(m, rows));
+        return m;
+    }
+
+    /**
+     * The same rows as the editor hands them to {@link ItineraryTableModel#addRow};
+     * repeated cells are shared String instances, as they would be after loading.
+     */
+    static Object[][] tableRows(int rows) {
+        ItineraryTableModel m = model(rows);
+        Object[][] out = new Object[rows][];
+        for (int r = 0; r < rows; r++) {
+            Object[] row = new Object[ItineraryTableModel.COLS.length];
+            for (int c = 0; c < row.length; c++) row[c] = m.getValueAt(r, c);
+            out[r] = row;
+        }
+        return out;
+    }
+
+    /** The same rows as a Save CSV file. */
+    static String csv(int rows) {
+        ItineraryTableModel m = new ItineraryTableModel();
+        ItineraryTableModel.RowBlock block = block(m, rows);
+        StringBuilder b = new StringBuilder(rows * 80);
+        ItineraryExporter.Context ctx = new ItineraryExporter.Context();
+        ItineraryExporter.CSV.begin(b);
+        for (int r = 0; r < rows; r++) ItineraryExporter.CSV.row(b, ctx, block, r);
+        return b.toString();
+    }
+}
@@ -0,0 +1,152 @@
+package travel.itinerary;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless trip generation: {@code ItineraryPlanner --batch requests.csv out-dir [threads]}.
+ *
+ * Reads (City, Start, Days) records, start as yyyy-MM-dd, and writes each trip
+ * to its own file in out-dir in the Save CSV format. Trips are generated on a
+ * fork-join pool (one worker per core by default) sharing one
+ * {@link ItineraryGenerator}, so repeated (city, days) pairs come from its plan
+ * cache. Requests are read as the pool drains them, keeping memory flat for
+ * any number of trips. Bad records are reported and skipped.
+ */
+final class BatchGenerator {
+    static final int MAX_DAYS = 366;
+
+    private final ItineraryGenerator generator;
+    private final ItineraryTableModel encoder = new ItineraryTableModel(); // pools only; never holds rows
+    private final Path outDir;
+    private final PrintStream err;
+    private final AtomicInteger trips = new AtomicInteger(), failures = new AtomicInteger();
+    private final AtomicLong rows = new AtomicLong();
+
+    BatchGenerator(Path templateFile, Path outDir, PrintStream err) {
+        this.generator = new ItineraryGenerator(encoder, templateFile, ItineraryGenerator.DEFAULT_CACHE_PLANS);
+        this.outDir = outDir;
+        this.err = err;
+    }
+
+    /** Entry point for {@code --batch}; returns the process exit code. */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        if (args.length < 2 || args.length > 3) {
+            err.println("usage: ItineraryPlanner --batch <requests.csv> <out-dir> [threads]");
+            return 2;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length == 3) {
+            try {
+                threads = Integer.parseInt(args[2]);
+            } catch (NumberFormatException ex) {
+                threads = 0;
+            }
+            if (threads < 1) {
+                err.println("threads must be a positive number: " + args[2]);
+                return 2;
+            }
+        }
+        BatchGenerator batch = new BatchGenerator(ItineraryGenerator.defaultTemplateFile(), Paths.get(args[1]), err);
+        long t0 = System.nanoTime();
+        try {
+            batch.generateAll(Paths.get(args[0]), threads);
+        } catch (IOException ex) {
+            err.println("Batch failed: " + ex.getMessage());
+            return 1;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            err.println("Batch interrupted");
+            return 1;
+        }
+        double secs = Math.max(1e-9, (System.nanoTime() - t0) / 1e9);
+        out.printf("Generated %d trips (%d rows) in %.2f s: %.1f trips/s on %d threads, %d failed%n",
+                batch.trips.get(), batch.rows.get(), secs, batch.trips.get() / secs, threads, batch.failures.get());
+        out.println(batch.generator.statsReport());
+        return batch.failures.get() == 0 ? 0 : 1;
+    }
+
+    /** Generates every trip in {@code requests}; returns once all files are written. */
+    void generateAll(Path requests, int threads) throws IOException, InterruptedException {
+        Files.createDirectories(outDir);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 4);
+        try (CsvRecordReader reader = new CsvRecordReader(Files.newBufferedReader(requests, StandardCharsets.UTF_8))) {
+            String[] f = new String[3];
+            int record = 0, n;
+            while ((n = reader.next(f)) >= 0) {
+                record++;
+                if (record == 1 && f[0].trim().equalsIgnoreCase("city")) continue; // header
+                String city = f[0].trim(), start = f[1].trim(), days = f[2].trim();
+                int line = record;
+                if (n < 3 || city.isEmpty()) {
+                    fail(line, "expected City,Start,Days");
+                    continue;
+                }
+                inFlight.acquire();
+                pool.execute(() -> {
+                    try {
+                        generate(line, city, start, days);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+    }
+
+    private void generate(int line, String city, String start, String days) {
+        int startDay = ItineraryTableModel.parseEpochDay(start);
+        if (startDay == ItineraryTableModel.INVALID) {
+            fail(line, "start date must be yyyy-MM-dd: " + start);
+            return;
+        }
+        int n;
+        try {
+            n = Integer.parseInt(days);
+        } catch (NumberFormatException ex) {
+            n = 0;
+        }
+        if (n < 1 || n > MAX_DAYS) {
+            fail(line, "days must be 1-" + MAX_DAYS + ": " + days);
+            return;
+        }
+        try {
+            ItineraryTableModel.RowBlock trip = generator.generate(city, n, startDay);
+            Path file = outDir.resolve(String.format("%06d-%s-%s.csv", line, fileName(city), start));
+            ItineraryExporter.write(file, ItineraryExporter.CSV, trip, null, () -> false);
+            trips.incrementAndGet();
+            rows.addAndGet(trip.size());
+        } catch (IOException | RuntimeException ex) {
+            fail(line, ex.toString());
+        }
+    }
+
+    private void fail(int line, String message) {
+        failures.incrementAndGet();
+        synchronized (err) {
+            err.println("record " + line + ": " + message);
+        }
+    }
+
+    private static String fileName(String city) {
+        StringBuilder b = new StringBuilder(city.length());
+        for (int i = 0; i < city.length() && b.length() < 64; i++) {
+            char c = city.charAt(i);
+            b.append(c < 128 && Character.isLetterOrDigit(c) || c == '-' ? c : '_'); // ASCII: file name encodings vary
+        }
+        return b.toString();
+    }
+}
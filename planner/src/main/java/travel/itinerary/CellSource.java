@@ -0,0 +1,13 @@
+package travel.itinerary;
+
+/**
+ * Read access to itinerary cell text, implemented by the live
+ * {@link ItineraryTableModel} and by its {@link ItineraryTableModel.RowBlock} copies,
+ * so renderers and exporters can work on either.
+ */
+interface CellSource {
+    int size();
+
+    /** Appends the text of one cell, exactly as the table shows it. */
+    void appendCell(StringBuilder b, int row, int col);
+}
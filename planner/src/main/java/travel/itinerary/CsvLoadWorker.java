@@ -0,0 +1,92 @@
+package travel.itinerary;
+
+import javax.swing.SwingWorker;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Loads a CSV itinerary off the EDT. Records are parsed and encoded in the
+ * background and handed to the model in blocks, one table event per block.
+ * Files of {@value #PARALLEL_THRESHOLD} bytes or more go through the
+ * multi-core {@link ParallelCsvImporter}; smaller ones are streamed.
+ * Progress (0-100) follows the bytes read; cancelling stops at the next block.
+ */
+class CsvLoadWorker extends SwingWorker<Integer, ItineraryTableModel.RowBlock> {
+    static final int BLOCK_ROWS = 16_384;
+    static final long PARALLEL_THRESHOLD = 4L << 20;
+
+    private final Path file;
+    private final ItineraryTableModel model;
+
+    CsvLoadWorker(Path file, ItineraryTableModel model) {
+        this.file = file;
+        this.model = model;
+    }
+
+    @Override
+    protected Integer doInBackground() throws IOException {
+        long total = Math.max(1, Files.size(file));
+        if (total >= PARALLEL_THRESHOLD) {
+            return new ParallelCsvImporter().importFile(file, model, BLOCK_ROWS, (blocks, done, size) -> {
+                publish(blocks.toArray(new ItineraryTableModel.RowBlock[0]));
+                setProgress((int) Math.min(99, done * 100 / Math.max(1, size)));
+            }, this::isCancelled);
+        }
+        int rows = 0;
+        try (CountingInputStream counter = new CountingInputStream(Files.newInputStream(file));
+             CsvRecordReader reader = new CsvRecordReader(new InputStreamReader(counter, StandardCharsets.UTF_8))) {
+            String[] fields = new String[ItineraryTableModel.COLS.length];
+            if (reader.next(fields) < 0) return 0; // header
+            ItineraryTableModel.RowBlock block = model.newBlock(BLOCK_ROWS);
+            int n;
+            while ((n = reader.next(fields)) >= 0) {
+                block.add(fields, n);
+                rows++;
+                if (block.isFull()) {
+                    if (isCancelled()) break;
+                    publish(block);
+                    block = model.newBlock(BLOCK_ROWS);
+                    setProgress((int) Math.min(99, counter.count * 100 / total));
+                }
+            }
+            if (!isCancelled()) publish(block);
+        }
+        return rows;
+    }
+
+    @Override
+    protected void process(List<ItineraryTableModel.RowBlock> blocks) {
+        if (isCancelled()) return;
+        model.batch(() -> {
+            for (ItineraryTableModel.RowBlock b : blocks) model.appendBlock(b);
+        });
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package travel.itinerary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming reader for the CSV dialect written by Save CSV.
+ * Quoted fields may contain commas, doubled quotes and line breaks, so records
+ * are read from a character stream rather than line by line. Records end at
+ * \n, \r or \r\n outside quotes; blank records are skipped.
+ */
+final class CsvRecordReader implements Closeable {
+    private final Reader in;
+    private final char[] buf;
+    private int pos, limit;
+    private final StringBuilder field = new StringBuilder(64);
+
+    CsvRecordReader(Reader in) {
+        this(in, 1 << 16);
+    }
+
+    CsvRecordReader(Reader in, int bufferSize) {
+        this.in = in;
+        this.buf = new char[bufferSize];
+    }
+
+    /**
+     * Reads the next non-blank record. Fields beyond {@code out.length} are
+     * dropped and missing ones are set to "".
+     *
+     * @return the number of fields in the record, or -1 at end of input
+     */
+    int next(String[] out) throws IOException {
+        int n;
+        do {
+            n = readRecord(out);
+        } while (n == 0);
+        if (n > 0) for (int i = n; i < out.length; i++) out[i] = "";
+        return n;
+    }
+
+    /** Returns 0 for a blank record, -1 at end of input, else the field count. */
+    private int readRecord(String[] out) throws IOException {
+        int count = 0;
+        boolean inQuotes = false, quoted = false, seen = false;
+        field.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) {
+                if (!seen) return -1;
+                put(out, count++);
+                return count;
+            }
+            seen = true;
+            if (inQuotes) {
+                int start = pos;
+                while (pos < limit && buf[pos] != '"') pos++;
+                field.append(buf, start, pos - start);
+                if (pos == limit) continue;
+                pos++;
+                if (peek() == '"') { field.append('"'); pos++; }
+                else inQuotes = false;
+            } else {
+                int start = pos;
+                char ch = 0;
+                while (pos < limit) {
+                    ch = buf[pos];
+                    if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') break;
+                    pos++;
+                }
+                field.append(buf, start, pos - start);
+                if (pos == limit) continue;
+                pos++;
+                if (ch == '"') {
+                    inQuotes = quoted = true;
+                } else if (ch == ',') {
+                    put(out, count++);
+                } else {
+                    if (ch == '\r' && peek() == '\n') pos++;
+                    if (count == 0 && field.length() == 0 && !quoted) return 0;
+                    put(out, count++);
+                    return count;
+                }
+            }
+        }
+    }
+
+    private void put(String[] out, int index) {
+        if (index < out.length) out[index] = field.toString();
+        field.setLength(0);
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buf[pos];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
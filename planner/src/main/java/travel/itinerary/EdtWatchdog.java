@@ -0,0 +1,202 @@
+package travel.itinerary;
+
+import java.awt.EventQueue;
+import java.awt.Window;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects Event Dispatch Thread stalls.
+ *
+ * While a window is open, a daemon thread posts a probe event every
+ * {@link #PROBE_MILLIS} and times how long it waits in the queue, which is
+ * how long a click or keystroke would have waited; every wait goes into the
+ * {@link #lag()} histogram. Once
+ * a probe has waited {@code thresholdMillis}, the EDT's stack is sampled
+ * every {@link #SAMPLE_MILLIS} until the probe runs, and the stall is kept
+ * with its distinct stacks and how often each was seen.
+ */
+final class EdtWatchdog implements EdtWatchdogMXBean {
+    static final long PROBE_MILLIS = 100;
+    static final long SAMPLE_MILLIS = 50;
+    static final long DEFAULT_THRESHOLD_MILLIS = 250;
+    private static final int MAX_SAMPLES = 200; // 10 s of samples; longer stalls are timed but not sampled further
+    private static final int STACK_DEPTH = 24;
+    private static final int RECENT_STALLS = 32;
+
+    private final long thresholdNanos;
+    private final LatencyHistogram lag = new LatencyHistogram(), stalls = new LatencyHistogram();
+    private final ArrayDeque<Stall> recent = new ArrayDeque<>();
+    private volatile Thread edt;
+    private volatile long pendingSince; // post time of a probe still waiting, else 0
+    private long stallCount;
+
+    EdtWatchdog(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    /** {@code $itinerary.metrics.stallMillis} if set, else {@link #DEFAULT_THRESHOLD_MILLIS}. */
+    static long defaultThresholdMillis() {
+        return Long.getLong("itinerary.metrics.stallMillis", DEFAULT_THRESHOLD_MILLIS);
+    }
+
+    void start() {
+        Thread t = new Thread(this::watch, "edt-watchdog");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Queue wait of every probe. */
+    LatencyHistogram lag() {
+        return lag;
+    }
+
+    /** Duration of every stall. */
+    LatencyHistogram stalls() {
+        return stalls;
+    }
+
+    /** Stalls that ended after {@code sinceMillis} (wall clock), oldest first. */
+    synchronized List<Stall> stallsSince(long sinceMillis) {
+        List<Stall> out = new ArrayList<>();
+        for (Stall s : recent) if (s.endMillis > sinceMillis) out.add(0, s);
+        return out;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (!anyWindowOpen()) { // no probes, so AWT can shut down once the windows are gone
+                    Thread.sleep(PROBE_MILLIS);
+                    continue;
+                }
+                Probe probe = new Probe();
+                pendingSince = probe.posted;
+                EventQueue.invokeLater(probe);
+                if (!probe.ran.await(thresholdNanos, TimeUnit.NANOSECONDS)) sample(probe);
+                pendingSince = 0;
+                long waited = probe.ranAt - probe.posted;
+                lag.record(waited);
+                Thread.sleep(PROBE_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            // exiting
+        }
+    }
+
+    private static boolean anyWindowOpen() {
+        for (Window w : Window.getWindows()) if (w.isDisplayable()) return true;
+        return false;
+    }
+
+    /** Samples the EDT until {@code probe} runs, then records the stall. */
+    private void sample(Probe probe) throws InterruptedException {
+        long startMillis = System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - probe.posted);
+        Map<String, Integer> stacks = new LinkedHashMap<>();
+        int samples = 0;
+        do {
+            Thread t = edt;
+            if (t != null && samples < MAX_SAMPLES) {
+                StackTraceElement[] trace = t.getStackTrace();
+                if (trace.length > 0) {
+                    samples++;
+                    stacks.merge(format(trace), 1, Integer::sum);
+                }
+            }
+        } while (!probe.ran.await(SAMPLE_MILLIS, TimeUnit.MILLISECONDS));
+        long nanos = probe.ranAt - probe.posted;
+        stalls.record(nanos);
+        Stall s = new Stall(startMillis, nanos, samples, stacks);
+        synchronized (this) {
+            stallCount++;
+            recent.addFirst(s);
+            if (recent.size() > RECENT_STALLS) recent.removeLast();
+        }
+    }
+
+    private static String format(StackTraceElement[] trace) {
+        StringBuilder b = new StringBuilder(1024);
+        for (int i = 0; i < trace.length && i < STACK_DEPTH; i++) {
+            if (i > 0) b.append('\n');
+            b.append("at ").append(trace[i]);
+        }
+        if (trace.length > STACK_DEPTH) b.append("\n... ").append(trace.length - STACK_DEPTH).append(" more");
+        return b.toString();
+    }
+
+    @Override
+    public long getStallThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    @Override
+    public synchronized long getStallCount() {
+        return stallCount;
+    }
+
+    @Override
+    public double getCurrentStallMillis() {
+        long since = pendingSince;
+        if (since == 0) return 0;
+        long waited = System.nanoTime() - since;
+        return waited >= thresholdNanos ? waited / 1e6 : 0;
+    }
+
+    @Override
+    public double getLongestStallMillis() {
+        return stalls.getMaxMillis();
+    }
+
+    @Override
+    public synchronized String[] getRecentStalls() {
+        String[] out = new String[recent.size()];
+        int i = 0;
+        for (Stall s : recent) out[i++] = s.report();
+        return out;
+    }
+
+    /** One stall: when it began, how long the EDT was unavailable, and where it was. */
+    static final class Stall {
+        final long startMillis, endMillis, nanos;
+        final int samples;
+        final Map<String, Integer> stacks; // distinct stack -> times sampled
+
+        Stall(long startMillis, long nanos, int samples, Map<String, Integer> stacks) {
+            this.startMillis = startMillis;
+            this.endMillis = startMillis + TimeUnit.NANOSECONDS.toMillis(nanos);
+            this.nanos = nanos;
+            this.samples = samples;
+            this.stacks = stacks;
+        }
+
+        /** Start, duration, then each distinct stack, most sampled first. */
+        String report() {
+            StringBuilder b = new StringBuilder();
+            b.append(Instant.ofEpochMilli(startMillis)).append(" EDT stalled ").append(LatencyHistogram.formatMillis(nanos / 1e6))
+                    .append(", ").append(samples).append(samples == 1 ? " sample" : " samples");
+            stacks.entrySet().stream()
+                    .sorted((x, y) -> y.getValue() - x.getValue())
+                    .forEach(e -> b.append("\n  ").append(e.getValue()).append("x ").append(e.getKey().replace("\n", "\n      ")));
+            return b.toString();
+        }
+    }
+
+    private final class Probe implements Runnable {
+        final long posted = System.nanoTime();
+        final CountDownLatch ran = new CountDownLatch(1);
+        volatile long ranAt;
+
+        @Override
+        public void run() {
+            ranAt = System.nanoTime();
+            edt = Thread.currentThread();
+            ran.countDown();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package travel.itinerary;
+
+/** JMX view of the {@link EdtWatchdog}. */
+public interface EdtWatchdogMXBean {
+    long getStallThresholdMillis();
+
+    long getStallCount();
+
+    /** How long the current stall has lasted, or 0 while the EDT keeps up. */
+    double getCurrentStallMillis();
+
+    double getLongestStallMillis();
+
+    /** The most recent stalls, newest first, each with its sampled stacks. */
+    String[] getRecentStalls();
+}
@@ -0,0 +1,27 @@
+package travel.itinerary;
+
+import javax.swing.SwingWorker;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Runs an {@link ItineraryExporter} export off the EDT. The rows are a copy
+ * taken when the export starts, so the table can keep changing meanwhile.
+ * Progress (0-100) follows the rows written; cancelling discards the output.
+ */
+class ExportWorker extends SwingWorker<Boolean, Void> {
+    private final Path file;
+    private final ItineraryExporter.Format format;
+    private final ItineraryTableModel.RowBlock rows;
+
+    ExportWorker(Path file, ItineraryExporter.Format format, ItineraryTableModel.RowBlock rows) {
+        this.file = file;
+        this.format = format;
+        this.rows = rows;
+    }
+
+    @Override
+    protected Boolean doInBackground() throws IOException {
+        return ItineraryExporter.write(file, format, rows, this::setProgress, this::isCancelled);
+    }
+}
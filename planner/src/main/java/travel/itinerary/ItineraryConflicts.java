@@ -0,0 +1,398 @@
+package travel.itinerary;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Tracks which rows overlap another row in time.
+ *
+ * A row with a date, a time and a positive duration occupies the half-open
+ * interval [start, start + duration) in minutes since the epoch; rows missing
+ * any of those take no time and never conflict. Intervals live in one
+ * interval tree per start day (a treap ordered by start and augmented with the
+ * largest end in each subtree), so an edit finds the rows it overlaps in
+ * O(log n + k) and only adjusts their conflict counts. Intervals that run past
+ * midnight are found by also probing the trees of earlier days, as far back as
+ * the longest such interval reaches.
+ *
+ * Tree nodes are the model's stable row ids, and the node fields are parallel
+ * arrays indexed by id, so the trees allocate nothing per row. A full re-check
+ * (loads, whole-table changes) builds balanced trees day by day and counts
+ * overlaps in parallel.
+ *
+ * Registered as an index listener, so it is current before the table repaints.
+ * Use on the EDT.
+ */
+final class ItineraryConflicts implements TableModelListener {
+    private static final int NIL = -1;
+    private static final int MINUTES_PER_DAY = 1440;
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    // earliest start the date parser can produce (0000-01-01), for packing sort keys
+    private static final long MIN_START = -719_528L * MINUTES_PER_DAY;
+
+    private final ItineraryTableModel model;
+
+    // model row -> row id, as of the last event; needed to know which ids a delete removed
+    private int[] ids = new int[16];
+    private int size;
+
+    // node fields, by row id
+    private long[] start = new long[0];
+    private int[] length = new int[0];
+    private long[] maxEnd = new long[0];
+    private int[] left = new int[0], right = new int[0], prio = new int[0];
+    private boolean[] inTree = new boolean[0];
+    private int[] overlaps = new int[0];
+
+    private final Map<Integer, Integer> roots = new HashMap<>();
+    private int maxSpanDays;
+    private int conflictingRows;
+    private int seed = 0x2545F491;
+
+    // results of split()
+    private int splitLeft, splitRight;
+    // scratch for overlap queries
+    private int[] found = new int[16];
+    private int foundCount;
+
+    ItineraryConflicts(ItineraryTableModel model) {
+        this.model = model;
+        recheckAll();
+        model.addIndexListener(this);
+    }
+
+    /** Stops tracking the model. */
+    void dispose() {
+        model.removeIndexListener(this);
+    }
+
+    /** Whether model row {@code row} overlaps at least one other row. */
+    boolean conflicts(int row) {
+        int id = model.rowId(row);
+        return id < overlaps.length && overlaps[id] > 0;
+    }
+
+    /** Number of rows that overlap at least one other row. */
+    int conflictingRows() {
+        return conflictingRows;
+    }
+
+    // ---- maintenance ----
+
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        int first = e.getFirstRow(), last = e.getLastRow();
+        if (first == TableModelEvent.HEADER_ROW || last == Integer.MAX_VALUE) {
+            recheckAll();
+            return;
+        }
+        int count = last - first + 1;
+        switch (e.getType()) {
+            case TableModelEvent.INSERT:
+                if (count > PARALLEL_THRESHOLD && count > model.getRowCount() / 2) {
+                    recheckAll();
+                    return;
+                }
+                if (size + count > ids.length) ids = Arrays.copyOf(ids, Math.max(size + count, ids.length * 2));
+                System.arraycopy(ids, first, ids, first + count, size - first);
+                size += count;
+                ensureNodes(model.rowIdLimit());
+                for (int r = first; r <= last; r++) add(ids[r] = model.rowId(r), r);
+                break;
+            case TableModelEvent.DELETE:
+                for (int r = first; r <= last; r++) remove(ids[r]);
+                System.arraycopy(ids, last + 1, ids, first, size - last - 1);
+                size -= count;
+                break;
+            case TableModelEvent.UPDATE:
+                if (count > PARALLEL_THRESHOLD && count > model.getRowCount() / 2) {
+                    recheckAll();
+                    return;
+                }
+                // an edit keeps the id; a move permutes ids within the range
+                for (int r = first; r <= last; r++) remove(ids[r]);
+                ensureNodes(model.rowIdLimit());
+                for (int r = first; r <= last; r++) add(ids[r] = model.rowId(r), r);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** Rebuilds every tree and count from the model, in parallel for large models. */
+    void recheckAll() {
+        int n = model.getRowCount();
+        size = n;
+        ids = new int[Math.max(16, n)];
+        int limit = model.rowIdLimit();
+        start = new long[limit];
+        length = new int[limit];
+        maxEnd = new long[limit];
+        left = new int[limit];
+        right = new int[limit];
+        prio = new int[limit];
+        inTree = new boolean[limit];
+        overlaps = new int[limit];
+        roots.clear();
+        maxSpanDays = 0;
+        conflictingRows = 0;
+
+        // intervals, then all timed rows sorted by (start, id)
+        int[] timed = new int[n];
+        int m = 0;
+        for (int r = 0; r < n; r++) {
+            int id = ids[r] = model.rowId(r);
+            if (interval(r, id)) timed[m++] = id;
+        }
+        int[] sorted = sortByStart(timed, m);
+
+        // one balanced tree per start day, days built in parallel
+        List<int[]> days = new ArrayList<>();
+        for (int a = 0; a < m; ) {
+            long day = Math.floorDiv(start[sorted[a]], MINUTES_PER_DAY);
+            int b = a + 1;
+            while (b < m && Math.floorDiv(start[sorted[b]], MINUTES_PER_DAY) == day) b++;
+            days.add(new int[]{(int) day, a, b});
+            a = b;
+        }
+        int[] dayRoots = new int[days.size()];
+        parallelFor(days.size(), m, i -> {
+            int[] d = days.get(i);
+            dayRoots[i] = build(sorted, d[1], d[2], 0);
+        });
+        for (int i = 0; i < dayRoots.length; i++) roots.put(days.get(i)[0], dayRoots[i]);
+        for (int i = 0; i < m; i++) {
+            int id = sorted[i];
+            inTree[id] = true;
+            maxSpanDays = Math.max(maxSpanDays, spanDays(id));
+        }
+
+        // overlap counts; the trees are read-only from here
+        int[] o = overlaps;
+        parallelFor(m, m, i -> {
+            int id = sorted[i];
+            o[id] = countOverlaps(start[id], start[id] + length[id]) - 1;
+        });
+        for (int i = 0; i < m; i++) if (o[sorted[i]] > 0) conflictingRows++;
+    }
+
+    private void add(int id, int row) {
+        if (!interval(row, id)) return;
+        long s = start[id], e = s + length[id];
+        findOverlaps(s, e);
+        for (int i = 0; i < foundCount; i++) {
+            increment(found[i]);
+            increment(id);
+        }
+        int day = (int) Math.floorDiv(s, MINUTES_PER_DAY);
+        seed ^= seed << 13; seed ^= seed >>> 17; seed ^= seed << 5;
+        prio[id] = (seed & 0x7FFF_FFFF) >>> 6; // below the depth-based priorities of bulk-built nodes
+        left[id] = right[id] = NIL;
+        maxEnd[id] = e;
+        roots.put(day, insert(roots.getOrDefault(day, NIL), id));
+        inTree[id] = true;
+        maxSpanDays = Math.max(maxSpanDays, spanDays(id));
+    }
+
+    private void remove(int id) {
+        if (id >= inTree.length || !inTree[id]) return;
+        long s = start[id], e = s + length[id];
+        int day = (int) Math.floorDiv(s, MINUTES_PER_DAY);
+        int root = delete(roots.get(day), id);
+        if (root == NIL) roots.remove(day); else roots.put(day, root);
+        inTree[id] = false;
+        findOverlaps(s, e);
+        for (int i = 0; i < foundCount; i++) decrement(found[i]);
+        if (overlaps[id] > 0) conflictingRows--;
+        overlaps[id] = 0;
+    }
+
+    /** Stores the interval of model row {@code row} under {@code id}; false if the row takes no time. */
+    private boolean interval(int row, int id) {
+        int day = model.epochDay(row);
+        short minute = model.minuteOfDay(row);
+        int minutes = model.durationMinutes(row);
+        if (!ItineraryTableModel.isDateValue(day) || !ItineraryTableModel.isTimeValue(minute)
+                || !ItineraryTableModel.isDurationValue(minutes) || minutes == 0) return false;
+        start[id] = (long) day * MINUTES_PER_DAY + minute;
+        length[id] = minutes;
+        return true;
+    }
+
+    private int spanDays(int id) {
+        long s = start[id];
+        return (int) (Math.floorDiv(s + length[id] - 1, MINUTES_PER_DAY) - Math.floorDiv(s, MINUTES_PER_DAY));
+    }
+
+    private void increment(int id) {
+        if (overlaps[id]++ == 0) conflictingRows++;
+    }
+
+    private void decrement(int id) {
+        if (--overlaps[id] == 0) conflictingRows--;
+    }
+
+    private void ensureNodes(int limit) {
+        if (limit <= start.length) return;
+        int cap = Math.max(limit, start.length * 2);
+        start = Arrays.copyOf(start, cap);
+        length = Arrays.copyOf(length, cap);
+        maxEnd = Arrays.copyOf(maxEnd, cap);
+        left = Arrays.copyOf(left, cap);
+        right = Arrays.copyOf(right, cap);
+        prio = Arrays.copyOf(prio, cap);
+        inTree = Arrays.copyOf(inTree, cap);
+        overlaps = Arrays.copyOf(overlaps, cap);
+    }
+
+    // ---- queries ----
+
+    /** Collects into {@link #found} the ids whose intervals overlap [s, e). */
+    private void findOverlaps(long s, long e) {
+        foundCount = 0;
+        long lastDay = Math.floorDiv(e - 1, MINUTES_PER_DAY);
+        for (long d = Math.floorDiv(s, MINUTES_PER_DAY) - maxSpanDays; d <= lastDay; d++) {
+            Integer root = roots.get((int) d);
+            if (root != null) collect(root, s, e);
+        }
+    }
+
+    private void collect(int t, long s, long e) {
+        while (t != NIL && maxEnd[t] > s) {
+            collect(left[t], s, e);
+            if (start[t] >= e) return; // everything to the right starts later still
+            if (start[t] + length[t] > s) {
+                if (foundCount == found.length) found = Arrays.copyOf(found, foundCount * 2);
+                found[foundCount++] = t;
+            }
+            t = right[t];
+        }
+    }
+
+    /** Number of intervals overlapping [s, e); safe to call from several threads. */
+    private int countOverlaps(long s, long e) {
+        int n = 0;
+        long lastDay = Math.floorDiv(e - 1, MINUTES_PER_DAY);
+        for (long d = Math.floorDiv(s, MINUTES_PER_DAY) - maxSpanDays; d <= lastDay; d++) {
+            Integer root = roots.get((int) d);
+            if (root != null) n += count(root, s, e);
+        }
+        return n;
+    }
+
+    private int count(int t, long s, long e) {
+        int n = 0;
+        while (t != NIL && maxEnd[t] > s) {
+            n += count(left[t], s, e);
+            if (start[t] >= e) return n;
+            if (start[t] + length[t] > s) n++;
+            t = right[t];
+        }
+        return n;
+    }
+
+    // ---- treap ----
+
+    private boolean less(int a, int b) {
+        return start[a] < start[b] || (start[a] == start[b] && a < b);
+    }
+
+    private void pull(int t) {
+        long m = start[t] + length[t];
+        if (left[t] != NIL) m = Math.max(m, maxEnd[left[t]]);
+        if (right[t] != NIL) m = Math.max(m, maxEnd[right[t]]);
+        maxEnd[t] = m;
+    }
+
+    private int insert(int t, int x) {
+        if (t == NIL) return x;
+        if (prio[x] > prio[t]) {
+            split(t, x);
+            left[x] = splitLeft;
+            right[x] = splitRight;
+            pull(x);
+            return x;
+        }
+        if (less(x, t)) left[t] = insert(left[t], x);
+        else right[t] = insert(right[t], x);
+        pull(t);
+        return t;
+    }
+
+    /** Splits {@code t} into nodes before {@code x} (splitLeft) and after it (splitRight). */
+    private void split(int t, int x) {
+        if (t == NIL) {
+            splitLeft = splitRight = NIL;
+        } else if (less(t, x)) {
+            split(right[t], x);
+            right[t] = splitLeft;
+            pull(t);
+            splitLeft = t;
+        } else {
+            split(left[t], x);
+            left[t] = splitRight;
+            pull(t);
+            splitRight = t;
+        }
+    }
+
+    private int delete(int t, int x) {
+        if (t == x) return merge(left[t], right[t]);
+        if (less(x, t)) left[t] = delete(left[t], x);
+        else right[t] = delete(right[t], x);
+        pull(t);
+        return t;
+    }
+
+    private int merge(int a, int b) {
+        if (a == NIL) return b;
+        if (b == NIL) return a;
+        if (prio[a] > prio[b]) {
+            right[a] = merge(right[a], b);
+            pull(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        pull(b);
+        return b;
+    }
+
+    /** Perfectly balanced treap over sorted[from, to); priorities fall with depth. */
+    private int build(int[] sorted, int from, int to, int depth) {
+        if (from >= to) return NIL;
+        int mid = (from + to) >>> 1, t = sorted[mid];
+        prio[t] = Integer.MAX_VALUE - depth;
+        left[t] = build(sorted, from, mid, depth + 1);
+        right[t] = build(sorted, mid + 1, to, depth + 1);
+        pull(t);
+        return t;
+    }
+
+    /** ids[0, n) ordered by (start, id). */
+    private int[] sortByStart(int[] ids, int n) {
+        if (model.rowIdLimit() <= 1 << 30) {
+            // start offset fits in 33 bits, the id in the low 30
+            long[] packed = new long[n];
+            parallelFor(n, n, i -> packed[i] = (start[ids[i]] - MIN_START) << 30 | ids[i]);
+            Arrays.parallelSort(packed);
+            int[] out = new int[n];
+            parallelFor(n, n, i -> out[i] = (int) (packed[i] & ((1 << 30) - 1)));
+            return out;
+        }
+        return IntStream.of(Arrays.copyOf(ids, n)).boxed()
+                .sorted((a, b) -> less(a, b) ? -1 : less(b, a) ? 1 : 0)
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void parallelFor(int n, int work, IntConsumer body) {
+        if (work >= PARALLEL_THRESHOLD) IntStream.range(0, n).parallel().forEach(body);
+        else for (int i = 0; i < n; i++) body.accept(i);
+    }
+}
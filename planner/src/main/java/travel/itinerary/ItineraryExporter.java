@@ -0,0 +1,388 @@
+package travel.itinerary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+/**
+ * Streams rows to a file in one of several {@link Format}s.
+ *
+ * A format renders one row at a time into a small reused StringBuilder; the
+ * exporter encodes it as UTF-8 into a reused direct buffer and writes that to
+ * a {@link FileChannel}, so memory stays flat however many rows there are.
+ * Output goes to a temp file next to the target and is renamed into place
+ * only once complete, so a failed or cancelled export never leaves a
+ * half-written file behind.
+ *
+ * Rows come from a {@link ItineraryTableModel.RowBlock} copy, which can be
+ * read off the EDT while the table keeps changing.
+ */
+final class ItineraryExporter {
+    private static final int PROGRESS_ROWS = 4096;
+    // one encode buffer per writing thread; batch runs write thousands of small files
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(1 << 16));
+
+    /** One output format; instances are stateless and shared. */
+    interface Format {
+        String description();
+
+        String extension();
+
+        default void begin(StringBuilder out) { }
+
+        /** Appends row {@code r}. */
+        void row(StringBuilder out, Context ctx, ItineraryTableModel.RowBlock rows, int r);
+
+        default void end(StringBuilder out) { }
+    }
+
+    /** Per-export state handed to {@link Format#row}. */
+    static final class Context {
+        /** Scratch space for escaping a cell. */
+        final StringBuilder cell = new StringBuilder(64);
+        final ZonedDateTime started = ZonedDateTime.now(ZoneOffset.UTC);
+        private String utcStamp;
+
+        /** Start of the export as yyyyMMddTHHmmssZ. */
+        String utcStamp() {
+            if (utcStamp == null) utcStamp = started.format(DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'"));
+            return utcStamp;
+        }
+    }
+
+    static final Format CSV = new Csv();
+    static final Format SUMMARY = new Summary();
+    static final Format ICALENDAR = new ICalendar();
+    static final Format JSON = new Json();
+    static final List<Format> FORMATS = Arrays.asList(CSV, SUMMARY, ICALENDAR, JSON);
+
+    private ItineraryExporter() { }
+
+    /**
+     * Writes {@code rows} to {@code file}. Returns false, leaving {@code file}
+     * untouched, if {@code cancelled} turned true first.
+     *
+     * @param progress receives 0-100 as rows are written; may be null
+     */
+    static boolean write(Path file, Format format, ItineraryTableModel.RowBlock rows, IntConsumer progress,
+                         BooleanSupplier cancelled) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = createTemp(dir, "." + file.getFileName());
+        boolean done = false;
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                Utf8Channel out = new Utf8Channel(ch);
+                StringBuilder b = new StringBuilder(256);
+                Context ctx = new Context();
+                format.begin(b);
+                out.write(b);
+                int n = rows.size();
+                for (int r = 0; r < n; r++) {
+                    b.setLength(0);
+                    format.row(b, ctx, rows, r);
+                    out.write(b);
+                    if ((r + 1) % PROGRESS_ROWS == 0) {
+                        if (cancelled.getAsBoolean()) return false;
+                        if (progress != null) progress.accept((int) ((r + 1L) * 100 / n));
+                    }
+                }
+                b.setLength(0);
+                format.end(b);
+                out.write(b);
+                out.flush();
+                ch.force(true);
+            }
+            if (cancelled.getAsBoolean()) return false;
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            done = true;
+            if (progress != null) progress.accept(100);
+            return true;
+        } finally {
+            if (!done) Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Same bytes as the old PrintWriter-based Save CSV. */
+    private static final class Csv implements Format {
+        private static final String EOL = System.lineSeparator();
+
+        @Override public String description() { return "CSV"; }
+        @Override public String extension() { return "csv"; }
+
+        @Override
+        public void begin(StringBuilder out) {
+            out.append(String.join(",", ItineraryTableModel.COLS)).append(EOL);
+        }
+
+        @Override
+        public void row(StringBuilder out, Context ctx, ItineraryTableModel.RowBlock rows, int r) {
+            StringBuilder cell = ctx.cell;
+            for (int c = 0; c < ItineraryTableModel.COLS.length; c++) {
+                if (c > 0) out.append(',');
+                cell.setLength(0);
+                rows.appendCell(cell, r, c);
+                boolean quote = false;
+                for (int i = 0; i < cell.length() && !quote; i++) {
+                    char ch = cell.charAt(i);
+                    quote = ch == ',' || ch == '"' || ch == '\n';
+                }
+                if (!quote) {
+                    out.append(cell);
+                    continue;
+                }
+                out.append('"');
+                for (int i = 0; i < cell.length(); i++) {
+                    char ch = cell.charAt(i);
+                    if (ch == '"') out.append('"');
+                    out.append(ch);
+                }
+                out.append('"');
+            }
+            out.append(EOL);
+        }
+    }
+
+    /** The Export Summary text. */
+    private static final class Summary implements Format {
+        @Override public String description() { return "Text summary"; }
+        @Override public String extension() { return "txt"; }
+
+        @Override
+        public void begin(StringBuilder out) {
+            out.append(ItinerarySummary.TITLE);
+        }
+
+        @Override
+        public void row(StringBuilder out, Context ctx, ItineraryTableModel.RowBlock rows, int r) {
+            out.append(r + 1).append(". ");
+            ItinerarySummary.appendRow(out, rows, r);
+        }
+    }
+
+    /**
+     * iCalendar (RFC 5545) with one event per dated row. Rows with a time
+     * become floating local-time events lasting their duration (one hour if
+     * none); rows without a time become all-day events. Undated rows are skipped.
+     */
+    private static final class ICalendar implements Format {
+        private static final int DEFAULT_MINUTES = 60;
+        private static final int MAX_OCTETS = 75;
+
+        @Override public String description() { return "iCalendar"; }
+        @Override public String extension() { return "ics"; }
+
+        @Override
+        public void begin(StringBuilder out) {
+            out.append("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//Travel Itinerary Planner//EN\r\n")
+                    .append("CALSCALE:GREGORIAN\r\n");
+        }
+
+        @Override
+        public void row(StringBuilder out, Context ctx, ItineraryTableModel.RowBlock rows, int r) {
+            int day = rows.date[r];
+            if (!ItineraryTableModel.isDateValue(day)) return;
+            out.append("BEGIN:VEVENT\r\n");
+            int line = out.length();
+            out.append("UID:").append(ctx.started.toEpochSecond()).append('-').append(r + 1)
+                    .append("@travel-itinerary-planner");
+            endLine(out, line);
+            out.append("DTSTAMP:").append(ctx.utcStamp()).append("\r\n");
+            short time = rows.time[r];
+            if (ItineraryTableModel.isTimeValue(time)) {
+                int dur = rows.duration[r];
+                long start = day * 1440L + time;
+                long end = start + (ItineraryTableModel.isDurationValue(dur) ? dur : DEFAULT_MINUTES);
+                out.append("DTSTART:");
+                appendDateTime(out, start);
+                out.append("\r\nDTEND:");
+                appendDateTime(out, end);
+            } else {
+                out.append("DTSTART;VALUE=DATE:");
+                appendDate(out, day);
+                out.append("\r\nDTEND;VALUE=DATE:");
+                appendDate(out, day + 1);
+            }
+            out.append("\r\n");
+            text(out, ctx.cell, "SUMMARY:", rows, r, ItineraryTableModel.ACTIVITY);
+            text(out, ctx.cell, "LOCATION:", rows, r, ItineraryTableModel.CITY);
+            text(out, ctx.cell, "DESCRIPTION:", rows, r, ItineraryTableModel.NOTES);
+            out.append("END:VEVENT\r\n");
+        }
+
+        @Override
+        public void end(StringBuilder out) {
+            out.append("END:VCALENDAR\r\n");
+        }
+
+        private static void text(StringBuilder out, StringBuilder cell, String name, ItineraryTableModel.RowBlock rows,
+                                 int r, int col) {
+            cell.setLength(0);
+            rows.appendCell(cell, r, col);
+            if (cell.length() == 0) return;
+            int line = out.length();
+            out.append(name);
+            for (int i = 0; i < cell.length(); i++) {
+                char ch = cell.charAt(i);
+                switch (ch) {
+                    case '\\': case ';': case ',': out.append('\\').append(ch); break;
+                    case '\n': out.append("\\n"); break;
+                    case '\r': break;
+                    default: out.append(ch); break;
+                }
+            }
+            endLine(out, line);
+        }
+
+        /** Folds the content line starting at {@code start} to 75 octets and terminates it. */
+        private static void endLine(StringBuilder out, int start) {
+            int octets = 0;
+            for (int i = start; i < out.length(); i++) {
+                char ch = out.charAt(i);
+                // a surrogate pair is 4 octets, all counted at its high half; a lone surrogate is written as '?'
+                boolean pairedLow = Character.isLowSurrogate(ch) && i > start && Character.isHighSurrogate(out.charAt(i - 1));
+                int len = ch < 0x80 ? 1 : ch < 0x800 ? 2 : pairedLow ? 0
+                        : Character.isHighSurrogate(ch) ? 4 : Character.isSurrogate(ch) ? 1 : 3;
+                if (octets + len > MAX_OCTETS && !pairedLow) {
+                    out.insert(i, "\r\n ");
+                    i += 3;
+                    octets = 1;
+                }
+                octets += len;
+            }
+            out.append("\r\n");
+        }
+
+        private static void appendDate(StringBuilder out, int day) {
+            int at = out.length();
+            ItineraryTableModel.appendEpochDay(out, day);
+            out.deleteCharAt(at + 7).deleteCharAt(at + 4);
+        }
+
+        private static void appendDateTime(StringBuilder out, long minutes) {
+            appendDate(out, (int) Math.floorDiv(minutes, 1440));
+            int m = Math.floorMod(minutes, 1440);
+            out.append('T');
+            ItineraryTableModel.appendMinuteOfDay(out, m);
+            out.deleteCharAt(out.length() - 3).append("00");
+        }
+    }
+
+    // unlike createTempFile, keeps the default (umask) permissions the saved file should end up with
+    private static Path createTemp(Path dir, String prefix) throws IOException {
+        while (true) {
+            Path tmp = dir.resolve(prefix + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                return Files.createFile(tmp);
+            } catch (FileAlreadyExistsException ex) {
+                // try another name
+            }
+        }
+    }
+
+    /** Appends {@code s} as a quoted JSON string. */
+    static void jsonString(StringBuilder out, CharSequence s) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (ch < 0x20) {
+                        out.append("\\u00").append(Character.forDigit(ch >> 4, 16)).append(Character.forDigit(ch & 15, 16));
+                    } else {
+                        out.append(ch);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    /** A JSON array with one object per row, keyed by column name. */
+    private static final class Json implements Format {
+        @Override public String description() { return "JSON"; }
+        @Override public String extension() { return "json"; }
+
+        @Override
+        public void begin(StringBuilder out) {
+            out.append('[');
+        }
+
+        @Override
+        public void row(StringBuilder out, Context ctx, ItineraryTableModel.RowBlock rows, int r) {
+            out.append(r == 0 ? "\n  {" : ",\n  {");
+            for (int c = 0; c < ItineraryTableModel.COLS.length; c++) {
+                if (c > 0) out.append(", ");
+                jsonString(out, ItineraryTableModel.COLS[c]);
+                out.append(": ");
+                ctx.cell.setLength(0);
+                rows.appendCell(ctx.cell, r, c);
+                jsonString(out, ctx.cell);
+            }
+            out.append('}');
+        }
+
+        @Override
+        public void end(StringBuilder out) {
+            out.append("\n]\n");
+        }
+    }
+
+    /** UTF-8 encoder over the thread's direct buffer; unpaired surrogates become '?', as in String.getBytes. */
+    private static final class Utf8Channel {
+        private final FileChannel ch;
+        private final ByteBuffer buf = BUFFERS.get();
+
+        Utf8Channel(FileChannel ch) {
+            this.ch = ch;
+            buf.clear();
+        }
+
+        void write(CharSequence s) throws IOException {
+            for (int i = 0, n = s.length(); i < n; i++) {
+                if (buf.remaining() < 4) flush();
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    buf.put((byte) c);
+                } else if (c < 0x800) {
+                    buf.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buf.put((byte) (0xF0 | cp >> 18)).put((byte) (0x80 | cp >> 12 & 0x3F))
+                            .put((byte) (0x80 | cp >> 6 & 0x3F)).put((byte) (0x80 | cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buf.put((byte) '?');
+                } else {
+                    buf.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package travel.itinerary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates city itineraries from a {@link TemplateCatalog}.
+ *
+ * A plan is encoded once, against the model's shared pools plus a notes pool
+ * of the generator's own, with day offsets instead of dates, and kept in a
+ * bounded LRU cache keyed by (city, days, template version). Generating the
+ * same trip again copies the cached columns into a block with the real dates,
+ * ready for a single {@code appendBlock}.
+ *
+ * The catalog file is re-read when its modification time changes, which is
+ * checked at most every {@link #CHECK_MILLIS} and outside any lock; a reload
+ * bumps the template version, so stale plans are never served and simply age
+ * out of the cache. Safe to use from several threads.
+ */
+final class ItineraryGenerator {
+    static final int DEFAULT_CACHE_PLANS = 64;
+    static final long CHECK_MILLIS = 1000;
+
+    private final ItineraryTableModel model;
+    private final Path templateFile;
+    private final int capacity;
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), evictions = new AtomicLong();
+    private final Map<Key, ItineraryTableModel.RowBlock> plans;
+
+    private volatile TemplateCatalog catalog = TemplateCatalog.BUILT_IN;
+    private volatile long nextCheck = System.nanoTime();
+    private FileTime seenStamp; // of the file last read, good or bad; null while there is none
+    private long versions;
+
+    /** @param templateFile catalog file; may be missing, in which case the built-in templates apply */
+    ItineraryGenerator(ItineraryTableModel model, Path templateFile, int capacity) {
+        this.model = new ItineraryTableModel(model); // plans outlive any one itinerary's notes
+        this.templateFile = templateFile;
+        this.capacity = capacity;
+        plans = new LinkedHashMap<Key, ItineraryTableModel.RowBlock>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ItineraryTableModel.RowBlock> eldest) {
+                if (size() <= ItineraryGenerator.this.capacity) return false;
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /** {@code $itinerary.templates} if set, else {@code templates.csv} in the data directory. */
+    static Path defaultTemplateFile() {
+        String p = System.getProperty("itinerary.templates");
+        return p != null ? Paths.get(p) : ItineraryJournal.defaultDirectory().resolve("templates.csv");
+    }
+
+    /**
+     * Returns {@code days} days of activities in {@code city}, the first on
+     * {@code startDay} (epoch day), as a block for this generator's model.
+     * Throws once if the template file changed and cannot be read; the
+     * previous templates stay in effect until the file changes again.
+     */
+    ItineraryTableModel.RowBlock generate(String city, int days, long startDay) throws IOException {
+        TemplateCatalog c = catalog();
+        Key key = new Key(city, days, c.version());
+        ItineraryTableModel.RowBlock plan;
+        synchronized (plans) {
+            plan = plans.get(key);
+        }
+        if (plan != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            plan = encode(c, city, days);
+            synchronized (plans) {
+                plans.put(key, plan);
+            }
+        }
+        ItineraryTableModel.RowBlock out = model.newBlock(plan.size());
+        for (int i = 0; i < plan.size(); i++) {
+            out.addEncoded((int) (startDay + plan.date[i]), plan.time[i], plan.city[i], plan.activity[i],
+                    plan.duration[i], plan.notes[i]);
+        }
+        return out;
+    }
+
+    long hits() { return hits.get(); }
+    long misses() { return misses.get(); }
+    long evictions() { return evictions.get(); }
+
+    String statsReport() {
+        int size;
+        synchronized (plans) {
+            size = plans.size();
+        }
+        return String.format("Plan cache: %d/%d plans, %d hits, %d misses, %d evictions",
+                size, capacity, hits.get(), misses.get(), evictions.get());
+    }
+
+    /** Plan with the date column holding day offsets from the start of the trip. */
+    private ItineraryTableModel.RowBlock encode(TemplateCatalog c, String city, int days) {
+        List<TemplateCatalog.Template> templates = c.templatesFor(city);
+        ItineraryTableModel.RowBlock plan = model.newBlock(days * templates.size());
+        int cityId = model.pool().intern(city);
+        int[] activity = new int[templates.size()], notes = new int[templates.size()];
+        short[] time = new short[templates.size()];
+        int[] duration = new int[templates.size()];
+        for (int t = 0; t < templates.size(); t++) {
+            TemplateCatalog.Template tpl = templates.get(t);
+            time[t] = model.encodeTime(tpl.time);
+            duration[t] = model.encodeDuration(tpl.duration);
+            activity[t] = model.pool().intern(tpl.activity(city, 1));
+            notes[t] = plan.notesPool().intern(tpl.notes(city, 1));
+        }
+        for (int day = 0; day < days; day++) {
+            for (int t = 0; t < templates.size(); t++) {
+                TemplateCatalog.Template tpl = templates.get(t);
+                int a = activity[t], n = notes[t];
+                if (day > 0 && tpl.perDay()) {
+                    a = model.pool().intern(tpl.activity(city, day + 1));
+                    n = plan.notesPool().intern(tpl.notes(city, day + 1));
+                }
+                plan.addEncoded(day, time[t], cityId, a, duration[t], n);
+            }
+        }
+        return plan;
+    }
+
+    private TemplateCatalog catalog() throws IOException {
+        long now = System.nanoTime();
+        if (now - nextCheck < 0) return catalog;
+        nextCheck = now + CHECK_MILLIS * 1_000_000;
+        FileTime stamp = stamp(); // outside the lock: batch and server threads must not queue on a stat
+        synchronized (this) {
+            if (Objects.equals(stamp, seenStamp)) return catalog;
+            seenStamp = stamp; // a bad file is not read again until it changes
+            if (stamp == null) {
+                catalog = TemplateCatalog.BUILT_IN;
+            } else {
+                try {
+                    catalog = TemplateCatalog.load(templateFile, ++versions);
+                } catch (IOException ex) {
+                    throw new IOException(ex.getMessage() + "; keeping the previous templates", ex);
+                }
+            }
+            return catalog;
+        }
+    }
+
+    private FileTime stamp() throws IOException {
+        try {
+            return Files.getLastModifiedTime(templateFile);
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    private static final class Key {
+        final String city;
+        final int days;
+        final long version;
+
+        Key(String city, int days, long version) {
+            this.city = city;
+            this.days = days;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return days == k.days && version == k.version && city.equals(k.city);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(city, days, version);
+        }
+    }
+}
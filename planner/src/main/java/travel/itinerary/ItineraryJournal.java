@@ -0,0 +1,314 @@
+package travel.itinerary;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe persistence for the planner's model: a binary
+ * {@link ItinerarySnapshot} plus an append-only journal of row changes.
+ *
+ * Every insert, edit, delete and move is appended to {@code journal-<gen>.log}
+ * as it happens, so it survives the process dying. Large changes (loads, bulk
+ * generation) are not journaled row by row; they schedule a compaction instead,
+ * which copies the model on the EDT, starts a new journal generation and
+ * writes {@code itinerary.snap} in the background. Until that snapshot lands,
+ * recovery falls back to the state before the large change.
+ *
+ * Each journal file starts with a flag saying whether it continues the replay
+ * of the files before it, or needs the snapshot of its own generation.
+ * Records carry a CRC, and replay stops at a torn tail.
+ *
+ * Must be used on the EDT.
+ */
+final class ItineraryJournal implements TableModelListener {
+    static final String SNAPSHOT_FILE = "itinerary.snap";
+    /** Changes touching more rows than this trigger a compaction instead of a journal record. */
+    static final int BULK_ROWS = 4096;
+    static final long MAX_JOURNAL_BYTES = 32L << 20;
+
+    private static final int MAGIC = 0x49544A31; // "ITJ1"
+    private static final byte OP_INSERT = 1, OP_UPDATE = 2, OP_DELETE = 3;
+
+    private final Path dir;
+    private final ItineraryTableModel model;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "itinerary-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Timer compactTimer;
+    private ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+    private FileChannel journal;
+    private long generation;
+    private long journalBytes;
+    private boolean pendingBulk;
+    private Consumer<String> failureListener = System.err::println;
+    private boolean snapshotFailing; // compactor thread only
+
+    ItineraryJournal(Path dir, ItineraryTableModel model) {
+        this.dir = dir;
+        this.model = model;
+        compactTimer = new Timer(750, e -> compact());
+        compactTimer.setRepeats(false);
+    }
+
+    /**
+     * Called on the EDT when recording stops, or when a snapshot cannot be
+     * written (once, until a later snapshot succeeds). Defaults to System.err.
+     */
+    void setFailureListener(Consumer<String> l) {
+        failureListener = l;
+    }
+
+    /** {@code $itinerary.data} if set, else {@code ~/.itinerary-planner}. */
+    static Path defaultDirectory() {
+        String p = System.getProperty("itinerary.data");
+        return p != null ? Paths.get(p) : Paths.get(System.getProperty("user.home"), ".itinerary-planner");
+    }
+
+    /**
+     * Restores the model from the latest snapshot and journal tail, then starts
+     * recording changes. Returns false when there was nothing to restore.
+     */
+    boolean open() throws IOException {
+        Files.createDirectories(dir);
+        Path snap = dir.resolve(SNAPSHOT_FILE);
+        long base = 0;
+        boolean restored = false;
+        if (Files.exists(snap)) {
+            base = ItinerarySnapshot.generation(snap);
+            if (base < 0) throw new IOException("Corrupt snapshot: " + snap);
+            model.replaceRows(ItinerarySnapshot.read(snap, model));
+            restored = true;
+        }
+
+        long last = base;
+        boolean replayed = false, valid = true;
+        for (long gen : journalGenerations()) {
+            Path f = journalFile(gen);
+            if (gen < base) {
+                Files.deleteIfExists(f);
+                continue;
+            }
+            last = Math.max(last, gen);
+            if (valid) {
+                int records = replay(f, gen == base);
+                if (records < 0) valid = false; // needs a snapshot we do not have; later files cannot apply
+                else replayed |= records > 0;
+            }
+        }
+
+        generation = replayed ? last + 1 : base;
+        openJournal(!replayed || valid);
+        model.addTableModelListener(this);
+        if (replayed) compact();
+        return restored || replayed;
+    }
+
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        if (journal == null || pendingBulk) return;
+        int first = e.getFirstRow(), last = e.getLastRow();
+        if (first == TableModelEvent.HEADER_ROW || last == Integer.MAX_VALUE
+                || (e.getType() != TableModelEvent.DELETE && last - first >= BULK_ROWS)) {
+            scheduleCompaction();
+            return;
+        }
+        try {
+            switch (e.getType()) {
+                case TableModelEvent.INSERT: appendRows(OP_INSERT, first, last); break;
+                case TableModelEvent.UPDATE: appendRows(OP_UPDATE, first, last); break;
+                case TableModelEvent.DELETE: appendDelete(first, last); break;
+                default: break;
+            }
+        } catch (IOException ex) {
+            fail(ex);
+            return;
+        }
+        if (journalBytes > MAX_JOURNAL_BYTES) scheduleCompaction();
+    }
+
+    /** Copies the model now and writes it as a new snapshot in the background. */
+    void compact() {
+        compactTimer.stop();
+        if (journal == null) return;
+        ItineraryTableModel.RowBlock rows = model.copyRows();
+        boolean contiguous = !pendingBulk;
+        long gen = generation + 1;
+        try {
+            journal.close();
+            generation = gen;
+            openJournal(contiguous);
+        } catch (IOException ex) {
+            fail(ex);
+            return;
+        }
+        pendingBulk = false;
+        writer.execute(() -> {
+            try {
+                ItinerarySnapshot.write(dir.resolve(SNAPSHOT_FILE), rows, gen);
+                for (long g : journalGenerations()) if (g < gen) Files.deleteIfExists(journalFile(g));
+                snapshotFailing = false;
+            } catch (IOException ex) {
+                if (snapshotFailing) return;
+                snapshotFailing = true;
+                String message = "Could not write the itinerary snapshot; changes are still journaled: " + ex.getMessage();
+                SwingUtilities.invokeLater(() -> failureListener.accept(message));
+            }
+        });
+    }
+
+    private void scheduleCompaction() {
+        pendingBulk = true;
+        compactTimer.restart();
+    }
+
+    // ---- writing ----
+
+    private void openJournal(boolean contiguous) throws IOException {
+        journal = FileChannel.open(journalFile(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(5).putInt(MAGIC).put((byte) (contiguous ? 1 : 0));
+        header.flip();
+        while (header.hasRemaining()) journal.write(header);
+        journalBytes = 5;
+    }
+
+    private void appendRows(byte op, int first, int last) throws IOException {
+        begin(op, first, last - first + 1);
+        for (int r = first; r <= last; r++) {
+            for (int c = 0; c < ItineraryTableModel.COLS.length; c++) {
+                byte[] b = Objects.toString(model.getValueAt(r, c), "").getBytes(StandardCharsets.UTF_8);
+                ensure(4 + b.length);
+                buf.putInt(b.length).put(b);
+            }
+        }
+        commit();
+    }
+
+    private void appendDelete(int first, int last) throws IOException {
+        begin(OP_DELETE, first, last - first + 1);
+        commit();
+    }
+
+    private void begin(byte op, int row, int count) {
+        buf.clear();
+        buf.position(8); // length + crc, filled in by commit
+        buf.put(op).putInt(row).putInt(count);
+    }
+
+    private void commit() throws IOException {
+        int len = buf.position() - 8;
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), 8, len);
+        buf.putInt(0, len).putInt(4, (int) crc.getValue());
+        buf.flip();
+        while (buf.hasRemaining()) journal.write(buf);
+        journalBytes += len + 8;
+    }
+
+    private void ensure(int bytes) {
+        if (buf.remaining() >= bytes) return;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + bytes));
+        buf.flip();
+        bigger.put(buf);
+        buf = bigger;
+    }
+
+    private void fail(IOException ex) {
+        try { journal.close(); } catch (IOException ignored) { }
+        journal = null;
+        failureListener.accept("Changes are no longer being saved: " + ex.getMessage());
+    }
+
+    // ---- replay ----
+
+    /**
+     * Applies the records of one journal file to the model.
+     * Returns the number of records applied, or -1 if the file does not follow
+     * from the replay so far.
+     */
+    private int replay(Path f, boolean matchesSnapshot) throws IOException {
+        try (FileChannel ch = FileChannel.open(f, StandardOpenOption.READ)) {
+            if (ch.size() < 5) return 0;
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (in.getInt() != MAGIC) return 0;
+            boolean contiguous = in.get() == 1;
+            if (!contiguous && !matchesSnapshot) return -1;
+            int records = 0;
+            CRC32 crc = new CRC32();
+            while (in.remaining() >= 8) {
+                int len = in.getInt(), sum = in.getInt();
+                if (len < 9 || len > in.remaining()) break; // torn tail
+                ByteBuffer payload = in.slice().limit(len);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != sum) break;
+                in.position(in.position() + len);
+                apply(payload);
+                records++;
+            }
+            return records;
+        }
+    }
+
+    private void apply(ByteBuffer p) {
+        byte op = p.get();
+        int row = p.getInt(), count = p.getInt();
+        if (op == OP_DELETE) {
+            model.removeRows(row, row + count - 1);
+            return;
+        }
+        Object[] cells = new Object[ItineraryTableModel.COLS.length];
+        for (int r = row; r < row + count; r++) {
+            for (int c = 0; c < cells.length; c++) {
+                byte[] b = new byte[p.getInt()];
+                p.get(b);
+                cells[c] = new String(b, StandardCharsets.UTF_8);
+            }
+            if (op == OP_INSERT) {
+                model.insertRow(r, cells);
+            } else {
+                for (int c = 0; c < cells.length; c++) model.setValueAt(cells[c], r, c);
+            }
+        }
+    }
+
+    private List<Long> journalGenerations() throws IOException {
+        List<Long> gens = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "journal-*.log")) {
+            for (Path p : ds) {
+                String name = p.getFileName().toString();
+                try {
+                    gens.add(Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length())));
+                } catch (NumberFormatException ignored) { }
+            }
+        }
+        Collections.sort(gens);
+        return gens;
+    }
+
+    private Path journalFile(long gen) {
+        return dir.resolve("journal-" + gen + ".log");
+    }
+}
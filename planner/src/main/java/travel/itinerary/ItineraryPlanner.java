@@ -0,0 +1,747 @@
+package travel.itinerary;
+
+import javax.swing.*;
+import javax.swing.table.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.List;
+import java.awt.datatransfer.StringSelection; // clipboard
+import java.awt.datatransfer.Clipboard;
+import java.util.concurrent.ExecutionException;
+
+public class ItineraryPlanner {
+    private JFrame frame;
+    private JTable table;
+    private ItineraryTableModel model;
+    private static final String[] COLS = ItineraryTableModel.COLS;
+    private JTextField cityField;
+    private JSpinner daysSpinner;
+    private CsvLoadWorker loadWorker;
+    private ItineraryJournal journal;
+    private ItineraryRowSorter sorter;
+    private ItinerarySearchIndex searchIndex;
+    private ItinerarySummary summary;
+    private ItineraryConflicts conflicts;
+    private ItineraryGenerator generator;
+    private JTextField searchField, filterCityField, fromField, toField;
+    private JLabel matchLabel;
+    private javax.swing.Timer searchTimer;
+    private TripWorkspace workspace;
+    private DefaultListModel<TripWorkspace.Trip> tripListModel;
+    private JList<TripWorkspace.Trip> tripList;
+    private SwingWorker<ItineraryTableModel.RowBlock, Void> tripLoader;
+    private Path currentTrip;
+    private boolean tripEdited;
+    private long edits; // counts model changes, to tell whether a save still matches the rows
+    private static final String TITLE = "Travel Itinerary Planner ✈️";
+
+    public ItineraryPlanner() {
+        PlannerMetrics.install();
+        frame = new JFrame(TITLE);
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setSize(980, 560);
+        frame.setLocationRelativeTo(null);
+
+        // Top panel (controls)
+        JPanel topPanel = new JPanel(new GridBagLayout());
+        topPanel.setBorder(BorderFactory.createEmptyBorder(10,10,6,10));
+        topPanel.setBackground(new Color(245, 247, 250));
+
+        GridBagConstraints g = new GridBagConstraints();
+        g.insets = new Insets(6,6,6,6);
+        g.anchor = GridBagConstraints.WEST;
+
+        g.gridx = 0; g.gridy = 0;
+        topPanel.add(new JLabel("City:"), g);
+
+        cityField = new JTextField(18);
+        g.gridx = 1; topPanel.add(cityField, g);
+
+        g.gridx = 2; topPanel.add(new JLabel("Days:"), g);
+        daysSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 14, 1));
+        daysSpinner.setPreferredSize(new Dimension(60, daysSpinner.getPreferredSize().height));
+        g.gridx = 3; topPanel.add(daysSpinner, g);
+
+        JButton genBtn = new JButton("Generate Itinerary");
+        styleButton(genBtn, new Color(72, 133, 237));
+        g.gridx = 4; topPanel.add(genBtn, g);
+
+        // Table model
+        model = new ItineraryTableModel();
+        boolean restored = openJournal();
+        table = new JTable(model);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setFillsViewportHeight(true);
+        sorter = new ItineraryRowSorter(model);
+        table.setRowSorter(sorter);
+        searchIndex = new ItinerarySearchIndex(model);
+        summary = new ItinerarySummary(model);
+        conflicts = new ItineraryConflicts(model);
+        generator = new ItineraryGenerator(model, ItineraryGenerator.defaultTemplateFile(), ItineraryGenerator.DEFAULT_CACHE_PLANS);
+        addSearchRow(topPanel);
+
+        // Color the table rows and header
+        table.setDefaultRenderer(Object.class, new AlternatingRowRenderer(conflicts));
+        JTableHeader header = table.getTableHeader();
+        header.setBackground(new Color(20, 90, 160));
+        header.setForeground(Color.WHITE);
+        header.setFont(header.getFont().deriveFont(Font.BOLD));
+
+        JScrollPane scroll = new JScrollPane(table);
+
+        // Buttons
+        JButton addBtn = new JButton("Add");
+        JButton editBtn = new JButton("Edit");
+        JButton deleteBtn = new JButton("Delete");
+        JButton moveUpBtn = new JButton("Move Up");
+        JButton moveDownBtn = new JButton("Move Down");
+        JButton routeBtn = new JButton("Optimize Route");
+        JButton saveBtn = new JButton("Save CSV");
+        JButton loadBtn = new JButton("Load CSV");
+        JButton workspaceBtn = new JButton("Workspace...");
+        JButton exportBtn = new JButton("Export Summary");
+        JButton copyBtn = new JButton("Copy Summary");
+
+        styleButton(addBtn, new Color(60, 179, 113));
+        styleButton(editBtn, new Color(255, 165, 0));
+        styleButton(deleteBtn, new Color(220, 53, 69));
+        styleButton(moveUpBtn, new Color(108, 117, 125));
+        styleButton(moveDownBtn, new Color(108, 117, 125));
+        styleButton(routeBtn, new Color(108, 117, 125));
+        styleButton(saveBtn, new Color(72, 133, 237));
+        styleButton(loadBtn, new Color(72, 133, 237));
+        styleButton(workspaceBtn, new Color(72, 133, 237));
+        styleButton(exportBtn, new Color(102, 16, 242));
+        styleButton(copyBtn, new Color(23, 162, 184));
+
+        JPanel btnPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        btnPanel.setBorder(BorderFactory.createEmptyBorder(6,10,10,10));
+        btnPanel.setBackground(new Color(250,250,250));
+        btnPanel.add(addBtn);
+        btnPanel.add(editBtn);
+        btnPanel.add(deleteBtn);
+        btnPanel.add(moveUpBtn);
+        btnPanel.add(moveDownBtn);
+        btnPanel.add(routeBtn);
+        btnPanel.add(saveBtn);
+        btnPanel.add(loadBtn);
+        btnPanel.add(workspaceBtn);
+        btnPanel.add(exportBtn);
+        btnPanel.add(copyBtn);
+
+        frame.getContentPane().setLayout(new BorderLayout(8, 8));
+        frame.getContentPane().add(topPanel, BorderLayout.NORTH);
+        frame.getContentPane().add(scroll, BorderLayout.CENTER);
+        frame.getContentPane().add(btnPanel, BorderLayout.SOUTH);
+
+        // Button actions
+        addBtn.addActionListener(e -> showItemDialog(null));
+        editBtn.addActionListener(e -> {
+            int r = table.getSelectedRow();
+            if (r == -1) { JOptionPane.showMessageDialog(frame, "Select an item to edit."); return; }
+            int modelRow = table.convertRowIndexToModel(r);
+            showItemDialog(modelRow);
+        });
+        deleteBtn.addActionListener(e -> {
+            int r = table.getSelectedRow();
+            if (r == -1) { JOptionPane.showMessageDialog(frame, "Select an item to delete."); return; }
+            int modelRow = table.convertRowIndexToModel(r);
+            int confirm = JOptionPane.showConfirmDialog(frame, "Delete selected item?", "Confirm", JOptionPane.YES_NO_OPTION);
+            if (confirm == JOptionPane.YES_OPTION) {
+                long t = PlannerMetrics.start();
+                model.removeRow(modelRow);
+                PlannerMetrics.record(PlannerMetrics.Op.EDIT, t);
+            }
+        });
+        moveUpBtn.addActionListener(e -> swapSelected(-1));
+        moveDownBtn.addActionListener(e -> swapSelected(1));
+        routeBtn.addActionListener(e -> optimizeRoute(routeBtn));
+        saveBtn.addActionListener(e -> saveCSV());
+        loadBtn.addActionListener(e -> loadCSV());
+        workspaceBtn.addActionListener(e -> chooseWorkspace());
+        exportBtn.addActionListener(e -> exportSummary());
+        copyBtn.addActionListener(e -> copySummaryToClipboard());
+
+        genBtn.addActionListener(e -> {
+            String city = cityField.getText().trim();
+            int days = (Integer) daysSpinner.getValue();
+            if (city.isEmpty()) { JOptionPane.showMessageDialog(frame, "Enter a city name to generate an itinerary."); return; }
+            generateItineraryForCity(city, days);
+            genBtn.setToolTipText(generator.statsReport());
+        });
+
+        // sample data
+        if (!restored) addSampleData();
+        model.addTableModelListener(e -> {
+            tripEdited = true;
+            edits++;
+        });
+        String ws = System.getProperty("itinerary.workspace");
+        if (ws != null) openWorkspace(Paths.get(ws));
+
+        frame.setVisible(true);
+    }
+
+    private void styleButton(JButton b, Color bg) {
+        b.setBackground(bg);
+        b.setForeground(Color.WHITE);
+        b.setFocusPainted(false);
+        b.setBorder(BorderFactory.createEmptyBorder(6,12,6,12));
+        b.setOpaque(true);
+    }
+
+    // Second row of the top panel: search text, city, date range; filters as you type
+    private void addSearchRow(JPanel topPanel) {
+        GridBagConstraints g = new GridBagConstraints();
+        g.insets = new Insets(0,6,0,6);
+        g.anchor = GridBagConstraints.WEST;
+        g.gridy = 1;
+
+        searchField = new JTextField(18);
+        filterCityField = new JTextField(10);
+        fromField = new JTextField(8);
+        toField = new JTextField(8);
+        fromField.setToolTipText("yyyy-MM-dd");
+        toField.setToolTipText("yyyy-MM-dd");
+        matchLabel = new JLabel();
+        JButton clearBtn = new JButton("Clear");
+        styleButton(clearBtn, new Color(108, 117, 125));
+
+        g.gridx = 0; topPanel.add(new JLabel("Search:"), g);
+        g.gridx = 1; topPanel.add(searchField, g);
+        g.gridx = 2; topPanel.add(new JLabel("In city:"), g);
+        g.gridx = 3; topPanel.add(filterCityField, g);
+        JPanel dates = new JPanel(new FlowLayout(FlowLayout.LEFT, 4, 0));
+        dates.setOpaque(false);
+        dates.add(new JLabel("From:")); dates.add(fromField);
+        dates.add(new JLabel("To:")); dates.add(toField);
+        dates.add(clearBtn);
+        dates.add(matchLabel);
+        g.gridx = 4; topPanel.add(dates, g);
+
+        // debounce typing so a burst of keystrokes runs one query
+        searchTimer = new javax.swing.Timer(120, e -> applySearch());
+        searchTimer.setRepeats(false);
+        javax.swing.event.DocumentListener changed = new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { searchTimer.restart(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { searchTimer.restart(); }
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { searchTimer.restart(); }
+        };
+        for (JTextField f : new JTextField[]{searchField, filterCityField, fromField, toField}) {
+            f.getDocument().addDocumentListener(changed);
+        }
+        clearBtn.addActionListener(e -> {
+            for (JTextField f : new JTextField[]{searchField, filterCityField, fromField, toField}) f.setText("");
+            applySearch();
+        });
+        sorter.addRowSorterListener(e -> updateMatchLabel());
+        updateMatchLabel();
+    }
+
+    private void applySearch() {
+        searchTimer.stop();
+        int from = searchDay(fromField, Integer.MIN_VALUE);
+        int to = searchDay(toField, Integer.MAX_VALUE);
+        ItinerarySearchIndex.Query q = new ItinerarySearchIndex.Query(searchField.getText(), filterCityField.getText(), from, to);
+        sorter.setRowFilter(searchIndex.filter(q));
+    }
+
+    // Epoch day typed in a date filter field; blank or invalid input leaves that bound open
+    private int searchDay(JTextField f, int open) {
+        String text = f.getText().trim();
+        int day = text.isEmpty() ? open : ItineraryTableModel.parseEpochDay(text);
+        boolean valid = text.isEmpty() || day != ItineraryTableModel.INVALID;
+        f.setForeground(valid ? Color.BLACK : Color.RED);
+        return valid ? day : open;
+    }
+
+    private void updateMatchLabel() {
+        matchLabel.setText(sorter.getRowFilter() == null ? ""
+                : sorter.getViewRowCount() + " of " + model.getRowCount() + " items");
+    }
+
+    // Restores the last session (snapshot + journal) and keeps recording edits from here on
+    private boolean openJournal() {
+        journal = new ItineraryJournal(ItineraryJournal.defaultDirectory(), model);
+        journal.setFailureListener(message -> JOptionPane.showMessageDialog(null, message));
+        try {
+            return journal.open();
+        } catch (IOException ex) {
+            journal = null;
+            model.setRowCount(0);
+            JOptionPane.showMessageDialog(null, "Could not restore the saved itinerary: " + ex.getMessage());
+            return false;
+        }
+    }
+
+    private void addSampleData() {
+        DateTimeFormatter d = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        model.addRow(new Object[]{LocalDate.now().plusDays(1).format(d), "09:00", "Barcelona", "Sagrada Familia visit", "2h", "Buy tickets online"});
+        model.addRow(new Object[]{LocalDate.now().plusDays(2).format(d), "14:00", "Madrid", "Prado Museum", "3h", "Check guided tour times"});
+    }
+
+    private void swapSelected(int offset) {
+        int r = table.getSelectedRow();
+        if (r == -1) { JOptionPane.showMessageDialog(frame, "Select a row to move."); return; }
+        int modelRow = table.convertRowIndexToModel(r);
+        int target = modelRow + offset;
+        if (target < 0 || target >= model.getRowCount()) return;
+        long t = PlannerMetrics.start();
+        model.swapRows(modelRow, target);
+        int view = table.convertRowIndexToView(target);
+        if (view >= 0) table.setRowSelectionInterval(view, view);
+        PlannerMetrics.record(PlannerMetrics.Op.MOVE, t);
+    }
+
+    // Reorders each day's activities to shorten travel (coordinates from poi.csv), computed in the background
+    private void optimizeRoute(JButton routeBtn) {
+        Path poiFile = PoiCatalog.defaultFile();
+        if (!Files.exists(poiFile)) {
+            JOptionPane.showMessageDialog(frame, "No points of interest found. Add Name,City,Latitude,Longitude rows to\n" + poiFile);
+            return;
+        }
+        boolean[] edited = {false};
+        javax.swing.event.TableModelListener watch = ev -> edited[0] = true;
+        model.addTableModelListener(watch);
+        RouteWorker worker = new RouteWorker(poiFile, model.pool(), model.copyRows());
+        routeBtn.setEnabled(false);
+        frame.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        worker.addPropertyChangeListener(ev -> {
+            if (!"state".equals(ev.getPropertyName()) || ev.getNewValue() != SwingWorker.StateValue.DONE) return;
+            model.removeTableModelListener(watch);
+            routeBtn.setEnabled(true);
+            frame.setCursor(Cursor.getDefaultCursor());
+            RouteOptimizer.Result result;
+            try {
+                result = worker.get();
+            } catch (InterruptedException | ExecutionException ex) {
+                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                JOptionPane.showMessageDialog(frame, "Could not optimize route: " + cause.getMessage());
+                return;
+            }
+            if (edited[0]) {
+                JOptionPane.showMessageDialog(frame, "The itinerary changed while the route was being optimized; try again.");
+                return;
+            }
+            if (result.changed()) model.reorderRows(result.order); // one update event for every day
+            JOptionPane.showMessageDialog(frame, result.report());
+        });
+        worker.execute();
+    }
+
+    private void showItemDialog(Integer editRow) {
+        JDialog dialog = new JDialog(frame, (editRow == null ? "Add Item" : "Edit Item"), true);
+        dialog.setSize(460, 380);
+        dialog.setLocationRelativeTo(frame);
+        dialog.setLayout(new BorderLayout(8,8));
+
+        JPanel form = new JPanel(new GridBagLayout());
+        GridBagConstraints g = new GridBagConstraints();
+        g.insets = new Insets(6,6,6,6);
+        g.fill = GridBagConstraints.HORIZONTAL;
+        g.gridx = 0; g.gridy = 0;
+
+        JLabel dateL = new JLabel("Date (yyyy-MM-dd):"); JTextField dateF = new JTextField();
+        JLabel timeL = new JLabel("Time (HH:mm):"); JTextField timeF = new JTextField();
+        JLabel cityL = new JLabel("City:"); JTextField cityF = new JTextField();
+        JLabel actL = new JLabel("Activity:"); JTextField actF = new JTextField();
+        JLabel durL = new JLabel("Duration (e.g. 2h):"); JTextField durF = new JTextField();
+        JLabel notesL = new JLabel("Notes:"); JTextArea notesA = new JTextArea(4, 20);
+        JScrollPane notesScroll = new JScrollPane(notesA);
+
+        form.add(dateL, g); g.gridx = 1; form.add(dateF, g); g.gridx = 0; g.gridy++;
+        form.add(timeL, g); g.gridx = 1; form.add(timeF, g); g.gridx = 0; g.gridy++;
+        form.add(cityL, g); g.gridx = 1; form.add(cityF, g); g.gridx = 0; g.gridy++;
+        form.add(actL, g); g.gridx = 1; form.add(actF, g); g.gridx = 0; g.gridy++;
+        form.add(durL, g); g.gridx = 1; form.add(durF, g); g.gridx = 0; g.gridy++;
+        form.add(notesL, g); g.gridx = 1; form.add(notesScroll, g);
+
+        if (editRow != null) {
+            for (int c = 0; c < model.getColumnCount(); c++) {
+                Object val = model.getValueAt(editRow, c);
+                switch(c) {
+                    case 0: dateF.setText(val == null ? "" : val.toString()); break;
+                    case 1: timeF.setText(val == null ? "" : val.toString()); break;
+                    case 2: cityF.setText(val == null ? "" : val.toString()); break;
+                    case 3: actF.setText(val == null ? "" : val.toString()); break;
+                    case 4: durF.setText(val == null ? "" : val.toString()); break;
+                    case 5: notesA.setText(val == null ? "" : val.toString()); break;
+                }
+            }
+        } else {
+            // default values
+            dateF.setText(LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            timeF.setText("09:00");
+        }
+
+        JPanel bottom = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton ok = new JButton("OK");
+        JButton cancel = new JButton("Cancel");
+        styleButton(ok, new Color(40, 167, 69));
+        bottom.add(cancel); bottom.add(ok);
+
+        ok.addActionListener(ev -> {
+            String date = dateF.getText().trim();
+            String time = timeF.getText().trim();
+            String city = cityF.getText().trim();
+            String act = actF.getText().trim();
+            String dur = durF.getText().trim();
+            String notes = notesA.getText().trim();
+
+            if (date.isEmpty() || city.isEmpty() || act.isEmpty()) {
+                JOptionPane.showMessageDialog(dialog, "Date, City and Activity are required.");
+                return;
+            }
+            // Basic validation for date/time
+            try {
+                LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
+                LocalTime.parse(time, DateTimeFormatter.ofPattern("H:mm"));
+            } catch (Exception ex) {
+                int ans = JOptionPane.showConfirmDialog(dialog, "Date/time format looks unusual. Continue anyway?", "Confirm", JOptionPane.YES_NO_OPTION);
+                if (ans != JOptionPane.YES_OPTION) return;
+            }
+
+            long t = PlannerMetrics.start();
+            if (editRow == null) {
+                model.addRow(new Object[]{date, time, city, act, dur, notes});
+            } else {
+                model.setRow(editRow, new Object[]{date, time, city, act, dur, notes});
+            }
+            PlannerMetrics.record(PlannerMetrics.Op.EDIT, t);
+            dialog.dispose();
+        });
+
+        cancel.addActionListener(ev -> dialog.dispose());
+
+        dialog.add(form, BorderLayout.CENTER);
+        dialog.add(bottom, BorderLayout.SOUTH);
+        dialog.setVisible(true);
+    }
+
+    private void generateItineraryForCity(String city, int days) {
+        // Activities come from the template catalog (templates.csv, else the built-in Morning/Afternoon/Evening slots)
+        LocalDate start = LocalDate.now().plusDays(1); // start tomorrow for convenience
+
+        // Optionally clear existing items? Ask behaviour: we'll append after confirming with user
+        int choice = JOptionPane.showConfirmDialog(frame, "Append generated itinerary to existing items?\nChoose No to clear existing items.", "Append or Replace", JOptionPane.YES_NO_CANCEL_OPTION);
+        if (choice == JOptionPane.CANCEL_OPTION) return;
+
+        long t = PlannerMetrics.start();
+        ItineraryTableModel.RowBlock plan;
+        try {
+            plan = generator.generate(city, days, start.toEpochDay());
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(frame, "Could not read templates: " + ex.getMessage());
+            return;
+        }
+
+        // one batch: the table and sorter see a single change for the whole plan
+        model.beginBatch();
+        try {
+            if (choice == JOptionPane.NO_OPTION) model.setRowCount(0);
+            model.appendBlock(plan);
+        } finally {
+            model.commitBatch();
+        }
+        PlannerMetrics.record(PlannerMetrics.Op.GENERATE, t);
+    }
+
+    private void saveCSV() {
+        JFileChooser fc = new JFileChooser();
+        fc.setSelectedFile(new File("itinerary.csv"));
+        int r = fc.showSaveDialog(frame);
+        if (r != JFileChooser.APPROVE_OPTION) return;
+        File f = fc.getSelectedFile();
+        export(PlannerMetrics.Op.SAVE, ItineraryExporter.CSV, f.toPath(), "Saved to " + f.getAbsolutePath(), markSaved(f.toPath()));
+    }
+
+    // Run once a save to file succeeds: the open trip is clean if that was its file and nothing changed since the save began
+    private Runnable markSaved(Path file) {
+        long at = edits;
+        return () -> { if (file.equals(currentTrip) && edits == at) tripEdited = false; };
+    }
+
+    // Offers a file chooser, then exports in the given format
+    private void saveAs(ItineraryExporter.Format format, String defaultName, String doneMessage) {
+        JFileChooser fc = new JFileChooser();
+        fc.setSelectedFile(new File(defaultName));
+        if (fc.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        export(PlannerMetrics.Op.EXPORT, format, fc.getSelectedFile().toPath(), doneMessage, null);
+    }
+
+    // Streams a copy of the current rows to disk in the background; the table stays usable meanwhile.
+    // whenSaved (may be null) runs only if the file was written.
+    private void export(PlannerMetrics.Op op, ItineraryExporter.Format format, Path file, String doneMessage, Runnable whenSaved) {
+        long t = PlannerMetrics.start();
+        ExportWorker worker = new ExportWorker(file, format, model.copyRows());
+        ProgressMonitor pm = new ProgressMonitor(frame, "Saving " + file.getFileName(), null, 0, 100);
+        pm.setMillisToDecideToPopup(250);
+        worker.addPropertyChangeListener(ev -> {
+            if ("progress".equals(ev.getPropertyName())) {
+                pm.setProgress((Integer) ev.getNewValue());
+                if (pm.isCanceled()) worker.cancel(true);
+            } else if ("state".equals(ev.getPropertyName()) && ev.getNewValue() == SwingWorker.StateValue.DONE) {
+                pm.close();
+                if (worker.isCancelled()) {
+                    JOptionPane.showMessageDialog(frame, "Save cancelled; " + file.getFileName() + " was not changed.");
+                    return;
+                }
+                try {
+                    if (worker.get()) {
+                        PlannerMetrics.record(op, t);
+                        JOptionPane.showMessageDialog(frame, doneMessage);
+                        if (whenSaved != null) whenSaved.run();
+                    }
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(frame, "Error saving file: " + cause.getMessage());
+                }
+            }
+        });
+        worker.execute();
+    }
+
+    // ---- workspace: a directory of trip files, listed on the left and opened on double-click ----
+
+    private void chooseWorkspace() {
+        JFileChooser fc = new JFileChooser();
+        fc.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (workspace != null) fc.setCurrentDirectory(workspace.directory().toFile());
+        if (fc.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        openWorkspace(fc.getSelectedFile().toPath());
+    }
+
+    private void openWorkspace(Path dir) {
+        TripWorkspace ws;
+        try {
+            ws = new TripWorkspace(dir, model, TripWorkspace.defaultResidentRows());
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(frame, "Could not open workspace: " + ex.getMessage());
+            return;
+        }
+        if (workspace != null) {
+            try {
+                workspace.close();
+            } catch (IOException ignored) {
+                // the old watcher is abandoned either way
+            }
+        }
+        workspace = ws;
+        if (tripList == null) {
+            tripListModel = new DefaultListModel<>();
+            tripList = new JList<>(tripListModel);
+            tripList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+            tripList.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    TripWorkspace.Trip trip = tripList.getSelectedValue();
+                    if (e.getClickCount() == 2 && trip != null) openTrip(trip);
+                }
+            });
+            JScrollPane sp = new JScrollPane(tripList);
+            sp.setPreferredSize(new Dimension(220, 0));
+            frame.getContentPane().add(sp, BorderLayout.WEST);
+            frame.getContentPane().revalidate();
+        }
+        tripList.setBorder(BorderFactory.createTitledBorder(dir.getFileName() == null ? dir.toString() : dir.getFileName().toString()));
+        ws.addChangeListener(() -> SwingUtilities.invokeLater(() -> { if (workspace == ws) refreshTrips(); }));
+        refreshTrips();
+    }
+
+    private void refreshTrips() {
+        TripWorkspace.Trip selected = tripList.getSelectedValue();
+        tripListModel.clear();
+        for (TripWorkspace.Trip t : workspace.trips()) {
+            tripListModel.addElement(t);
+            if (selected != null && t.file.equals(selected.file)) tripList.setSelectedIndex(tripListModel.size() - 1);
+        }
+        tripList.setToolTipText("<html>Double-click a trip to open it<br>" + workspace.statsReport() + "</html>");
+    }
+
+    // Parses (or reuses) the trip off the EDT, then swaps it into the table in one event
+    private void openTrip(TripWorkspace.Trip trip) {
+        confirmLeaveTrip(() -> loadTrip(trip));
+    }
+
+    private void loadTrip(TripWorkspace.Trip trip) {
+        TripWorkspace ws = workspace;
+        SwingWorker<ItineraryTableModel.RowBlock, Void> worker = new SwingWorker<ItineraryTableModel.RowBlock, Void>() {
+            @Override
+            protected ItineraryTableModel.RowBlock doInBackground() throws IOException {
+                return ws.open(trip.file);
+            }
+        };
+        tripLoader = worker;
+        long t = PlannerMetrics.start();
+        frame.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        worker.addPropertyChangeListener(ev -> {
+            if (!"state".equals(ev.getPropertyName()) || ev.getNewValue() != SwingWorker.StateValue.DONE) return;
+            if (tripLoader != worker) return; // superseded by a newer open
+            tripLoader = null;
+            frame.setCursor(Cursor.getDefaultCursor());
+            try {
+                ItineraryTableModel.RowBlock rows = worker.get();
+                if (loadWorker != null) loadWorker.cancel(true);
+                model.replaceRows(rows);
+                setCurrentTrip(trip.file);
+                PlannerMetrics.record(PlannerMetrics.Op.LOAD, t);
+            } catch (InterruptedException | ExecutionException ex) {
+                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                JOptionPane.showMessageDialog(frame, "Error loading file: " + cause.getMessage());
+            }
+        });
+        worker.execute();
+    }
+
+    private void setCurrentTrip(Path file) {
+        currentTrip = file;
+        tripEdited = false;
+        frame.setTitle(file == null ? TITLE : TITLE + " - " + file.getFileName());
+    }
+
+    // Offers to save edits to the open trip, then runs replace, which swaps in other rows. Nothing is
+    // replaced after Cancel or a failed save; edits made while saving are asked about again.
+    private void confirmLeaveTrip(Runnable replace) {
+        if (currentTrip == null || !tripEdited) {
+            replace.run();
+            return;
+        }
+        int choice = JOptionPane.showConfirmDialog(frame, "Save changes to " + currentTrip.getFileName() + "?", "Unsaved Trip", JOptionPane.YES_NO_CANCEL_OPTION);
+        if (choice == JOptionPane.CANCEL_OPTION || choice == JOptionPane.CLOSED_OPTION) return;
+        if (choice == JOptionPane.YES_OPTION) {
+            Runnable saved = markSaved(currentTrip);
+            export(PlannerMetrics.Op.SAVE, ItineraryExporter.CSV, currentTrip, "Saved to " + currentTrip.toAbsolutePath(), () -> {
+                saved.run();
+                confirmLeaveTrip(replace);
+            });
+            return;
+        }
+        tripEdited = false;
+        replace.run();
+    }
+
+    private void loadCSV() {
+        JFileChooser fc = new JFileChooser();
+        int r = fc.showOpenDialog(frame);
+        if (r != JFileChooser.APPROVE_OPTION) return;
+        File f = fc.getSelectedFile();
+        confirmLeaveTrip(() -> load(f));
+    }
+
+    private void load(File f) {
+        if (loadWorker != null) loadWorker.cancel(true);
+        long t = PlannerMetrics.start();
+        model.setRowCount(0);
+        setCurrentTrip(null);
+
+        CsvLoadWorker worker = new CsvLoadWorker(f.toPath(), model);
+        loadWorker = worker;
+        ProgressMonitor pm = new ProgressMonitor(frame, "Loading " + f.getName(), null, 0, 100);
+        pm.setMillisToDecideToPopup(250);
+        worker.addPropertyChangeListener(ev -> {
+            if ("progress".equals(ev.getPropertyName())) {
+                pm.setProgress((Integer) ev.getNewValue());
+                if (pm.isCanceled()) worker.cancel(true);
+            } else if ("state".equals(ev.getPropertyName()) && ev.getNewValue() == SwingWorker.StateValue.DONE) {
+                pm.close();
+                if (loadWorker != worker) return; // superseded by a newer load
+                loadWorker = null;
+                if (worker.isCancelled()) {
+                    JOptionPane.showMessageDialog(frame, "Loading cancelled after " + model.getRowCount() + " rows.");
+                    return;
+                }
+                try {
+                    worker.get();
+                    PlannerMetrics.record(PlannerMetrics.Op.LOAD, t);
+                    JOptionPane.showMessageDialog(frame, "Loaded " + f.getAbsolutePath() + "\n" + model.memoryReport());
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(frame, "Error loading file: " + cause.getMessage());
+                }
+            }
+        });
+        worker.execute();
+    }
+
+    private void exportSummary() {
+        String text = summary.text();
+        JTextArea ta = new JTextArea(text);
+        ta.setEditable(false);
+        ta.setLineWrap(true);
+        ta.setWrapStyleWord(true);
+        JScrollPane sp = new JScrollPane(ta);
+        sp.setPreferredSize(new Dimension(700, 420));
+        int choice = JOptionPane.showOptionDialog(frame, sp, "Export Summary",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null,
+                new String[]{"Save as TXT", "Save as iCalendar", "Save as JSON", "Copy to Clipboard", "Close"}, "Close");
+
+        if (choice == 0) {
+            saveAs(ItineraryExporter.SUMMARY, "itinerary_summary.txt", "Saved summary.");
+        } else if (choice == 1) {
+            saveAs(ItineraryExporter.ICALENDAR, "itinerary.ics", "Saved calendar.");
+        } else if (choice == 2) {
+            saveAs(ItineraryExporter.JSON, "itinerary.json", "Saved JSON.");
+        } else if (choice == 3) {
+            long t = PlannerMetrics.start();
+            Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(text), null);
+            PlannerMetrics.record(PlannerMetrics.Op.COPY, t);
+            JOptionPane.showMessageDialog(frame, "Copied to clipboard.");
+        }
+    }
+
+    private void copySummaryToClipboard() {
+        long t = PlannerMetrics.start();
+        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(summary.text()), null);
+        PlannerMetrics.record(PlannerMetrics.Op.COPY, t);
+        JOptionPane.showMessageDialog(frame, "Copied itinerary summary to clipboard.");
+    }
+
+    // Custom renderer for alternating row colors and selection; rows that overlap another activity are tinted red
+    private static class AlternatingRowRenderer extends DefaultTableCellRenderer {
+        private static final Color EVEN = new Color(250, 250, 253);
+        private static final Color ODD = new Color(238, 246, 255);
+        private static final Color SELECT_BG = new Color(204, 229, 255);
+        private static final Color CONFLICT = new Color(255, 222, 222);
+        private static final Color CONFLICT_SELECT = new Color(240, 190, 205);
+        private final ItineraryConflicts conflicts;
+
+        AlternatingRowRenderer(ItineraryConflicts conflicts) {
+            this.conflicts = conflicts;
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value,
+                                                       boolean isSelected, boolean hasFocus, int row, int col) {
+            Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, col);
+            boolean conflict = conflicts.conflicts(table.convertRowIndexToModel(row));
+            if (isSelected) {
+                c.setBackground(conflict ? CONFLICT_SELECT : SELECT_BG);
+            } else {
+                c.setBackground(conflict ? CONFLICT : (row % 2 == 0) ? EVEN : ODD);
+            }
+            setToolTipText(conflict ? "Overlaps another activity" : null);
+            setBorder(noFocusBorder);
+            return c;
+        }
+    }
+
+    public static void main(String[] args) {
+        // --batch requests.csv out-dir [threads]: generate trips headlessly, no window
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(BatchGenerator.run(Arrays.copyOfRange(args, 1, args.length), System.out, System.err));
+        }
+        // --serve trips-dir [port]: JSON API on localhost; --loadtest base-url [threads] [seconds] [write-percent]
+        if (args.length > 0 && args[0].equals("--serve")) {
+            System.exit(ItineraryServer.run(Arrays.copyOfRange(args, 1, args.length), System.out, System.err));
+        }
+        if (args.length > 0 && args[0].equals("--loadtest")) {
+            System.exit(LoadTestClient.run(Arrays.copyOfRange(args, 1, args.length), System.out, System.err));
+        }
+        SwingUtilities.invokeLater(ItineraryPlanner::new);
+    }
+}
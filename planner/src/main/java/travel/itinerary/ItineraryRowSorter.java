@@ -0,0 +1,351 @@
+package travel.itinerary;
+
+import javax.swing.RowFilter;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Row sorter for {@link ItineraryTableModel} that sorts on typed keys:
+ * Date by epoch day, Time by minute of day, Duration by minutes, and the text
+ * columns by the collation rank of their pool id. Keys are extracted once per
+ * sort into primitive arrays and ordered with {@link Arrays#parallelSort(long[])}.
+ * Only ids that occur in a sorted column are ranked; ids new since the last
+ * sort are ordered among themselves and merged into the existing order.
+ *
+ * Multi-column sorts run one stable pass per key, least significant first;
+ * each pass packs (key, current position) into a long, so ties keep the order
+ * of the previous pass and, in the end, model order. Empty cells sort first
+ * and unrecognised text last in ascending order.
+ *
+ * An optional {@link RowFilter} narrows the view before sorting. Filters from
+ * {@link ItinerarySearchIndex} are answered from the index in one call; any
+ * other filter is evaluated row by row. While a filter is set, every model
+ * change re-filters, so edited rows join or leave the view immediately.
+ */
+class ItineraryRowSorter extends RowSorter<ItineraryTableModel> {
+    private static final int MAX_SORT_KEYS = 3;
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private final ItineraryTableModel model;
+    private List<SortKey> sortKeys = Collections.emptyList();
+    private boolean sortsOnUpdates;
+    private RowFilter<? super ItineraryTableModel, ? super Integer> filter;
+
+    // null while the view is in model order
+    private int[] viewToModel;
+    private int[] modelToView;
+
+    // collation rank per pool id, extended as new ids show up in sorted columns
+    private final Collator collator = Collator.getInstance();
+    private Ranks sharedRanks, notesRanks;
+
+    ItineraryRowSorter(ItineraryTableModel model) {
+        this.model = model;
+        sharedRanks = new Ranks(model.pool());
+        notesRanks = new Ranks(model.notesPool());
+    }
+
+    @Override
+    public ItineraryTableModel getModel() {
+        return model;
+    }
+
+    @Override
+    public void toggleSortOrder(int column) {
+        List<SortKey> keys = new ArrayList<>(sortKeys);
+        SortOrder order = SortOrder.ASCENDING;
+        int i;
+        for (i = keys.size() - 1; i >= 0; i--) if (keys.get(i).getColumn() == column) break;
+        if (i == 0) {
+            order = keys.get(0).getSortOrder() == SortOrder.ASCENDING ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+        }
+        if (i >= 0) keys.remove(i);
+        keys.add(0, new SortKey(column, order));
+        if (keys.size() > MAX_SORT_KEYS) keys = keys.subList(0, MAX_SORT_KEYS);
+        setSortKeys(keys);
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> copy = keys == null ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(keys));
+        for (SortKey k : copy) {
+            if (k == null || k.getColumn() < 0 || k.getColumn() >= model.getColumnCount()) {
+                throw new IllegalArgumentException("Invalid sort key " + k);
+            }
+        }
+        if (copy.equals(sortKeys)) return;
+        long t = PlannerMetrics.start();
+        sortKeys = copy;
+        fireSortOrderChanged();
+        int[] last = viewToModelCopy();
+        sort();
+        fireRowSorterChanged(last);
+        PlannerMetrics.record(PlannerMetrics.Op.SORT, t);
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    /** Whether a row update re-sorts; off by default, as in {@code DefaultRowSorter}. */
+    void setSortsOnUpdates(boolean sortsOnUpdates) {
+        this.sortsOnUpdates = sortsOnUpdates;
+    }
+
+    /** Sets the filter, or null to show every row. */
+    void setRowFilter(RowFilter<? super ItineraryTableModel, ? super Integer> filter) {
+        this.filter = filter;
+        int[] last = viewToModelCopy();
+        sort();
+        fireRowSorterChanged(last);
+    }
+
+    RowFilter<? super ItineraryTableModel, ? super Integer> getRowFilter() {
+        return filter;
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (viewToModel == null) {
+            if (index < 0 || index >= model.getRowCount()) throw new IndexOutOfBoundsException("Invalid index");
+            return index;
+        }
+        return viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        if (modelToView == null) {
+            if (index < 0 || index >= model.getRowCount()) throw new IndexOutOfBoundsException("Invalid index");
+            return index;
+        }
+        return modelToView[index];
+    }
+
+    @Override public int getViewRowCount() { return viewToModel == null ? model.getRowCount() : viewToModel.length; }
+    @Override public int getModelRowCount() { return model.getRowCount(); }
+
+    @Override public void modelStructureChanged() { allRowsChanged(); }
+    @Override public void allRowsChanged() { resort(); }
+    @Override public void rowsInserted(int firstRow, int endRow) { resort(); }
+    @Override public void rowsDeleted(int firstRow, int endRow) { resort(); }
+    @Override public void rowsUpdated(int firstRow, int endRow) { if (sortsOnUpdates || filter != null) resort(); }
+    @Override public void rowsUpdated(int firstRow, int endRow, int column) { if (sortsOnUpdates || filter != null) resort(); }
+
+    private void resort() {
+        if (viewToModel == null && !isSorted() && filter == null) return;
+        int[] last = viewToModelCopy();
+        sort();
+        fireRowSorterChanged(last);
+    }
+
+    private boolean isSorted() {
+        for (SortKey k : sortKeys) if (k.getSortOrder() != SortOrder.UNSORTED) return true;
+        return false;
+    }
+
+    private int[] viewToModelCopy() {
+        return viewToModel == null ? null : viewToModel.clone();
+    }
+
+    // ---- sorting ----
+
+    private void sort() {
+        if (!isSorted() && filter == null) {
+            viewToModel = modelToView = null;
+            return;
+        }
+        int rows = model.getRowCount();
+        int[] order = filter == null ? identity(rows) : filteredRows();
+        int n = order.length;
+        int[] keys = new int[n];
+        long[] packed = new long[n];
+        for (int k = sortKeys.size() - 1; k >= 0; k--) {
+            SortKey sk = sortKeys.get(k);
+            if (sk.getSortOrder() == SortOrder.UNSORTED) continue;
+            extractKeys(sk.getColumn(), order, keys);
+            boolean desc = sk.getSortOrder() == SortOrder.DESCENDING;
+            parallelFor(n, i -> packed[i] = ((long) (desc ? ~keys[i] : keys[i]) << 32) | i);
+            Arrays.parallelSort(packed);
+            int[] prev = order;
+            int[] next = new int[n];
+            parallelFor(n, i -> next[i] = prev[(int) packed[i]]);
+            order = next;
+        }
+        int[] inverse = new int[rows];
+        if (n < rows) Arrays.fill(inverse, -1);
+        for (int i = 0; i < n; i++) inverse[order[i]] = i;
+        viewToModel = order;
+        modelToView = inverse;
+    }
+
+    private static int[] identity(int n) {
+        int[] order = new int[n];
+        Arrays.setAll(order, i -> i);
+        return order;
+    }
+
+    /** Model rows accepted by the filter, in model order. */
+    private int[] filteredRows() {
+        if (filter instanceof ItinerarySearchIndex.Filter) {
+            BitSet rows = ((ItinerarySearchIndex.Filter) filter).matchingRows();
+            return rows.stream().toArray();
+        }
+        int n = model.getRowCount();
+        int[] out = new int[n];
+        int count = 0;
+        RowEntry entry = new RowEntry();
+        for (int r = 0; r < n; r++) {
+            entry.row = r;
+            if (filter.include(entry)) out[count++] = r;
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    /** Filter entry for one model row; reused across rows. */
+    private final class RowEntry extends RowFilter.Entry<ItineraryTableModel, Integer> {
+        int row;
+
+        @Override public ItineraryTableModel getModel() { return model; }
+        @Override public int getValueCount() { return model.getColumnCount(); }
+        @Override public Object getValue(int index) { return model.getValueAt(row, index); }
+        @Override public Integer getIdentifier() { return row; }
+    }
+
+    /** keys[i] = sort key of model row order[i] for {@code column}. */
+    private void extractKeys(int column, int[] order, int[] keys) {
+        int n = order.length;
+        switch (column) {
+            case ItineraryTableModel.DATE:
+                parallelFor(n, i -> {
+                    int v = model.epochDay(order[i]);
+                    keys[i] = v == ItineraryTableModel.NONE ? Integer.MIN_VALUE
+                            : ItineraryTableModel.isDateValue(v) ? v : Integer.MAX_VALUE;
+                });
+                break;
+            case ItineraryTableModel.TIME:
+                parallelFor(n, i -> {
+                    short v = model.minuteOfDay(order[i]);
+                    keys[i] = v == ItineraryTableModel.NO_TIME ? Integer.MIN_VALUE
+                            : ItineraryTableModel.isTimeValue(v) ? v : Integer.MAX_VALUE;
+                });
+                break;
+            case ItineraryTableModel.DURATION:
+                parallelFor(n, i -> {
+                    int v = model.durationMinutes(order[i]);
+                    keys[i] = v == ItineraryTableModel.NONE ? Integer.MIN_VALUE
+                            : ItineraryTableModel.isDurationValue(v) ? v : Integer.MAX_VALUE;
+                });
+                break;
+            case ItineraryTableModel.CITY:
+                parallelFor(n, i -> keys[i] = model.cityId(order[i]));
+                rank(sharedRanks(), keys, n);
+                break;
+            case ItineraryTableModel.ACTIVITY:
+                parallelFor(n, i -> keys[i] = model.activityId(order[i]));
+                rank(sharedRanks(), keys, n);
+                break;
+            default:
+                parallelFor(n, i -> keys[i] = model.notesId(order[i]));
+                if (notesRanks.pool != model.notesPool()) notesRanks = new Ranks(model.notesPool());
+                rank(notesRanks, keys, n);
+                break;
+        }
+    }
+
+    private Ranks sharedRanks() {
+        if (sharedRanks.pool != model.pool()) sharedRanks = new Ranks(model.pool());
+        return sharedRanks;
+    }
+
+    /** Replaces the pool ids in keys[0, n) with their collation ranks. */
+    private void rank(Ranks ranks, int[] keys, int n) {
+        int[] r = ranks.ranks(keys, n, collator);
+        parallelFor(n, i -> keys[i] = r[keys[i]]);
+    }
+
+    /** Collation order of the ids of one pool that have been sorted on so far. */
+    private static final class Ranks {
+        final StringPool pool;
+        private CollationKey[] collationKeys = new CollationKey[0]; // by id; null while unranked
+        private int[] sorted = new int[0]; // ranked ids in collation order
+        private int[] ranks = new int[0]; // by id; equal strings share a rank
+
+        Ranks(StringPool pool) {
+            this.pool = pool;
+        }
+
+        /** Ranks by pool id, covering at least {@code ids[0, n)}. */
+        int[] ranks(int[] ids, int n, Collator collator) {
+            int size = pool.size();
+            if (size > ranks.length) {
+                ranks = Arrays.copyOf(ranks, size);
+                collationKeys = Arrays.copyOf(collationKeys, size);
+            }
+            int[] fresh = new int[16];
+            int k = 0;
+            for (int i = 0; i < n; i++) {
+                int id = ids[i];
+                if (collationKeys[id] != null) continue;
+                collationKeys[id] = collator.getCollationKey(pool.get(id));
+                if (k == fresh.length) fresh = Arrays.copyOf(fresh, k * 2);
+                fresh[k++] = id;
+            }
+            if (k > 0) merge(sortByKey(fresh, k));
+            return ranks;
+        }
+
+        private int compare(int a, int b) {
+            return collationKeys[a].compareTo(collationKeys[b]);
+        }
+
+        // merges ordered new ids into the order, then renumbers the ranks in one pass
+        private void merge(int[] fresh) {
+            int[] out = new int[sorted.length + fresh.length];
+            int a = 0, b = 0, o = 0;
+            while (a < sorted.length && b < fresh.length) {
+                out[o++] = compare(sorted[a], fresh[b]) <= 0 ? sorted[a++] : fresh[b++];
+            }
+            while (a < sorted.length) out[o++] = sorted[a++];
+            while (b < fresh.length) out[o++] = fresh[b++];
+            int rank = 0;
+            for (int i = 0; i < out.length; i++) {
+                if (i > 0 && compare(out[i], out[i - 1]) != 0) rank++;
+                ranks[out[i]] = rank;
+            }
+            sorted = out;
+        }
+
+        // bottom-up merge sort of ids[0, n) by collation key
+        private int[] sortByKey(int[] ids, int n) {
+            int[] src = Arrays.copyOf(ids, n), dst = new int[n];
+            for (int width = 1; width < n; width *= 2) {
+                for (int lo = 0; lo < n; lo += 2 * width) {
+                    int mid = Math.min(lo + width, n), hi = Math.min(lo + 2 * width, n);
+                    int i = lo, j = mid, o = lo;
+                    while (i < mid && j < hi) dst[o++] = compare(src[i], src[j]) <= 0 ? src[i++] : src[j++];
+                    while (i < mid) dst[o++] = src[i++];
+                    while (j < hi) dst[o++] = src[j++];
+                }
+                int[] t = src; src = dst; dst = t;
+            }
+            return src;
+        }
+    }
+
+    private static void parallelFor(int n, IntConsumer body) {
+        if (n >= PARALLEL_THRESHOLD) IntStream.range(0, n).parallel().forEach(body);
+        else for (int i = 0; i < n; i++) body.accept(i);
+    }
+}
@@ -0,0 +1,342 @@
+package travel.itinerary;
+
+import javax.swing.RowFilter;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Incrementally maintained indexes behind the search bar:
+ * <ul>
+ *   <li>a hash index from City pool id to rows,</li>
+ *   <li>hash indexes from Activity and from Notes pool id to rows,</li>
+ *   <li>a sorted epoch-day index for date ranges,</li>
+ *   <li>trigram indexes over the distinct strings of those columns: one for
+ *       the shared pool, and one for the notes pool; each starts over when the
+ *       model moves to a new pool.</li>
+ * </ul>
+ * Text search runs on distinct strings first (trigrams, then a substring
+ * check), and only then expands to rows, so its cost follows the number of
+ * matches rather than the size of the itinerary.
+ *
+ * Postings hold stable row ids and are only ever appended; rows that were
+ * edited or deleted leave stale entries that queries skip by re-checking the
+ * row. The index rebuilds itself when stale entries outnumber live ones.
+ * Nothing is built until the first query. Use on the EDT.
+ */
+final class ItinerarySearchIndex implements TableModelListener {
+    private final ItineraryTableModel model;
+
+    private boolean built;
+    private long postings;
+
+    private final Map<Integer, IntList> cityRows = new HashMap<>();
+    private final Map<Integer, IntList> activityRows = new HashMap<>();
+    private final Map<Integer, IntList> notesRows = new HashMap<>();
+    private final NavigableMap<Integer, IntList> dateRows = new TreeMap<>();
+
+    // distinct strings seen in City/Activity, and in Notes
+    private Strings sharedStrings;
+    private Strings noteStrings;
+
+    // row id -> model row, or -1
+    private int[] rowOf = new int[0];
+    private boolean rowMapDirty = true;
+
+    ItinerarySearchIndex(ItineraryTableModel model) {
+        this.model = model;
+        sharedStrings = new Strings(model.pool());
+        noteStrings = new Strings(model.notesPool());
+        model.addIndexListener(this);
+    }
+
+    /** Stops tracking the model. */
+    void dispose() {
+        model.removeIndexListener(this);
+    }
+
+    /** Search criteria; null or empty parts are ignored. */
+    static final class Query {
+        final String text, city;
+        final int fromDay, toDay;
+
+        /** @param fromDay first epoch day, or {@link Integer#MIN_VALUE} for no lower bound
+         *  @param toDay last epoch day, or {@link Integer#MAX_VALUE} for no upper bound */
+        Query(String text, String city, int fromDay, int toDay) {
+            this.text = text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+            this.city = city == null ? "" : city.trim().toLowerCase(Locale.ROOT);
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+        }
+
+        boolean isEmpty() {
+            return text.isEmpty() && city.isEmpty() && fromDay == Integer.MIN_VALUE && toDay == Integer.MAX_VALUE;
+        }
+
+        private boolean hasDates() {
+            return fromDay != Integer.MIN_VALUE || toDay != Integer.MAX_VALUE;
+        }
+    }
+
+    /** Row filter backed by this index; {@link ItineraryRowSorter} reads its rows directly. */
+    final class Filter extends RowFilter<ItineraryTableModel, Integer> {
+        private final Query query;
+        private BitSet rows;
+
+        private Filter(Query query) {
+            this.query = query;
+        }
+
+        /** Re-runs the query against the current model; returns matching model rows. */
+        BitSet matchingRows() {
+            rows = query(query);
+            return rows;
+        }
+
+        @Override
+        public boolean include(Entry<? extends ItineraryTableModel, ? extends Integer> entry) {
+            if (rows == null) matchingRows();
+            return rows.get(entry.getIdentifier());
+        }
+    }
+
+    /** Returns a filter for {@code q}, or null when {@code q} matches everything. */
+    Filter filter(Query q) {
+        return q.isEmpty() ? null : new Filter(q);
+    }
+
+    /** Model rows matching {@code q}. */
+    BitSet query(Query q) {
+        BitSet out = new BitSet(model.getRowCount());
+        if (q.isEmpty()) {
+            out.set(0, model.getRowCount());
+            return out;
+        }
+        ensureBuilt();
+        ensureRowMap();
+        BitSet textIds = q.text.isEmpty() ? null : sharedStrings.matching(q.text);
+        BitSet noteIds = q.text.isEmpty() ? null : noteStrings.matching(q.text);
+        BitSet cityIds = q.city.isEmpty() ? null : matchingCities(q.city);
+
+        // drive from the most selective index, check the rest per candidate
+        List<IntList> candidates = null;
+        long best = Long.MAX_VALUE;
+        if (textIds != null) {
+            List<IntList> c = new ArrayList<>();
+            for (int id = textIds.nextSetBit(0); id >= 0; id = textIds.nextSetBit(id + 1)) {
+                add(c, cityRows.get(id));
+                add(c, activityRows.get(id));
+            }
+            for (int id = noteIds.nextSetBit(0); id >= 0; id = noteIds.nextSetBit(id + 1)) add(c, notesRows.get(id));
+            long n = total(c);
+            if (n < best) { best = n; candidates = c; }
+        }
+        if (cityIds != null) {
+            List<IntList> c = new ArrayList<>();
+            for (int id = cityIds.nextSetBit(0); id >= 0; id = cityIds.nextSetBit(id + 1)) add(c, cityRows.get(id));
+            long n = total(c);
+            if (n < best) { best = n; candidates = c; }
+        }
+        if (q.hasDates() && q.fromDay <= q.toDay) {
+            List<IntList> c = new ArrayList<>(dateRows.subMap(q.fromDay, true, q.toDay, true).values());
+            long n = total(c);
+            if (n < best) { candidates = c; }
+        }
+        if (candidates == null) return out;
+
+        for (IntList list : candidates) {
+            for (int i = 0; i < list.size; i++) {
+                int id = list.values[i];
+                int row = id < rowOf.length ? rowOf[id] : -1;
+                if (row < 0 || out.get(row)) continue;
+                if (textIds != null && !textIds.get(model.cityId(row)) && !textIds.get(model.activityId(row))
+                        && !noteIds.get(model.notesId(row))) continue;
+                if (cityIds != null && !cityIds.get(model.cityId(row))) continue;
+                if (q.hasDates()) {
+                    int day = model.epochDay(row);
+                    if (!ItineraryTableModel.isDateValue(day) || day < q.fromDay || day > q.toDay) continue;
+                }
+                out.set(row);
+            }
+        }
+        return out;
+    }
+
+    // ---- maintenance ----
+
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        if (!built) return;
+        int first = e.getFirstRow(), last = e.getLastRow();
+        if (first == TableModelEvent.HEADER_ROW || last == Integer.MAX_VALUE || !samePools()) {
+            built = false;
+            return;
+        }
+        switch (e.getType()) {
+            case TableModelEvent.INSERT:
+                for (int r = first; r <= last; r++) addRow(r);
+                if (last == model.getRowCount() - 1 && !rowMapDirty) mapRows(first, last);
+                else rowMapDirty = true;
+                break;
+            case TableModelEvent.UPDATE:
+                // edits append fresh postings; moves keep ids, so only the row map needs fixing
+                for (int r = first; r <= last; r++) addRow(r);
+                if (!rowMapDirty) mapRows(first, last);
+                break;
+            case TableModelEvent.DELETE:
+                rowMapDirty = true;
+                break;
+            default:
+                break;
+        }
+        // about four postings per live row; beyond twice that, most are stale
+        if (postings > 8L * Math.max(1024, model.getRowCount())) built = false;
+    }
+
+    private void ensureBuilt() {
+        if (built) return;
+        cityRows.clear();
+        activityRows.clear();
+        notesRows.clear();
+        dateRows.clear();
+        if (model.pool() != sharedStrings.pool) sharedStrings = new Strings(model.pool());
+        if (model.notesPool() != noteStrings.pool) noteStrings = new Strings(model.notesPool());
+        postings = 0;
+        for (int r = 0, n = model.getRowCount(); r < n; r++) addRow(r);
+        built = true;
+        rowMapDirty = true;
+    }
+
+    private boolean samePools() {
+        return model.pool() == sharedStrings.pool && model.notesPool() == noteStrings.pool;
+    }
+
+    private void ensureRowMap() {
+        if (!rowMapDirty && rowOf.length >= model.rowIdLimit()) return;
+        if (rowOf.length < model.rowIdLimit()) rowOf = new int[Math.max(model.rowIdLimit(), rowOf.length * 2)];
+        Arrays.fill(rowOf, -1);
+        mapRows(0, model.getRowCount() - 1);
+        rowMapDirty = false;
+    }
+
+    private void mapRows(int first, int last) {
+        if (last < first) return;
+        if (rowOf.length < model.rowIdLimit()) {
+            int old = rowOf.length;
+            rowOf = Arrays.copyOf(rowOf, Math.max(model.rowIdLimit(), old * 2));
+            Arrays.fill(rowOf, old, rowOf.length, -1);
+        }
+        for (int r = first; r <= last; r++) rowOf[model.rowId(r)] = r;
+    }
+
+    private void addRow(int r) {
+        int id = model.rowId(r);
+        int city = model.cityId(r), activity = model.activityId(r), notes = model.notesId(r);
+        postings(cityRows, city).add(id);
+        postings(activityRows, activity).add(id);
+        postings(notesRows, notes).add(id);
+        int day = model.epochDay(r);
+        if (ItineraryTableModel.isDateValue(day)) postings(dateRows, day).add(id);
+        postings += 4;
+        sharedStrings.index(city);
+        sharedStrings.index(activity);
+        noteStrings.index(notes);
+    }
+
+    private static IntList postings(Map<Integer, IntList> map, int key) {
+        IntList l = map.get(key);
+        if (l == null) map.put(key, l = new IntList());
+        return l;
+    }
+
+    // ---- strings ----
+
+    /** Distinct strings of one pool, lower-cased, with a trigram index over them. */
+    private static final class Strings {
+        final StringPool pool;
+        private final BitSet indexed = new BitSet();
+        private final List<Integer> ids = new ArrayList<>();
+        private String[] lower = new String[0];
+        private final Map<Long, IntList> grams = new HashMap<>();
+
+        Strings(StringPool pool) {
+            this.pool = pool;
+        }
+
+        void index(int id) {
+            if (indexed.get(id)) return;
+            indexed.set(id);
+            ids.add(id);
+            if (id >= lower.length) lower = Arrays.copyOf(lower, Math.max(id + 1, lower.length * 2));
+            String s = lower[id] = pool.get(id).toLowerCase(Locale.ROOT);
+            for (int i = 0; i + 3 <= s.length(); i++) {
+                IntList l = grams.computeIfAbsent(gram(s, i), k -> new IntList());
+                if (l.size == 0 || l.values[l.size - 1] != id) l.add(id);
+            }
+        }
+
+        String lower(int id) {
+            return lower[id];
+        }
+
+        /** Pool ids of indexed strings that contain {@code needle} (already lower-case). */
+        BitSet matching(String needle) {
+            BitSet out = new BitSet();
+            if (needle.length() < 3) {
+                for (int id : ids) if (lower[id].contains(needle)) out.set(id);
+                return out;
+            }
+            // every trigram of the needle must occur; check the rarest one's strings
+            IntList shortest = null;
+            for (int i = 0; i + 3 <= needle.length(); i++) {
+                IntList l = grams.get(gram(needle, i));
+                if (l == null) return out;
+                if (shortest == null || l.size < shortest.size) shortest = l;
+            }
+            for (int i = 0; i < shortest.size; i++) {
+                int id = shortest.values[i];
+                if (lower[id].contains(needle)) out.set(id);
+            }
+            return out;
+        }
+    }
+
+    private BitSet matchingCities(String city) {
+        BitSet out = new BitSet();
+        for (Integer id : cityRows.keySet()) if (sharedStrings.lower(id).equals(city)) out.set(id);
+        return out;
+    }
+
+    private static long gram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static void add(List<IntList> lists, IntList l) {
+        if (l != null) lists.add(l);
+    }
+
+    private static long total(List<IntList> lists) {
+        long n = 0;
+        for (IntList l : lists) n += l.size;
+        return n;
+    }
+
+    /** Growable int array. */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+    }
+}
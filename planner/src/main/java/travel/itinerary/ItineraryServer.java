@@ -0,0 +1,416 @@
+package travel.itinerary;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Headless JSON API over an {@link ItineraryStore}:
+ * {@code ItineraryPlanner --serve trips-dir [port]}, listening on localhost only.
+ * <pre>
+ * GET    /trips                          trip names and row counts
+ * GET    /trips/{trip}?text=&amp;city=&amp;from=&amp;to=  rows, filtered like the search row
+ * POST   /trips/{trip}/rows              add a row   {"Date": ..., "City": ..., "Activity": ...}
+ * PUT    /trips/{trip}/rows/{id}         change the given cells of a row
+ * DELETE /trips/{trip}/rows/{id}         delete a row
+ * POST   /trips/{trip}/generate          append a generated trip {"City": ..., "Days": 3, "Start": "yyyy-MM-dd"}
+ * </pre>
+ * Rows use the JSON export layout plus their stable {@code id}. Requests run
+ * on virtual threads when the JDK has them (21+), else on a fixed pool.
+ * Changed trips are written back to their CSV files about once a second and
+ * on shutdown.
+ */
+final class ItineraryServer {
+    static final int DEFAULT_PORT = 8765;
+    static final long FLUSH_MILLIS = 1000;
+    static final int MAX_BODY_BYTES = 1 << 20;
+
+    private final ItineraryStore store;
+    private final HttpServer http;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "itinerary-flusher");
+        t.setDaemon(true);
+        return t;
+    });
+    private final PrintStream err;
+
+    ItineraryServer(ItineraryStore store, int port, PrintStream err) throws IOException {
+        this.store = store;
+        this.err = err;
+        ExecutorService virtual = virtualThreadExecutor();
+        virtualThreads = virtual != null;
+        executor = virtual != null ? virtual : Executors.newFixedThreadPool(
+                Math.max(16, 4 * Runtime.getRuntime().availableProcessors()), daemonThreads("itinerary-http-"));
+        // small responses otherwise wait out the client's delayed ACK (~40 ms each)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        http.setExecutor(executor);
+        http.createContext("/trips", this::handle);
+    }
+
+    /** Entry point for {@code --serve}; returns the exit code once the server stops, or on a startup error. */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        if (args.length < 1 || args.length > 2) {
+            err.println("usage: ItineraryPlanner --serve <trips-dir> [port]");
+            return 2;
+        }
+        int port = DEFAULT_PORT;
+        if (args.length == 2) {
+            try {
+                port = Integer.parseInt(args[1]);
+            } catch (NumberFormatException ex) {
+                port = -1;
+            }
+            if (port < 0 || port > 65535) {
+                err.println("port must be 0-65535: " + args[1]);
+                return 2;
+            }
+        }
+        ItineraryServer server;
+        try {
+            server = new ItineraryServer(new ItineraryStore(Paths.get(args[0]), ItineraryGenerator.defaultTemplateFile()), port, err);
+        } catch (IOException ex) {
+            err.println("Could not start server: " + ex.getMessage());
+            return 1;
+        }
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            stopped.countDown();
+        }));
+        server.start();
+        out.printf("Serving %s on http://%s:%d/trips (%s)%n", args[0], InetAddress.getLoopbackAddress().getHostAddress(),
+                server.port(), server.virtualThreads ? "virtual threads" : "thread pool");
+        try {
+            stopped.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+
+    void start() {
+        http.start();
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Stops accepting requests, lets running ones finish briefly, and writes everything back. */
+    void stop() {
+        http.stop(1);
+        executor.shutdown();
+        flusher.shutdown();
+        flush();
+    }
+
+    int port() {
+        return http.getAddress().getPort();
+    }
+
+    private void flush() {
+        try {
+            store.flush();
+        } catch (IOException ex) {
+            err.println("Could not save trips: " + ex.getMessage());
+        }
+    }
+
+    /** {@code Executors.newVirtualThreadPerTaskExecutor()} when this JDK has it, else null. */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // ---- requests ----
+
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            String rest = ex.getRequestURI().getPath().substring("/trips".length());
+            String[] path = rest.split("/"); // "/trips/a/rows" -> ["", "a", "rows"]
+            int n = path.length;
+            String method = ex.getRequestMethod();
+            if (!rest.isEmpty() && rest.charAt(0) != '/') {
+                notFound(ex, "no such resource");
+            } else if (n <= 1) {
+                if (!method.equals("GET")) { methodNotAllowed(ex, "GET"); return; }
+                listTrips(ex);
+            } else if (n == 2) {
+                if (!method.equals("GET")) { methodNotAllowed(ex, "GET"); return; }
+                StringBuilder b = new StringBuilder(4096);
+                if (store.query(path[1], query(ex.getRequestURI().getRawQuery()), b)) send(ex, 200, b);
+                else notFound(ex, "no trip " + path[1]);
+            } else if (n == 3 && path[2].equals("rows")) {
+                if (!method.equals("POST")) { methodNotAllowed(ex, "POST"); return; }
+                String[] cells = cells(body(ex), true);
+                send(ex, 201, store.add(path[1], cells));
+            } else if (n == 4 && path[2].equals("rows")) {
+                int id = id(path[3]);
+                switch (method) {
+                    case "PUT":
+                    case "PATCH":
+                        String row = store.edit(path[1], id, cells(body(ex), false));
+                        if (row != null) send(ex, 200, row); else notFound(ex, "no row " + id + " in " + path[1]);
+                        break;
+                    case "DELETE":
+                        if (store.delete(path[1], id)) send(ex, 200, "{\"deleted\": " + id + "}\n"); else notFound(ex, "no row " + id + " in " + path[1]);
+                        break;
+                    default:
+                        methodNotAllowed(ex, "PUT, PATCH, DELETE");
+                }
+            } else if (n == 3 && path[2].equals("generate")) {
+                if (!method.equals("POST")) { methodNotAllowed(ex, "POST"); return; }
+                generate(ex, path[1]);
+            } else {
+                notFound(ex, "no such resource");
+            }
+        } catch (IllegalArgumentException e) {
+            error(ex, 400, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            error(ex, 500, e.toString());
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void listTrips(HttpExchange ex) throws IOException {
+        StringBuilder b = new StringBuilder("[");
+        int i = 0;
+        for (Map.Entry<String, Integer> e : store.list().entrySet()) {
+            b.append(i++ == 0 ? "\n  {\"name\": " : ",\n  {\"name\": ");
+            ItineraryExporter.jsonString(b, e.getKey());
+            b.append(", \"rows\": ").append(e.getValue() < 0 ? "null" : e.getValue().toString()).append('}');
+        }
+        send(ex, 200, b.append(i == 0 ? "]\n" : "\n]\n"));
+    }
+
+    private void generate(HttpExchange ex, String trip) throws IOException {
+        Map<String, String> body = body(ex);
+        String city = body.getOrDefault("city", "").trim();
+        if (city.isEmpty()) throw new IllegalArgumentException("City is required.");
+        int days = parseInt(body.getOrDefault("days", "1"), "Days");
+        if (days < 1 || days > BatchGenerator.MAX_DAYS) throw new IllegalArgumentException("Days must be 1-" + BatchGenerator.MAX_DAYS + ".");
+        String start = body.get("start");
+        long startDay = start == null ? LocalDate.now().plusDays(1).toEpochDay() : day(start, "Start");
+        int rows = store.generate(trip, city, days, startDay);
+        send(ex, 201, "{\"rows\": " + rows + "}\n");
+    }
+
+    /** Row cells from a JSON object keyed by column name; absent cells are null. */
+    private static String[] cells(Map<String, String> body, boolean adding) {
+        String[] cells = new String[ItineraryTableModel.COLS.length];
+        for (int c = 0; c < cells.length; c++) {
+            String v = body.get(ItineraryTableModel.COLS[c].toLowerCase(Locale.ROOT));
+            cells[c] = v == null ? null : v.trim();
+        }
+        for (int c : new int[]{ItineraryTableModel.DATE, ItineraryTableModel.CITY, ItineraryTableModel.ACTIVITY}) {
+            if (adding ? cells[c] == null || cells[c].isEmpty() : cells[c] != null && cells[c].isEmpty()) {
+                throw new IllegalArgumentException("Date, City and Activity are required.");
+            }
+        }
+        if (adding) {
+            for (int c = 0; c < cells.length; c++) if (cells[c] == null) cells[c] = "";
+        }
+        return cells;
+    }
+
+    private static ItinerarySearchIndex.Query query(String raw) {
+        Map<String, String> p = new HashMap<>();
+        if (raw != null) {
+            for (String pair : raw.split("&")) {
+                int eq = pair.indexOf('=');
+                String k = eq < 0 ? pair : pair.substring(0, eq), v = eq < 0 ? "" : pair.substring(eq + 1);
+                p.put(URLDecoder.decode(k, StandardCharsets.UTF_8), URLDecoder.decode(v, StandardCharsets.UTF_8));
+            }
+        }
+        String from = p.getOrDefault("from", ""), to = p.getOrDefault("to", "");
+        return new ItinerarySearchIndex.Query(p.get("text"), p.get("city"),
+                from.isEmpty() ? Integer.MIN_VALUE : day(from, "from"), to.isEmpty() ? Integer.MAX_VALUE : day(to, "to"));
+    }
+
+    private static int day(String s, String what) {
+        int d = ItineraryTableModel.parseEpochDay(s.trim());
+        if (d == ItineraryTableModel.INVALID) throw new IllegalArgumentException(what + " must be yyyy-MM-dd: " + s);
+        return d;
+    }
+
+    private static int id(String s) {
+        return parseInt(s, "Row id");
+    }
+
+    private static int parseInt(String s, String what) {
+        try {
+            return Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(what + " must be a number: " + s);
+        }
+    }
+
+    private static Map<String, String> body(HttpExchange ex) throws IOException {
+        byte[] bytes;
+        try (InputStream in = ex.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (bytes.length > MAX_BODY_BYTES) throw new IllegalArgumentException("Request body is too large.");
+        return new JsonObjectParser(new String(bytes, StandardCharsets.UTF_8)).parse();
+    }
+
+    // ---- responses ----
+
+    // always with a body: bodiless 204s made the JDK client drop pooled connections
+    private static void send(HttpExchange ex, int status, CharSequence json) throws IOException {
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void error(HttpExchange ex, int status, String message) throws IOException {
+        StringBuilder b = new StringBuilder("{\"error\": ");
+        ItineraryExporter.jsonString(b, message == null ? "" : message);
+        send(ex, status, b.append("}\n"));
+    }
+
+    private static void notFound(HttpExchange ex, String message) throws IOException {
+        error(ex, 404, message);
+    }
+
+    private static void methodNotAllowed(HttpExchange ex, String allowed) throws IOException {
+        ex.getResponseHeaders().set("Allow", allowed);
+        error(ex, 405, ex.getRequestMethod() + " is not supported here");
+    }
+
+    /**
+     * Reads one flat JSON object into lower-case keys and the text of its
+     * values; strings are unescaped, numbers and booleans kept as written,
+     * nulls left out. Nested values are rejected.
+     */
+    private static final class JsonObjectParser {
+        private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?");
+
+        private final String s;
+        private int i;
+
+        JsonObjectParser(String s) {
+            this.s = s;
+        }
+
+        Map<String, String> parse() {
+            Map<String, String> out = new HashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                i++;
+            } else {
+                do {
+                    String key = string().toLowerCase(Locale.ROOT);
+                    expect(':');
+                    String value = value();
+                    if (value != null) out.put(key, value);
+                } while (next(',', '}') == ',');
+            }
+            if (peek() != 0) throw fail("trailing text");
+            return out;
+        }
+
+        private String value() {
+            char c = peek();
+            if (c == '"') return string();
+            int from = i;
+            while (i < s.length() && "+-.0123456789eEtruefalsn".indexOf(s.charAt(i)) >= 0) i++;
+            String v = s.substring(from, i);
+            if (v.equals("null")) return null;
+            if (v.equals("true") || v.equals("false") || NUMBER.matcher(v).matches()) return v;
+            throw fail(v.isEmpty() ? "expected a value" : "bad value " + v);
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder b = new StringBuilder();
+            while (true) {
+                if (i >= s.length()) throw fail("unterminated string");
+                char c = s.charAt(i++);
+                if (c == '"') return b.toString();
+                if (c != '\\') {
+                    b.append(c);
+                    continue;
+                }
+                if (i >= s.length()) throw fail("unterminated string");
+                char e = s.charAt(i++);
+                switch (e) {
+                    case '"': case '\\': case '/': b.append(e); break;
+                    case 'b': b.append('\b'); break;
+                    case 'f': b.append('\f'); break;
+                    case 'n': b.append('\n'); break;
+                    case 'r': b.append('\r'); break;
+                    case 't': b.append('\t'); break;
+                    case 'u':
+                        if (i + 4 > s.length()) throw fail("bad \\u escape");
+                        try {
+                            b.append((char) Integer.parseInt(s.substring(i, i + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw fail("bad \\u escape");
+                        }
+                        i += 4;
+                        break;
+                    default: throw fail("bad escape \\" + e);
+                }
+            }
+        }
+
+        private char peek() {
+            while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+            return i < s.length() ? s.charAt(i) : 0;
+        }
+
+        private void expect(char c) {
+            if (peek() != c) throw fail("expected '" + c + "'");
+            i++;
+        }
+
+        private char next(char a, char b) {
+            char c = peek();
+            if (c != a && c != b) throw fail("expected '" + a + "' or '" + b + "'");
+            i++;
+            return c;
+        }
+
+        private IllegalArgumentException fail(String what) {
+            return new IllegalArgumentException("Bad JSON at offset " + i + ": " + what);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package travel.itinerary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary image of an itinerary model: the encoded columns plus a local string
+ * dictionary. Loading maps the file and bulk-copies each column, so no CSV
+ * parsing or per-cell String is involved.
+ *
+ * Layout (big-endian): magic, version, generation (long), row count, string
+ * count, raw-time count, the strings as length-prefixed UTF-8, then the
+ * columns date, time (padded to a 4-byte boundary), duration, city, activity,
+ * notes. Text ids and raw date/duration cells refer to the local dictionary.
+ */
+final class ItinerarySnapshot {
+    private static final int MAGIC = 0x4954494E; // "ITIN"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 4;
+
+    private ItinerarySnapshot() { }
+
+    /**
+     * Writes {@code rows} to {@code file} via a temp file and an atomic rename.
+     * {@code rows} must not change while this runs; use {@link ItineraryTableModel#copyRows()}.
+     */
+    static void write(Path file, ItineraryTableModel.RowBlock rows, long generation) throws IOException {
+        int n = rows.size();
+        StringPool pool = rows.pool(), rawTimes = rows.rawTimes(), notesPool = rows.notesPool();
+        int[] local = new int[pool.size()], localNotes = new int[notesPool.size()];
+        Arrays.fill(local, -1);
+        Arrays.fill(localNotes, -1);
+        List<String> strings = new ArrayList<>();
+        int[] city = remapText(rows.city, n, pool, local, strings);
+        int[] activity = remapText(rows.activity, n, pool, local, strings);
+        int[] notes = remapText(rows.notes, n, notesPool, localNotes, strings);
+        int[] date = remapRaw(rows.date, n, pool, local, strings);
+        int[] duration = remapRaw(rows.duration, n, pool, local, strings);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20);
+            buf.putInt(MAGIC).putInt(VERSION).putLong(generation)
+                    .putInt(n).putInt(strings.size()).putInt(rawTimes.size());
+            for (String s : strings) putString(ch, buf, s);
+            for (int i = 0; i < rawTimes.size(); i++) putString(ch, buf, rawTimes.get(i));
+            pad(ch, buf);
+            putInts(ch, buf, date, n);
+            for (int i = 0; i < n; i++) {
+                ensure(ch, buf, 2);
+                buf.putShort(rows.time[i]);
+            }
+            if ((n & 1) == 1) { ensure(ch, buf, 2); buf.putShort((short) 0); }
+            putInts(ch, buf, duration, n);
+            putInts(ch, buf, city, n);
+            putInts(ch, buf, activity, n);
+            putInts(ch, buf, notes, n);
+            flush(ch, buf);
+            ch.force(true);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (java.nio.file.AtomicMoveNotSupportedException ex) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Returns the generation stored in {@code file}, or -1 if it is not a snapshot. */
+    static long generation(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES) return -1;
+            ByteBuffer b = ByteBuffer.allocate(16);
+            while (b.hasRemaining() && ch.read(b) >= 0) { }
+            b.flip();
+            return b.getInt() == MAGIC && b.getInt() == VERSION ? b.getLong() : -1;
+        }
+    }
+
+    /** Reads {@code file} into a block for {@code model}, interning its strings into the block's pools. */
+    static ItineraryTableModel.RowBlock read(Path file, ItineraryTableModel model) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("Snapshot too large: " + file);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.remaining() < HEADER_BYTES || buf.getInt() != MAGIC) throw new IOException("Not an itinerary snapshot: " + file);
+            int version = buf.getInt();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            buf.getLong(); // generation
+            int n = buf.getInt(), stringCount = buf.getInt(), rawTimeCount = buf.getInt();
+
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) strings[i] = getString(buf);
+            short[] rawTimes = new short[rawTimeCount];
+            for (int i = 0; i < rawTimeCount; i++) rawTimes[i] = model.encodeTime(getString(buf));
+            buf.position((buf.position() + 3) & ~3);
+
+            ItineraryTableModel.RowBlock b = model.newBlock(n);
+            IntBuffer ints = buf.slice().asIntBuffer();
+            ints.get(b.date, 0, n);
+            ShortBuffer shorts = buf.position(buf.position() + n * 4).slice().asShortBuffer();
+            shorts.get(b.time, 0, n);
+            ints = buf.position(buf.position() + ((n * 2 + 3) & ~3)).slice().asIntBuffer();
+            ints.get(b.duration, 0, n);
+            ints.get(b.city, 0, n);
+            ints.get(b.activity, 0, n);
+            ints.get(b.notes, 0, n);
+            b.size = n;
+
+            // a string is interned only into the pool of a column that uses it
+            int[] global = new int[stringCount], globalNotes = new int[stringCount];
+            Arrays.fill(global, -1);
+            Arrays.fill(globalNotes, -1);
+            StringPool pool = b.pool(), notesPool = b.notesPool();
+            for (int i = 0; i < n; i++) {
+                b.city[i] = globalId(b.city[i], strings, pool, global);
+                b.activity[i] = globalId(b.activity[i], strings, pool, global);
+                b.notes[i] = globalId(b.notes[i], strings, notesPool, globalNotes);
+                if (ItineraryTableModel.isRawInt(b.date[i])) b.date[i] = model.encodeDate(strings[ItineraryTableModel.rawIntId(b.date[i])]);
+                if (ItineraryTableModel.isRawInt(b.duration[i])) b.duration[i] = model.encodeDuration(strings[ItineraryTableModel.rawIntId(b.duration[i])]);
+                if (ItineraryTableModel.isRawTime(b.time[i])) b.time[i] = rawTimes[ItineraryTableModel.rawTimeId(b.time[i])];
+            }
+            return b;
+        }
+    }
+
+    private static int globalId(int local, String[] strings, StringPool pool, int[] global) {
+        int g = global[local];
+        return g >= 0 ? g : (global[local] = pool.intern(strings[local]));
+    }
+
+    private static int[] remapText(int[] ids, int n, StringPool pool, int[] local, List<String> strings) {
+        int[] out = new int[n];
+        for (int i = 0; i < n; i++) out[i] = localId(ids[i], pool, local, strings);
+        return out;
+    }
+
+    private static int[] remapRaw(int[] values, int n, StringPool pool, int[] local, List<String> strings) {
+        int[] out = new int[n];
+        for (int i = 0; i < n; i++) {
+            int v = values[i];
+            out[i] = ItineraryTableModel.isRawInt(v)
+                    ? ItineraryTableModel.rawInt(localId(ItineraryTableModel.rawIntId(v), pool, local, strings))
+                    : v;
+        }
+        return out;
+    }
+
+    private static int localId(int id, StringPool pool, int[] local, List<String> strings) {
+        int l = local[id];
+        if (l < 0) {
+            l = local[id] = strings.size();
+            strings.add(pool.get(id));
+        }
+        return l;
+    }
+
+    private static void putString(FileChannel ch, ByteBuffer buf, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        ensure(ch, buf, 4);
+        buf.putInt(bytes.length);
+        for (int off = 0; off < bytes.length; ) {
+            ensure(ch, buf, 1);
+            int len = Math.min(buf.remaining(), bytes.length - off);
+            buf.put(bytes, off, len);
+            off += len;
+        }
+    }
+
+    private static String getString(ByteBuffer buf) {
+        int len = buf.getInt();
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putInts(FileChannel ch, ByteBuffer buf, int[] values, int n) throws IOException {
+        for (int i = 0; i < n; ) {
+            ensure(ch, buf, 4);
+            int len = Math.min(buf.remaining() / 4, n - i);
+            buf.asIntBuffer().put(values, i, len);
+            buf.position(buf.position() + len * 4);
+            i += len;
+        }
+    }
+
+    private static void pad(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (((ch.position() + buf.position()) & 3) != 0) {
+            ensure(ch, buf, 1);
+            buf.put((byte) 0);
+        }
+    }
+
+    private static void ensure(FileChannel ch, ByteBuffer buf, int bytes) throws IOException {
+        if (buf.remaining() < bytes) flush(ch, buf);
+    }
+
+    private static void flush(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+}
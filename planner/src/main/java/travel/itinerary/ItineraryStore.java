@@ -0,0 +1,294 @@
+package travel.itinerary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Named itineraries that many threads can read and change at once.
+ *
+ * Each trip is its own {@link ItineraryTableModel} guarded by its own
+ * read-write lock: any number of readers of a trip run together, a writer
+ * excludes only that trip's readers, and different trips never contend.
+ * Each trip owns its string pools, so strings that come in with requests
+ * live only as long as the trip uses them: {@link #flush()} compacts a changed
+ * trip's pools once strings left behind by edits and deletes dominate them.
+ * Blocks from the shared {@link ItineraryGenerator} are encoded against its
+ * own codec model and re-interned into a trip when appended.
+ *
+ * With a directory, trip {@code name} is {@code <dir>/<name>.csv}: it is read
+ * through a {@link TripWorkspace} the first time it is used, and changed trips
+ * are written back by {@link #flush()}, which copies rows under the read lock
+ * and writes outside it.
+ *
+ * Rows are addressed by the model's stable row ids. Finding a row by id is a
+ * scan of the id column; trips are small enough that this beats keeping a map
+ * current under every insert and delete.
+ */
+final class ItineraryStore {
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._ -]{0,63}");
+
+    private final ItineraryTableModel codec = new ItineraryTableModel(); // generator pools only; never holds rows
+    private final TripWorkspace files; // null for an in-memory store
+    private final ItineraryGenerator generator;
+    private final ConcurrentHashMap<String, Trip> trips = new ConcurrentHashMap<>();
+
+    /** @param dir trip directory, created if missing; null keeps everything in memory */
+    ItineraryStore(Path dir, Path templateFile) throws IOException {
+        if (dir != null) {
+            Files.createDirectories(dir);
+            files = new TripWorkspace(dir, codec, 0); // lists the directory; trips are parsed into their own models
+        } else {
+            files = null;
+        }
+        generator = new ItineraryGenerator(codec, templateFile, ItineraryGenerator.DEFAULT_CACHE_PLANS);
+    }
+
+    static boolean isValidName(String name) {
+        return NAME.matcher(name).matches();
+    }
+
+    /** Trip names with their row counts; trips on disk that were never used have a count of -1. */
+    Map<String, Integer> list() {
+        Map<String, Integer> out = new TreeMap<>();
+        if (files != null) {
+            for (TripWorkspace.Trip t : files.trips()) {
+                String name = t.name().substring(0, t.name().length() - 4);
+                if (isValidName(name)) out.put(name, -1);
+            }
+        }
+        for (Trip t : trips.values()) {
+            if (!t.loaded) continue;
+            t.lock.readLock().lock();
+            try {
+                out.put(t.name, t.model.getRowCount());
+            } finally {
+                t.lock.readLock().unlock();
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Appends the rows of {@code name} that match {@code q} to {@code out} as a
+     * JSON array. Returns false when there is no such trip.
+     */
+    boolean query(String name, ItinerarySearchIndex.Query q, StringBuilder out) throws IOException {
+        Trip t = trip(name, false);
+        if (t == null) return false;
+        t.lock.readLock().lock();
+        try {
+            ItineraryTableModel m = t.model;
+            boolean dates = q.fromDay != Integer.MIN_VALUE || q.toDay != Integer.MAX_VALUE;
+            // each distinct string is tested once per query
+            Map<Integer, Boolean> text = new HashMap<>(), notes = new HashMap<>(), city = new HashMap<>();
+            StringPool pool = m.pool(), notesPool = m.notesPool();
+            out.append('[');
+            int n = 0;
+            for (int r = 0; r < m.getRowCount(); r++) {
+                if (dates) {
+                    int day = m.epochDay(r);
+                    if (!ItineraryTableModel.isDateValue(day) || day < q.fromDay || day > q.toDay) continue;
+                }
+                if (!q.city.isEmpty() && !city.computeIfAbsent(m.cityId(r), id -> lower(pool, id).equals(q.city))) continue;
+                if (!q.text.isEmpty() && !contains(text, pool, m.cityId(r), q.text)
+                        && !contains(text, pool, m.activityId(r), q.text)
+                        && !contains(notes, notesPool, m.notesId(r), q.text)) continue;
+                out.append(n++ == 0 ? "\n  " : ",\n  ");
+                appendRow(out, m, r);
+            }
+            out.append(n == 0 ? "]\n" : "\n]\n");
+            return true;
+        } finally {
+            t.lock.readLock().unlock();
+        }
+    }
+
+    /** Adds a row to {@code name}, creating the trip if needed; returns the row as JSON. */
+    String add(String name, String[] cells) throws IOException {
+        Trip t = trip(name, true);
+        t.lock.writeLock().lock();
+        try {
+            t.model.addRow(cells);
+            t.dirty = true;
+            return rowJson(t.model, t.model.getRowCount() - 1);
+        } finally {
+            t.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the non-null cells of row {@code id}; returns the row as JSON,
+     * or null when there is no such trip or row.
+     */
+    String edit(String name, int id, String[] cells) throws IOException {
+        Trip t = trip(name, false);
+        if (t == null) return null;
+        t.lock.writeLock().lock();
+        try {
+            int r = rowOf(t.model, id);
+            if (r < 0) return null;
+            Object[] row = new Object[ItineraryTableModel.COLS.length];
+            for (int c = 0; c < row.length; c++) row[c] = cells[c] != null ? cells[c] : t.model.getValueAt(r, c);
+            t.model.setRow(r, row);
+            t.dirty = true;
+            return rowJson(t.model, r);
+        } finally {
+            t.lock.writeLock().unlock();
+        }
+    }
+
+    /** Removes row {@code id}; false when there is no such trip or row. */
+    boolean delete(String name, int id) throws IOException {
+        Trip t = trip(name, false);
+        if (t == null) return false;
+        t.lock.writeLock().lock();
+        try {
+            int r = rowOf(t.model, id);
+            if (r < 0) return false;
+            t.model.removeRow(r);
+            t.dirty = true;
+            return true;
+        } finally {
+            t.lock.writeLock().unlock();
+        }
+    }
+
+    /** Appends a generated trip to {@code name}, creating it if needed; returns the rows added. */
+    int generate(String name, String city, int days, long startDay) throws IOException {
+        ItineraryTableModel.RowBlock plan = generator.generate(city, days, startDay); // outside the lock
+        Trip t = trip(name, true);
+        t.lock.writeLock().lock();
+        try {
+            t.model.appendBlock(plan);
+            t.dirty = true;
+            return plan.size();
+        } finally {
+            t.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes every changed trip back to the directory, if there is one, and
+     * compacts its pools. Flushes run one at a time, so a file never goes back
+     * to older rows.
+     */
+    synchronized void flush() throws IOException {
+        IOException failure = null;
+        for (Trip t : trips.values()) {
+            ItineraryTableModel.RowBlock rows;
+            t.lock.readLock().lock();
+            try {
+                if (!t.dirty) continue;
+                rows = files != null ? t.model.copyRows() : null;
+                t.dirty = false;
+            } finally {
+                t.lock.readLock().unlock();
+            }
+            if (rows != null) {
+                try {
+                    ItineraryExporter.write(file(t.name), ItineraryExporter.CSV, rows, null, () -> false);
+                } catch (IOException ex) {
+                    t.dirty = true; // try again next time
+                    if (failure == null) failure = ex;
+                }
+            }
+            t.lock.writeLock().lock();
+            try {
+                t.model.compactPools();
+            } finally {
+                t.lock.writeLock().unlock();
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    String statsReport() {
+        return generator.statsReport() + (files != null ? "; " + files.statsReport() : "");
+    }
+
+    // ---- trips ----
+
+    /** The trip called {@code name}, loaded; null if it does not exist and {@code create} is false. */
+    private Trip trip(String name, boolean create) throws IOException {
+        if (!isValidName(name)) throw new IllegalArgumentException("invalid trip name: " + name);
+        Trip t = trips.get(name);
+        if (t == null) {
+            boolean onDisk = files != null && Files.exists(file(name));
+            if (!create && !onDisk) return null;
+            t = trips.computeIfAbsent(name, n -> new Trip(n, new ItineraryTableModel()));
+        }
+        if (!t.loaded) {
+            t.lock.writeLock().lock();
+            try {
+                if (!t.loaded) {
+                    Path f = files != null ? file(name) : null;
+                    if (f != null && Files.exists(f)) t.model.replaceRows(TripWorkspace.parse(f, t.model));
+                    t.loaded = true;
+                }
+            } finally {
+                t.lock.writeLock().unlock();
+            }
+        }
+        return t;
+    }
+
+    private Path file(String name) {
+        return files.directory().resolve(name + ".csv");
+    }
+
+    private static int rowOf(ItineraryTableModel m, int id) {
+        for (int r = 0, n = m.getRowCount(); r < n; r++) {
+            if (m.rowId(r) == id) return r;
+        }
+        return -1;
+    }
+
+    private static String lower(StringPool pool, int id) {
+        return pool.get(id).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean contains(Map<Integer, Boolean> memo, StringPool pool, int id, String needle) {
+        return memo.computeIfAbsent(id, k -> lower(pool, k).contains(needle));
+    }
+
+    private static String rowJson(ItineraryTableModel m, int r) {
+        StringBuilder b = new StringBuilder(128);
+        appendRow(b, m, r);
+        return b.append('\n').toString();
+    }
+
+    /** One row in the JSON export layout, with its id first. */
+    private static void appendRow(StringBuilder out, ItineraryTableModel m, int r) {
+        out.append("{\"id\": ").append(m.rowId(r));
+        StringBuilder cell = new StringBuilder(32);
+        for (int c = 0; c < ItineraryTableModel.COLS.length; c++) {
+            out.append(", ");
+            ItineraryExporter.jsonString(out, ItineraryTableModel.COLS[c]);
+            out.append(": ");
+            cell.setLength(0);
+            m.appendCell(cell, r, c);
+            ItineraryExporter.jsonString(out, cell);
+        }
+        out.append('}');
+    }
+
+    private static final class Trip {
+        final String name;
+        final ItineraryTableModel model;
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        volatile boolean loaded, dirty;
+
+        Trip(String name, ItineraryTableModel model) {
+            this.name = name;
+            this.model = model;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package travel.itinerary;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import java.util.Arrays;
+
+/**
+ * The plain-text itinerary summary used by Export Summary and Copy Summary.
+ *
+ * Each row's text (everything after its "n. " number) is rendered once and
+ * cached; table events mark only the rows they touch as stale, and inserts or
+ * deletes shift the cache the same way the model shifts its rows. The full
+ * text is assembled in a builder sized exactly for it, which is dropped once
+ * the String is made; the String is kept until the next change, so asking
+ * again without edits returns the same one.
+ *
+ * Use on the EDT.
+ */
+final class ItinerarySummary implements TableModelListener {
+    static final String TITLE = "Travel Itinerary Summary\n\n";
+
+    private final ItineraryTableModel model;
+    private final StringBuilder line = new StringBuilder(128);
+    private String[] rows = new String[16];
+    private int size;
+    private String text;
+
+    ItinerarySummary(ItineraryTableModel model) {
+        this.model = model;
+        reset();
+        model.addTableModelListener(this);
+    }
+
+    /** Returns the summary of the current model. */
+    String text() {
+        if (text != null) return text;
+        int n = model.getRowCount();
+        long length = TITLE.length();
+        for (int i = 0; i < n; i++) {
+            String r = rows[i];
+            if (r == null) r = rows[i] = render(i);
+            length += digits(i + 1) + 2 + r.length();
+        }
+        // one allocation for the text and none kept afterwards
+        StringBuilder out = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+        out.append(TITLE);
+        for (int i = 0; i < n; i++) out.append(i + 1).append(". ").append(rows[i]);
+        text = out.toString();
+        return text;
+    }
+
+    private static int digits(int v) {
+        int d = 1;
+        while (v >= 10) {
+            v /= 10;
+            d++;
+        }
+        return d;
+    }
+
+    private String render(int r) {
+        line.setLength(0);
+        appendRow(line, model, r);
+        return line.toString();
+    }
+
+    /** Appends "date time — activity (city)" and the notes line for row {@code r}, without its number. */
+    static void appendRow(StringBuilder b, CellSource rows, int r) {
+        rows.appendCell(b, r, ItineraryTableModel.DATE);
+        b.append(' ');
+        rows.appendCell(b, r, ItineraryTableModel.TIME);
+        b.append(" — ");
+        rows.appendCell(b, r, ItineraryTableModel.ACTIVITY);
+        b.append(" (");
+        rows.appendCell(b, r, ItineraryTableModel.CITY);
+        b.append(")\n    Notes: ");
+        rows.appendCell(b, r, ItineraryTableModel.NOTES);
+        b.append("\n\n");
+    }
+
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        text = null;
+        int first = e.getFirstRow(), last = e.getLastRow();
+        if (first == TableModelEvent.HEADER_ROW || last == Integer.MAX_VALUE) {
+            reset();
+            return;
+        }
+        int count = last - first + 1;
+        switch (e.getType()) {
+            case TableModelEvent.INSERT:
+                if (size + count > rows.length) rows = Arrays.copyOf(rows, Math.max(size + count, rows.length * 2));
+                System.arraycopy(rows, first, rows, first + count, size - first);
+                Arrays.fill(rows, first, first + count, null);
+                size += count;
+                break;
+            case TableModelEvent.DELETE:
+                System.arraycopy(rows, last + 1, rows, first, size - last - 1);
+                Arrays.fill(rows, size - count, size, null);
+                size -= count;
+                break;
+            default:
+                Arrays.fill(rows, first, Math.min(last + 1, size), null);
+                break;
+        }
+    }
+
+    private void reset() {
+        size = model.getRowCount();
+        rows = new String[Math.max(16, size)];
+    }
+}
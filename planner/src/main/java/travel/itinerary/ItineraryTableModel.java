@@ -0,0 +1,854 @@
+package travel.itinerary;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableModel;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Column-oriented itinerary model.
+ * Each column lives in its own primitive array: dates as epoch days, times as
+ * minute of day, durations as minutes, and the free-text columns as ids into
+ * {@link StringPool}s. Cells are still read and written as Strings, so the
+ * model can stand in for a {@code DefaultTableModel} behind the JTable.
+ *
+ * City and Activity come from a small vocabulary and share a pool that other
+ * models can share too. Notes are mostly unique per row, so each model keeps
+ * them in a pool of its own, which it drops whenever it is emptied or its rows
+ * are replaced; notes of an itinerary that is gone do not stay on the heap.
+ * A model that owns all its pools can also {@link #compactPools() compact}
+ * them, dropping strings that edits and deletes left behind.
+ *
+ * Values that do not parse (the Add/Edit dialog lets users keep "unusual" dates
+ * and times) are stored verbatim as pool ids using a reserved range of the column.
+ *
+ * Every row also carries a stable id that follows it through moves, so derived
+ * indexes can refer to rows without being rewritten when others shift.
+ *
+ * Mutations between {@link #beginBatch()} and {@link #commitBatch()} are
+ * reported as one coalesced event when the outermost batch commits, so a
+ * batch costs listeners (JTable, row sorter) one update instead of one per row.
+ */
+class ItineraryTableModel extends AbstractTableModel implements CellSource {
+    static final String[] COLS = {"Date", "Time", "City", "Activity", "Duration", "Notes"};
+    static final int DATE = 0, TIME = 1, CITY = 2, ACTIVITY = 3, DURATION = 4, NOTES = 5;
+
+    /** Empty cell in the int columns (date, duration). */
+    static final int NONE = Integer.MIN_VALUE;
+    /** Empty cell in the time column. */
+    static final short NO_TIME = -1;
+    /** Returned by the static parsers when the text is not in a recognised format. */
+    static final int INVALID = Integer.MAX_VALUE;
+
+    // int columns keep unparsed text as RAW_BASE + pool id; real values never get this low
+    private static final int RAW_BASE = Integer.MIN_VALUE + 1;
+    private static final int RAW_LIMIT = -1_000_000_000;
+    // time column keeps unparsed text as -(id + 2) into its own small pool
+    private static final int MAX_RAW_TIME = Short.MAX_VALUE - 1;
+    private static final int MAX_DURATION = 1_000_000_000;
+
+    /** Bytes of primitive column storage per row. */
+    static final int COLUMN_BYTES_PER_ROW = 4 + 2 + 4 + 4 + 4 + 4 + 4;
+
+    // replaced only by compactPools
+    private StringPool pool;
+    private StringPool rawTimes;
+    private volatile StringPool notesPool = new StringPool(); // replaced on the owning thread only
+
+    private int batchDepth;
+    private TableModelEvent pendingEvent;
+    private final List<TableModelListener> indexListeners = new CopyOnWriteArrayList<>();
+
+    private int size;
+    private int[] date = new int[16];
+    private short[] time = new short[16];
+    private int[] duration = new int[16];
+    private int[] city = new int[16];
+    private int[] activity = new int[16];
+    private int[] notes = new int[16];
+    private int[] rowIds = new int[16];
+    private int nextRowId;
+
+    ItineraryTableModel() {
+        this(new StringPool());
+    }
+
+    ItineraryTableModel(StringPool pool) {
+        this(pool, new StringPool());
+    }
+
+    /**
+     * Empty model encoding with the same shared pools as {@code codec}, so
+     * blocks of either model append to the other as plain copies. Its notes
+     * pool is its own.
+     */
+    ItineraryTableModel(ItineraryTableModel codec) {
+        this(codec.pool, codec.rawTimes);
+    }
+
+    private ItineraryTableModel(StringPool pool, StringPool rawTimes) {
+        this.pool = Objects.requireNonNull(pool);
+        this.rawTimes = rawTimes;
+    }
+
+    /** Pool of City, Activity and unrecognised dates and durations; shared with codec models. */
+    StringPool pool() {
+        return pool;
+    }
+
+    /** Pool holding this model's unrecognised time strings. */
+    StringPool rawTimes() {
+        return rawTimes;
+    }
+
+    /** Pool of the Notes column; replaced when the model is emptied or its rows are replaced. */
+    StringPool notesPool() {
+        return notesPool;
+    }
+
+    // ---- TableModel ----
+
+    @Override public int getRowCount() { return size; }
+    @Override public int getColumnCount() { return COLS.length; }
+    @Override public String getColumnName(int col) { return COLS[col]; }
+    @Override public Class<?> getColumnClass(int col) { return String.class; }
+    @Override public boolean isCellEditable(int row, int col) { return false; }
+
+    @Override
+    public Object getValueAt(int row, int col) {
+        checkRow(row);
+        switch (col) {
+            case DATE: return decodeDate(date[row]);
+            case TIME: return decodeTime(time[row]);
+            case CITY: return pool.get(city[row]);
+            case ACTIVITY: return pool.get(activity[row]);
+            case DURATION: return decodeDuration(duration[row]);
+            case NOTES: return notesPool.get(notes[row]);
+            default: throw new IndexOutOfBoundsException("column " + col);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void appendCell(StringBuilder b, int row, int col) {
+        checkRow(row);
+        switch (col) {
+            case DATE: appendDate(b, date[row], pool); break;
+            case TIME: appendTime(b, time[row], rawTimes); break;
+            case DURATION: appendDurationValue(b, duration[row], pool); break;
+            default: b.append((String) getValueAt(row, col)); break;
+        }
+    }
+
+    // typed values are formatted in place; only unrecognised text goes through the pools
+    private static void appendDate(StringBuilder b, int v, StringPool pool) {
+        if (isDateValue(v)) appendEpochDay(b, v); else b.append(decodeDate(v, pool));
+    }
+
+    private static void appendTime(StringBuilder b, short v, StringPool rawTimes) {
+        if (isTimeValue(v)) appendMinuteOfDay(b, v); else b.append(decodeTime(v, rawTimes));
+    }
+
+    private static void appendDurationValue(StringBuilder b, int v, StringPool pool) {
+        if (isDurationValue(v)) appendDuration(b, v); else b.append(decodeDuration(v, pool));
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int col) {
+        checkRow(row);
+        store(row, col, Objects.toString(value, ""));
+        fireTableCellUpdated(row, col);
+    }
+
+    // ---- batching ----
+
+    /** Starts a batch; batches nest and only the outermost commit fires. */
+    void beginBatch() {
+        batchDepth++;
+    }
+
+    /** Ends a batch and fires the coalesced event for everything it changed. */
+    void commitBatch() {
+        if (batchDepth == 0) throw new IllegalStateException("commitBatch without beginBatch");
+        if (--batchDepth > 0 || pendingEvent == null) return;
+        TableModelEvent e = pendingEvent;
+        pendingEvent = null;
+        dispatch(e);
+    }
+
+    /** Runs {@code body} inside a batch. */
+    void batch(Runnable body) {
+        beginBatch();
+        try {
+            body.run();
+        } finally {
+            commitBatch();
+        }
+    }
+
+    @Override
+    public void fireTableChanged(TableModelEvent e) {
+        if (batchDepth == 0) dispatch(e);
+        else pendingEvent = pendingEvent == null ? e : coalesce(pendingEvent, e);
+    }
+
+    /**
+     * Registers a listener for a structure derived from the rows (search index,
+     * caches). Index listeners hear every event before the regular listeners,
+     * so views that react to an event already see up-to-date indexes.
+     */
+    void addIndexListener(TableModelListener l) {
+        indexListeners.add(l);
+    }
+
+    void removeIndexListener(TableModelListener l) {
+        indexListeners.remove(l);
+    }
+
+    private void dispatch(TableModelEvent e) {
+        for (TableModelListener l : indexListeners) l.tableChanged(e);
+        super.fireTableChanged(e);
+    }
+
+    /**
+     * Merges two events into one that covers both: adjacent inserts, deletes
+     * and updates collapse into a single range, anything else becomes a
+     * data-changed event.
+     */
+    private TableModelEvent coalesce(TableModelEvent p, TableModelEvent e) {
+        if (p.getFirstRow() == TableModelEvent.HEADER_ROW || e.getFirstRow() == TableModelEvent.HEADER_ROW) {
+            return new TableModelEvent(this, TableModelEvent.HEADER_ROW);
+        }
+        int a = p.getFirstRow(), b = p.getLastRow(), c = e.getFirstRow(), d = e.getLastRow();
+        if (b == Integer.MAX_VALUE || d == Integer.MAX_VALUE) return new TableModelEvent(this);
+        int pt = p.getType(), et = e.getType();
+        if (pt == TableModelEvent.INSERT && et == TableModelEvent.INSERT && c >= a && c <= b + 1) {
+            return new TableModelEvent(this, a, b + (d - c + 1), TableModelEvent.ALL_COLUMNS, TableModelEvent.INSERT);
+        }
+        if (pt == TableModelEvent.INSERT && et == TableModelEvent.UPDATE && c >= a && d <= b) {
+            return p;
+        }
+        if (pt == TableModelEvent.UPDATE && et == TableModelEvent.UPDATE) {
+            int col = p.getColumn() == e.getColumn() ? p.getColumn() : TableModelEvent.ALL_COLUMNS;
+            return new TableModelEvent(this, Math.min(a, c), Math.max(b, d), col, TableModelEvent.UPDATE);
+        }
+        if (pt == TableModelEvent.DELETE && et == TableModelEvent.DELETE && c <= a && a <= d + 1) {
+            return new TableModelEvent(this, c, d + (b - a + 1), TableModelEvent.ALL_COLUMNS, TableModelEvent.DELETE);
+        }
+        return new TableModelEvent(this);
+    }
+
+    // ---- DefaultTableModel-style mutators ----
+
+    /** Replaces every cell of {@code row} with one update event. */
+    void setRow(int row, Object[] rowData) {
+        checkRow(row);
+        for (int c = 0; c < COLS.length; c++) {
+            store(row, c, rowData != null && c < rowData.length ? Objects.toString(rowData[c], "") : "");
+        }
+        fireTableRowsUpdated(row, row);
+    }
+
+    void addRow(Object[] rowData) {
+        insertRow(size, rowData);
+    }
+
+    void insertRow(int row, Object[] rowData) {
+        if (row < 0 || row > size) throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+        ensureCapacity(size + 1);
+        shift(row, row + 1, size - row);
+        size++;
+        assignRowIds(row, row + 1);
+        for (int c = 0; c < COLS.length; c++) {
+            store(row, c, rowData != null && c < rowData.length ? Objects.toString(rowData[c], "") : "");
+        }
+        fireTableRowsInserted(row, row);
+    }
+
+    void removeRow(int row) {
+        checkRow(row);
+        shift(row + 1, row, size - row - 1);
+        size--;
+        if (size == 0) notesPool = new StringPool();
+        fireTableRowsDeleted(row, row);
+    }
+
+    /** Removes rows {@code first} to {@code last} inclusive with one event. */
+    void removeRows(int first, int last) {
+        checkRow(first);
+        checkRow(last);
+        if (last < first) throw new IllegalArgumentException("last < first");
+        shift(last + 1, first, size - last - 1);
+        size -= last - first + 1;
+        if (size == 0) notesPool = new StringPool();
+        fireTableRowsDeleted(first, last);
+    }
+
+    void setRowCount(int rowCount) {
+        if (rowCount < 0) throw new IllegalArgumentException("rowCount " + rowCount);
+        int old = size;
+        if (rowCount < old) {
+            size = rowCount;
+            if (size == 0) notesPool = new StringPool();
+            fireTableRowsDeleted(rowCount, old - 1);
+        } else if (rowCount > old) {
+            ensureCapacity(rowCount);
+            for (int r = old; r < rowCount; r++) {
+                size = r + 1;
+                assignRowIds(r, r + 1);
+                for (int c = 0; c < COLS.length; c++) store(r, c, "");
+            }
+            fireTableRowsInserted(old, rowCount - 1);
+        }
+    }
+
+    /** Exchanges two rows in place; only the rows between them are reported as updated. */
+    void swapRows(int a, int b) {
+        checkRow(a);
+        checkRow(b);
+        if (a == b) return;
+        int t = date[a]; date[a] = date[b]; date[b] = t;
+        short s = time[a]; time[a] = time[b]; time[b] = s;
+        t = duration[a]; duration[a] = duration[b]; duration[b] = t;
+        t = city[a]; city[a] = city[b]; city[b] = t;
+        t = activity[a]; activity[a] = activity[b]; activity[b] = t;
+        t = notes[a]; notes[a] = notes[b]; notes[b] = t;
+        t = rowIds[a]; rowIds[a] = rowIds[b]; rowIds[b] = t;
+        fireTableRowsUpdated(Math.min(a, b), Math.max(a, b));
+    }
+
+    /**
+     * Rearranges rows so that new row {@code i} is old row {@code order[i]};
+     * {@code order} must be a permutation of all rows. Rows keep their ids, and
+     * only the span of rows that actually moved is reported as updated.
+     */
+    void reorderRows(int[] order) {
+        if (order.length != size) throw new IllegalArgumentException("order has " + order.length + " rows, model " + size);
+        int first = 0, last = size - 1;
+        while (first < size && order[first] == first) first++;
+        if (first == size) return;
+        while (order[last] == last) last--;
+        boolean[] seen = new boolean[last - first + 1];
+        for (int i = first; i <= last; i++) {
+            int o = order[i];
+            if (o < first || o > last || seen[o - first]) throw new IllegalArgumentException("not a permutation");
+            seen[o - first] = true;
+        }
+        int[] scratch = new int[last - first + 1];
+        permute(date, order, first, scratch);
+        permute(duration, order, first, scratch);
+        permute(city, order, first, scratch);
+        permute(activity, order, first, scratch);
+        permute(notes, order, first, scratch);
+        permute(rowIds, order, first, scratch);
+        for (int i = 0; i < scratch.length; i++) scratch[i] = time[order[first + i]];
+        for (int i = 0; i < scratch.length; i++) time[first + i] = (short) scratch[i];
+        fireTableRowsUpdated(first, last);
+    }
+
+    private static void permute(int[] column, int[] order, int first, int[] scratch) {
+        for (int i = 0; i < scratch.length; i++) scratch[i] = column[order[first + i]];
+        System.arraycopy(scratch, 0, column, first, scratch.length);
+    }
+
+    // ---- bulk loading ----
+
+    /**
+     * Fixed-size batch of rows encoded against this model's pools. Blocks can be
+     * filled on any thread and are appended on the EDT with a single event.
+     * A block keeps the pools the model had when the block was made, so it
+     * stays readable after the model moves on to new ones.
+     */
+    static final class RowBlock implements CellSource {
+        private final StringPool pool, rawTimes, notesPool;
+        final int[] date;
+        final short[] time;
+        final int[] duration, city, activity, notes;
+        int size;
+
+        private RowBlock(ItineraryTableModel owner, int capacity) {
+            pool = owner.pool;
+            rawTimes = owner.rawTimes;
+            notesPool = owner.notesPool;
+            date = new int[capacity];
+            time = new short[capacity];
+            duration = new int[capacity];
+            city = new int[capacity];
+            activity = new int[capacity];
+            notes = new int[capacity];
+        }
+
+        boolean isFull() { return size == date.length; }
+        @Override public int size() { return size; }
+
+        StringPool pool() { return pool; }
+        StringPool rawTimes() { return rawTimes; }
+        /** Pool the {@link #notes} ids refer to. */
+        StringPool notesPool() { return notesPool; }
+
+        /** Safe off the EDT: the pools only ever grow. */
+        @Override
+        public void appendCell(StringBuilder b, int row, int col) {
+            if (row < 0 || row >= size) throw new IndexOutOfBoundsException("row " + row);
+            switch (col) {
+                case DATE: appendDate(b, date[row], pool); break;
+                case TIME: appendTime(b, time[row], rawTimes); break;
+                case CITY: b.append(pool.get(city[row])); break;
+                case ACTIVITY: b.append(pool.get(activity[row])); break;
+                case DURATION: appendDurationValue(b, duration[row], pool); break;
+                case NOTES: b.append(notesPool.get(notes[row])); break;
+                default: throw new IndexOutOfBoundsException("column " + col);
+            }
+        }
+
+        /** Encodes one row; missing trailing fields are treated as empty. */
+        void add(String[] fields, int count) {
+            int i = size++;
+            date[i] = encodeDate(field(fields, count, DATE), pool);
+            time[i] = encodeTime(field(fields, count, TIME), rawTimes);
+            city[i] = pool.intern(field(fields, count, CITY));
+            activity[i] = pool.intern(field(fields, count, ACTIVITY));
+            duration[i] = encodeDuration(field(fields, count, DURATION), pool);
+            notes[i] = notesPool.intern(field(fields, count, NOTES));
+        }
+
+        /** Adds a row whose cells were already encoded against this block's pools. */
+        void addEncoded(int date, short time, int city, int activity, int duration, int notes) {
+            int i = size++;
+            this.date[i] = date;
+            this.time[i] = time;
+            this.city[i] = city;
+            this.activity[i] = activity;
+            this.duration[i] = duration;
+            this.notes[i] = notes;
+        }
+
+        private static String field(String[] fields, int count, int col) {
+            return col < count && fields[col] != null ? fields[col] : "";
+        }
+    }
+
+    RowBlock newBlock(int capacity) {
+        return new RowBlock(this, capacity);
+    }
+
+    /** Copies every row into a new block, e.g. to hand a consistent view to a background task. */
+    RowBlock copyRows() {
+        RowBlock b = new RowBlock(this, size);
+        System.arraycopy(date, 0, b.date, 0, size);
+        System.arraycopy(time, 0, b.time, 0, size);
+        System.arraycopy(duration, 0, b.duration, 0, size);
+        System.arraycopy(city, 0, b.city, 0, size);
+        System.arraycopy(activity, 0, b.activity, 0, size);
+        System.arraycopy(notes, 0, b.notes, 0, size);
+        b.size = size;
+        return b;
+    }
+
+    /**
+     * Replaces all rows with those of {@code block} and fires one data-changed
+     * event. The model takes over the block's notes pool, so the notes of the
+     * rows it had are dropped and the new ones are not copied.
+     */
+    void replaceRows(RowBlock block) {
+        notesPool = block.notesPool;
+        size = 0;
+        ensureCapacity(block.size);
+        copyIn(block, 0);
+        size = block.size;
+        assignRowIds(0, size);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Appends all rows of {@code block} and fires one insert event. Cells that
+     * refer to other pools than this model's are interned into its own.
+     */
+    void appendBlock(RowBlock block) {
+        int n = block.size;
+        if (n == 0) return;
+        ensureCapacity(size + n);
+        copyIn(block, size);
+        int first = size;
+        size += n;
+        assignRowIds(first, size);
+        fireTableRowsInserted(first, size - 1);
+    }
+
+    // copies the block's rows to [at, at + block.size); same pools are a plain copy
+    private void copyIn(RowBlock block, int at) {
+        int n = block.size, end = at + n;
+        System.arraycopy(block.date, 0, date, at, n);
+        System.arraycopy(block.time, 0, time, at, n);
+        System.arraycopy(block.duration, 0, duration, at, n);
+        System.arraycopy(block.city, 0, city, at, n);
+        System.arraycopy(block.activity, 0, activity, at, n);
+        System.arraycopy(block.notes, 0, notes, at, n);
+        if (block.pool != pool) {
+            StringPool from = block.pool;
+            for (int r = at; r < end; r++) {
+                city[r] = pool.intern(from.get(city[r]));
+                activity[r] = pool.intern(from.get(activity[r]));
+                if (isRawInt(date[r])) date[r] = rawInt(pool.intern(from.get(rawIntId(date[r]))));
+                if (isRawInt(duration[r])) duration[r] = rawInt(pool.intern(from.get(rawIntId(duration[r]))));
+            }
+        }
+        if (block.rawTimes != rawTimes) {
+            for (int r = at; r < end; r++) {
+                if (isRawTime(time[r])) time[r] = encodeTime(block.rawTimes.get(rawTimeId(time[r])));
+            }
+        }
+        if (block.notesPool != notesPool) {
+            StringPool from = block.notesPool;
+            for (int r = at; r < end; r++) notes[r] = notesPool.intern(from.get(notes[r]));
+        }
+    }
+
+    /**
+     * Moves the rows onto new pools holding only the strings they use, when
+     * strings left behind by edits and deletes make up more than half of the
+     * pools. Cell values and row ids stay the same, but pool ids change, so
+     * listeners get a data-changed event; a model that shared its pools stops
+     * sharing them. Returns whether the pools were rebuilt.
+     */
+    boolean compactPools() {
+        BitSet live = new BitSet(pool.size()), liveTimes = new BitSet(rawTimes.size()),
+                liveNotes = new BitSet(notesPool.size());
+        for (int r = 0; r < size; r++) {
+            live.set(city[r]);
+            live.set(activity[r]);
+            if (isRawInt(date[r])) live.set(rawIntId(date[r]));
+            if (isRawInt(duration[r])) live.set(rawIntId(duration[r]));
+            if (isRawTime(time[r])) liveTimes.set(rawTimeId(time[r]));
+            liveNotes.set(notes[r]);
+        }
+        long kept = (long) live.cardinality() + liveTimes.cardinality() + liveNotes.cardinality();
+        long total = (long) pool.size() + rawTimes.size() + notesPool.size();
+        if (kept * 2 >= total) return false;
+        int[] ids = new int[pool.size()], timeIds = new int[rawTimes.size()], noteIds = new int[notesPool.size()];
+        pool = compact(pool, live, ids);
+        rawTimes = compact(rawTimes, liveTimes, timeIds);
+        notesPool = compact(notesPool, liveNotes, noteIds);
+        for (int r = 0; r < size; r++) {
+            city[r] = ids[city[r]];
+            activity[r] = ids[activity[r]];
+            if (isRawInt(date[r])) date[r] = rawInt(ids[rawIntId(date[r])]);
+            if (isRawInt(duration[r])) duration[r] = rawInt(ids[rawIntId(duration[r])]);
+            if (isRawTime(time[r])) time[r] = (short) -(timeIds[rawTimeId(time[r])] + 2);
+            notes[r] = noteIds[notes[r]];
+        }
+        fireTableDataChanged();
+        return true;
+    }
+
+    // new pool with the live strings of {@code from}; ids[old id] = new id
+    private static StringPool compact(StringPool from, BitSet live, int[] ids) {
+        StringPool to = new StringPool();
+        for (int id = live.nextSetBit(0); id >= 0; id = live.nextSetBit(id + 1)) ids[id] = to.intern(from.get(id));
+        return to;
+    }
+
+    // ---- primitive accessors ----
+
+    /** Epoch day of the row, {@link #NONE} when empty, or a value below any real day when unparsed. */
+    int epochDay(int row) { checkRow(row); return date[row]; }
+    /** Minute of day (0-1439), {@link #NO_TIME} when empty, or below -1 when unparsed. */
+    short minuteOfDay(int row) { checkRow(row); return time[row]; }
+    /** Duration in minutes, {@link #NONE} when empty, or a large negative value when unparsed. */
+    int durationMinutes(int row) { checkRow(row); return duration[row]; }
+    int cityId(int row) { checkRow(row); return city[row]; }
+    int activityId(int row) { checkRow(row); return activity[row]; }
+    int notesId(int row) { checkRow(row); return notes[row]; }
+    /**
+     * Stable id of the row, unique among current rows. Ids of deleted rows may
+     * be handed out again once the model has been emptied.
+     */
+    int rowId(int row) { checkRow(row); return rowIds[row]; }
+    /** Upper bound (exclusive) of the row ids handed out so far. */
+    int rowIdLimit() { return nextRowId; }
+
+    static boolean isDateValue(int v) { return v > RAW_LIMIT; }
+
+    // Raw (unparsed) cells, for code that persists encoded columns.
+    static boolean isRawInt(int v) { return v != NONE && v < RAW_LIMIT; }
+    static int rawIntId(int v) { return v - RAW_BASE; }
+    static int rawInt(int poolId) { return RAW_BASE + poolId; }
+    static boolean isRawTime(short v) { return v < NO_TIME; }
+    static int rawTimeId(short v) { return -v - 2; }
+    static boolean isTimeValue(short v) { return v >= 0; }
+    static boolean isDurationValue(int v) { return v >= 0; }
+
+    // ---- memory accounting ----
+
+    /** Approximate heap bytes per row, including this model's share of the string pools. */
+    double estimatedBytesPerRow() {
+        if (size == 0) return 0;
+        long bytes = (long) date.length * COLUMN_BYTES_PER_ROW + pool.estimatedBytes() + rawTimes.estimatedBytes()
+                + notesPool.estimatedBytes();
+        return (double) bytes / size;
+    }
+
+    /**
+     * Approximate heap bytes per row if the same cells were held the way
+     * {@code DefaultTableModel} holds them: a Vector of six Strings per row.
+     * Samples at most 10k rows.
+     */
+    static double estimateBoxedBytesPerRow(TableModel m) {
+        int rows = m.getRowCount();
+        if (rows == 0) return 0;
+        int step = Math.max(1, rows / 10_000);
+        long bytes = 0;
+        int sampled = 0;
+        for (int r = 0; r < rows; r += step, sampled++) {
+            bytes += 4 + 24 + 16 + 4L * 10; // slot in outer Vector + Vector + Object[10]
+            for (int c = 0; c < m.getColumnCount(); c++) {
+                String s = Objects.toString(m.getValueAt(r, c), "");
+                bytes += 24 + ((16 + s.length() + 7) & ~7); // String + Latin-1 byte[]
+            }
+        }
+        return (double) bytes / sampled;
+    }
+
+    String memoryReport() {
+        return String.format("%,d rows, ~%.0f bytes/row (Vector<String> model: ~%.0f bytes/row)",
+                size, estimatedBytesPerRow(), estimateBoxedBytesPerRow(this));
+    }
+
+    // ---- encoding ----
+
+    private void store(int row, int col, String s) {
+        switch (col) {
+            case DATE: date[row] = encodeDate(s); break;
+            case TIME: time[row] = encodeTime(s); break;
+            case CITY: city[row] = pool.intern(s); break;
+            case ACTIVITY: activity[row] = pool.intern(s); break;
+            case DURATION: duration[row] = encodeDuration(s); break;
+            case NOTES: notes[row] = notesPool.intern(s); break;
+            default: throw new IndexOutOfBoundsException("column " + col);
+        }
+    }
+
+    int encodeDate(String s) {
+        return encodeDate(s, pool);
+    }
+
+    String decodeDate(int v) {
+        return decodeDate(v, pool);
+    }
+
+    short encodeTime(String s) {
+        return encodeTime(s, rawTimes);
+    }
+
+    String decodeTime(short v) {
+        return decodeTime(v, rawTimes);
+    }
+
+    int encodeDuration(String s) {
+        return encodeDuration(s, pool);
+    }
+
+    String decodeDuration(int v) {
+        return decodeDuration(v, pool);
+    }
+
+    private static int encodeDate(String s, StringPool pool) {
+        if (s.isEmpty()) return NONE;
+        int d = parseEpochDay(s);
+        return d != INVALID ? d : RAW_BASE + pool.intern(s);
+    }
+
+    private static String decodeDate(int v, StringPool pool) {
+        if (v == NONE) return "";
+        if (v < RAW_LIMIT) return pool.get(v - RAW_BASE);
+        return formatEpochDay(v);
+    }
+
+    private static short encodeTime(String s, StringPool rawTimes) {
+        if (s.isEmpty()) return NO_TIME;
+        int m = parseMinuteOfDay(s);
+        if (m != INVALID) return (short) m;
+        int id = rawTimes.intern(s);
+        if (id > MAX_RAW_TIME) throw new IllegalStateException("Too many distinct unrecognised time values");
+        return (short) -(id + 2);
+    }
+
+    private static String decodeTime(short v, StringPool rawTimes) {
+        if (v == NO_TIME) return "";
+        if (v < 0) return rawTimes.get(-v - 2);
+        return formatMinuteOfDay(v);
+    }
+
+    private static int encodeDuration(String s, StringPool pool) {
+        if (s.isEmpty()) return NONE;
+        int m = parseDurationMinutes(s);
+        return m != INVALID ? m : RAW_BASE + pool.intern(s);
+    }
+
+    private static String decodeDuration(int v, StringPool pool) {
+        if (v == NONE) return "";
+        if (v < 0) return pool.get(v - RAW_BASE);
+        return formatDuration(v);
+    }
+
+    /** Parses yyyy-MM-dd into an epoch day, or returns {@link #INVALID}. */
+    static int parseEpochDay(CharSequence s) {
+        if (s.length() != 10 || s.charAt(4) != '-' || s.charAt(7) != '-') return INVALID;
+        int y = digits(s, 0, 4), m = digits(s, 5, 7), d = digits(s, 8, 10);
+        if (y < 0 || m < 0 || d < 0) return INVALID;
+        try {
+            return (int) LocalDate.of(y, m, d).toEpochDay();
+        } catch (DateTimeException ex) {
+            return INVALID;
+        }
+    }
+
+    /** Parses H:mm or HH:mm into a minute of day, or returns {@link #INVALID}. */
+    static int parseMinuteOfDay(CharSequence s) {
+        int colon = s.length() - 3;
+        if (colon < 1 || colon > 2 || s.charAt(colon) != ':') return INVALID;
+        int h = digits(s, 0, colon), m = digits(s, colon + 1, s.length());
+        if (h < 0 || h > 23 || m < 0 || m > 59) return INVALID;
+        return h * 60 + m;
+    }
+
+    /** Parses durations such as "2h", "45m", "1h30m" or "1h 30m", or returns {@link #INVALID}. */
+    static int parseDurationMinutes(CharSequence s) {
+        int n = s.length(), i = 0;
+        long hours = 0, minutes = 0;
+        int start = i;
+        while (i < n && isDigit(s.charAt(i))) i++;
+        if (i == start || i == n || i - start > 7) return INVALID;
+        long value = digits(s, start, i);
+        char unit = s.charAt(i++);
+        if (unit == 'm') {
+            if (i != n) return INVALID;
+            minutes = value;
+        } else if (unit == 'h') {
+            hours = value;
+            if (i < n) {
+                if (s.charAt(i) == ' ') i++;
+                start = i;
+                while (i < n && isDigit(s.charAt(i))) i++;
+                if (i == start || i - start > 2 || i != n - 1 || s.charAt(i) != 'm') return INVALID;
+                minutes = digits(s, start, i);
+                if (minutes > 59) return INVALID;
+            }
+        } else {
+            return INVALID;
+        }
+        long total = hours * 60 + minutes;
+        return total > MAX_DURATION ? INVALID : (int) total;
+    }
+
+    static String formatEpochDay(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    static String formatMinuteOfDay(int minute) {
+        char[] c = {(char) ('0' + minute / 600), (char) ('0' + minute / 60 % 10), ':',
+                (char) ('0' + minute % 60 / 10), (char) ('0' + minute % 10)};
+        return new String(c);
+    }
+
+    static String formatDuration(int minutes) {
+        int h = minutes / 60, m = minutes % 60;
+        if (h == 0) return m + "m";
+        return m == 0 ? h + "h" : h + "h" + m + "m";
+    }
+
+    /** Appends yyyy-MM-dd; same text as {@link #formatEpochDay}. */
+    static void appendEpochDay(StringBuilder b, int epochDay) {
+        // days to civil date (proleptic Gregorian, March-based year)
+        long z = epochDay + 719_468L;
+        long era = Math.floorDiv(z, 146_097);
+        long doe = z - era * 146_097;
+        long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int d = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int m = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long y = yoe + era * 400 + (m <= 2 ? 1 : 0);
+        if (y < 0 || y > 9999) {
+            b.append(formatEpochDay(epochDay));
+            return;
+        }
+        int yy = (int) y;
+        b.append((char) ('0' + yy / 1000)).append((char) ('0' + yy / 100 % 10))
+                .append((char) ('0' + yy / 10 % 10)).append((char) ('0' + yy % 10)).append('-')
+                .append((char) ('0' + m / 10)).append((char) ('0' + m % 10)).append('-')
+                .append((char) ('0' + d / 10)).append((char) ('0' + d % 10));
+    }
+
+    /** Appends HH:mm; same text as {@link #formatMinuteOfDay}. */
+    static void appendMinuteOfDay(StringBuilder b, int minute) {
+        b.append((char) ('0' + minute / 600)).append((char) ('0' + minute / 60 % 10)).append(':')
+                .append((char) ('0' + minute % 60 / 10)).append((char) ('0' + minute % 10));
+    }
+
+    /** Appends Xh, Ym or XhYm; same text as {@link #formatDuration}. */
+    static void appendDuration(StringBuilder b, int minutes) {
+        int h = minutes / 60, m = minutes % 60;
+        if (h != 0) b.append(h).append('h');
+        if (m != 0 || h == 0) b.append(m).append('m');
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static int digits(CharSequence s, int from, int to) {
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            char ch = s.charAt(i);
+            if (!isDigit(ch)) return -1;
+            v = v * 10 + (ch - '0');
+        }
+        return v;
+    }
+
+    // ---- storage ----
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+    }
+
+    private void ensureCapacity(int min) {
+        if (min <= date.length) return;
+        int cap = Math.max(min, date.length + (date.length >> 1));
+        date = Arrays.copyOf(date, cap);
+        time = Arrays.copyOf(time, cap);
+        duration = Arrays.copyOf(duration, cap);
+        city = Arrays.copyOf(city, cap);
+        activity = Arrays.copyOf(activity, cap);
+        notes = Arrays.copyOf(notes, cap);
+        rowIds = Arrays.copyOf(rowIds, cap);
+    }
+
+    private void assignRowIds(int from, int to) {
+        if (to - from == size) nextRowId = 0; // nothing else alive: keep ids, and arrays keyed by them, small
+        for (int r = from; r < to; r++) rowIds[r] = nextRowId++;
+    }
+
+    private void shift(int from, int to, int count) {
+        if (count <= 0) return;
+        System.arraycopy(date, from, date, to, count);
+        System.arraycopy(time, from, time, to, count);
+        System.arraycopy(duration, from, duration, to, count);
+        System.arraycopy(city, from, city, to, count);
+        System.arraycopy(activity, from, activity, to, count);
+        System.arraycopy(notes, from, notes, to, count);
+        System.arraycopy(rowIds, from, rowIds, to, count);
+    }
+}
@@ -0,0 +1,140 @@
+package travel.itinerary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Durations bucketed on a log scale at microsecond resolution: exact below
+ * 8 µs, then eight buckets per power of two, so any recorded value is within
+ * 12.5% of its bucket's upper bound. Up to about 19 hours; longer values land
+ * in the last bucket. Recording is lock-free and allocation-free.
+ */
+final class LatencyHistogram implements LatencyHistogramMXBean {
+    private static final int SUB_BITS = 3, SUB = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 36; // 2^36 µs
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong(), max = new AtomicLong();
+
+    void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucket(nanos / 1000));
+        total.addAndGet(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    static int bucket(long micros) {
+        if (micros < SUB) return (int) micros;
+        int e = 63 - Long.numberOfLeadingZeros(micros);
+        if (e > MAX_EXPONENT) return BUCKETS - 1;
+        return (e - SUB_BITS + 1) * SUB + (int) (micros >>> (e - SUB_BITS) & (SUB - 1));
+    }
+
+    /** Smallest value in microseconds that falls in bucket {@code i + 1}. */
+    static long upperMicros(int i) {
+        int next = i + 1;
+        if (next < SUB) return next;
+        int e = next / SUB + SUB_BITS - 1;
+        return (long) (SUB + next % SUB) << (e - SUB_BITS);
+    }
+
+    Snapshot snapshot() {
+        long[] c = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) c[i] = counts.get(i);
+        return new Snapshot(c, total.get(), max.get());
+    }
+
+    @Override public long getCount() { return snapshot().count(); }
+    @Override public double getMeanMillis() { return snapshot().meanMillis(); }
+    @Override public double getP50Millis() { return snapshot().percentileMillis(0.50); }
+    @Override public double getP90Millis() { return snapshot().percentileMillis(0.90); }
+    @Override public double getP99Millis() { return snapshot().percentileMillis(0.99); }
+    @Override public double getP999Millis() { return snapshot().percentileMillis(0.999); }
+    @Override public double getMaxMillis() { return max.get() / 1e6; }
+    @Override public String[] getBuckets() { return snapshot().buckets().toArray(new String[0]); }
+
+    /** Counts at one moment; two snapshots subtract to the values recorded in between. */
+    static final class Snapshot {
+        final long[] counts;
+        final long totalNanos, maxNanos;
+
+        Snapshot(long[] counts, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        static Snapshot empty() {
+            return new Snapshot(new long[BUCKETS], 0, 0);
+        }
+
+        /**
+         * Values recorded since {@code earlier}. The maximum of the interval is
+         * not kept, so it is estimated from its highest bucket.
+         */
+        Snapshot since(Snapshot earlier) {
+            long[] c = new long[BUCKETS];
+            int top = -1;
+            for (int i = 0; i < BUCKETS; i++) {
+                c[i] = counts[i] - earlier.counts[i];
+                if (c[i] > 0) top = i;
+            }
+            long maxNanos = top < 0 ? 0 : Math.min(this.maxNanos, upperMicros(top) * 1000);
+            return new Snapshot(c, totalNanos - earlier.totalNanos, maxNanos);
+        }
+
+        long count() {
+            long n = 0;
+            for (long c : counts) n += c;
+            return n;
+        }
+
+        double meanMillis() {
+            long n = count();
+            return n == 0 ? 0 : totalNanos / 1e6 / n;
+        }
+
+        /** Upper bound of the bucket holding quantile {@code q}, capped at the maximum. */
+        double percentileMillis(double q) {
+            long n = count();
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * n)), seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(upperMicros(i) * 1000, maxNanos) / 1e6;
+            }
+            return maxNanos / 1e6;
+        }
+
+        List<String> buckets() {
+            List<String> out = new ArrayList<>();
+            for (int i = 0; i < BUCKETS; i++) {
+                if (counts[i] > 0) out.add(formatMillis(upperMicros(i) / 1e3) + ": " + counts[i]);
+            }
+            return out;
+        }
+
+        /** One line: count, mean, percentiles, max, then the buckets as {@code <=bound:count}. */
+        String report() {
+            StringBuilder b = new StringBuilder(160);
+            b.append("n=").append(count())
+                    .append(" mean=").append(formatMillis(meanMillis()))
+                    .append(" p50=").append(formatMillis(percentileMillis(0.50)))
+                    .append(" p90=").append(formatMillis(percentileMillis(0.90)))
+                    .append(" p99=").append(formatMillis(percentileMillis(0.99)))
+                    .append(" max=").append(formatMillis(maxNanos / 1e6))
+                    .append(" hist=");
+            for (int i = 0; i < BUCKETS; i++) {
+                if (counts[i] > 0) b.append(" <=").append(formatMillis(upperMicros(i) / 1e3)).append(':').append(counts[i]);
+            }
+            return b.toString();
+        }
+    }
+
+    static String formatMillis(double ms) {
+        return ms >= 100 ? String.format("%.0fms", ms) : ms >= 1 ? String.format("%.1fms", ms) : String.format("%.3fms", ms);
+    }
+}
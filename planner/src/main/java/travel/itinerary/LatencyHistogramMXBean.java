@@ -0,0 +1,21 @@
+package travel.itinerary;
+
+/** JMX view of a {@link LatencyHistogram}; times in milliseconds since start-up. */
+public interface LatencyHistogramMXBean {
+    long getCount();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+
+    /** Non-empty buckets as "upper bound: count", smallest first. */
+    String[] getBuckets();
+}
@@ -0,0 +1,234 @@
+package travel.itinerary;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Load generator for {@link ItineraryServer}:
+ * {@code ItineraryPlanner --loadtest http://127.0.0.1:8765 [threads] [seconds] [write-percent]}.
+ *
+ * Seeds a {@code loadtest} trip unless the server already has one, then runs
+ * closed-loop workers for the given time after a one-second warm-up. Reads
+ * are filtered queries and trip listings; writes add rows and delete the
+ * worker's own earlier rows, and each worker deletes the rows it still owns
+ * when time is up, so the trip keeps its size from run to run. Prints requests per second and latency
+ * percentiles for reads, writes and overall. Only successful requests are
+ * timed; failed ones in the measured window are counted apart.
+ */
+final class LoadTestClient {
+    static final String TRIP = "loadtest";
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+    private static final String[] WORDS = {"louvre", "food", "evening", "market", "paris", "photos"};
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5)).build();
+    private final String base;
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicReference<String> firstError = new AtomicReference<>();
+
+    LoadTestClient(String base) {
+        this.base = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+    }
+
+    /** Entry point for {@code --loadtest}; returns the process exit code. */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        if (args.length < 1 || args.length > 4) {
+            err.println("usage: ItineraryPlanner --loadtest <base-url> [threads] [seconds] [write-percent]");
+            return 2;
+        }
+        int threads, seconds, writes;
+        try {
+            threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+            seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+            writes = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        } catch (NumberFormatException ex) {
+            threads = seconds = writes = -1;
+        }
+        if (threads < 1 || seconds < 1 || writes < 0 || writes > 100) {
+            err.println("threads and seconds must be positive and write-percent 0-100");
+            return 2;
+        }
+        LoadTestClient test = new LoadTestClient(args[0]);
+        try {
+            test.seed();
+        } catch (IOException | InterruptedException ex) {
+            err.println("Could not reach " + args[0] + ": " + ex);
+            return 1;
+        }
+        Worker[] workers = new Worker[threads];
+        Thread[] running = new Thread[threads];
+        long start = System.nanoTime(), measureFrom = start + WARMUP_NANOS, end = measureFrom + seconds * 1_000_000_000L;
+        for (int i = 0; i < threads; i++) {
+            workers[i] = test.new Worker(writes, measureFrom, end);
+            running[i] = new Thread(workers[i], "loadtest-" + i);
+            running[i].start();
+        }
+        try {
+            for (Thread t : running) t.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+        Samples reads = new Samples(), written = new Samples();
+        long failed = 0;
+        for (Worker w : workers) {
+            reads.addAll(w.reads);
+            written.addAll(w.writes);
+            failed += w.failed;
+        }
+        Samples all = new Samples();
+        all.addAll(reads);
+        all.addAll(written);
+        out.printf("%s: %d threads, %d s, %d%% writes%n", test.base, threads, seconds, writes);
+        out.printf("%,d requests, %,.0f req/s, %,d failed, %d errors in all%n",
+                all.size, all.size / (double) seconds, failed, test.errors.get());
+        out.println(all.report("all   "));
+        out.println(reads.report("reads "));
+        out.println(written.report("writes"));
+        if (test.firstError.get() != null) out.println("first error: " + test.firstError.get());
+        return test.errors.get() == 0 ? 0 : 1;
+    }
+
+    private void seed() throws IOException, InterruptedException {
+        int existing = send(HttpRequest.newBuilder(uri("/trips/" + TRIP + "?text=" + WORDS[0])).GET().build()).statusCode();
+        if (existing == 200) return;
+        if (existing != 404) throw new IOException("looking up " + TRIP + " returned HTTP " + existing);
+        int status = send(HttpRequest.newBuilder(uri("/trips/" + TRIP + "/generate"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"City\": \"Paris\", \"Days\": 30}")).build()).statusCode();
+        if (status != 201) throw new IOException("seeding returned HTTP " + status);
+    }
+
+    private URI uri(String path) {
+        return URI.create(base + path);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /** One closed-loop client: a request, its response, then the next request. */
+    private final class Worker implements Runnable {
+        final Samples reads = new Samples(), writes = new Samples();
+        long failed; // measured requests that did not succeed
+        private final int writePercent;
+        private final long measureFrom, end;
+        private final int[] own = new int[64]; // ids this worker added and has not deleted yet
+        private int owned;
+
+        Worker(int writePercent, long measureFrom, long end) {
+            this.writePercent = writePercent;
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            while (true) {
+                long t0 = System.nanoTime();
+                if (t0 >= end) {
+                    cleanUp();
+                    return;
+                }
+                boolean write = rnd.nextInt(100) < writePercent, ok = false;
+                try {
+                    ok = write ? write(rnd) : read(rnd);
+                } catch (IOException ex) {
+                    error((write ? "write: " : "read: ") + ex);
+                } catch (InterruptedException ex) {
+                    cleanUp(); // the flag is clear again, so the deletes can still go out
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long t1 = System.nanoTime();
+                if (t0 < measureFrom) continue;
+                if (ok) (write ? writes : reads).add(t1 - t0);
+                else failed++;
+            }
+        }
+
+        /** Deletes the rows this worker added and has not deleted yet; not measured. */
+        private void cleanUp() {
+            try {
+                while (owned > 0) delete(own[--owned]);
+            } catch (IOException ex) {
+                error("clean-up: " + ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private boolean delete(int id) throws IOException, InterruptedException {
+            return check(send(HttpRequest.newBuilder(uri("/trips/" + TRIP + "/rows/" + id)).DELETE().build()), 200);
+        }
+
+        private boolean read(ThreadLocalRandom rnd) throws IOException, InterruptedException {
+            String path = rnd.nextInt(4) == 0 ? "/trips" : "/trips/" + TRIP + "?text=" + WORDS[rnd.nextInt(WORDS.length)];
+            return check(send(HttpRequest.newBuilder(uri(path)).GET().build()), 200);
+        }
+
+        private boolean write(ThreadLocalRandom rnd) throws IOException, InterruptedException {
+            if (owned > 0 && (owned == own.length || rnd.nextBoolean())) return delete(own[--owned]);
+            String body = "{\"Date\": \"2026-06-" + (10 + rnd.nextInt(20)) + "\", \"Time\": \"1" + rnd.nextInt(10)
+                    + ":00\", \"City\": \"Paris\", \"Activity\": \"Load test stop " + rnd.nextInt(1000) + "\", \"Duration\": \"1h\"}";
+            HttpResponse<String> r = send(HttpRequest.newBuilder(uri("/trips/" + TRIP + "/rows"))
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build());
+            if (!check(r, 201)) return false;
+            String s = r.body();
+            int at = s.indexOf("\"id\": ") + 6;
+            int stop = at;
+            while (stop < s.length() && Character.isDigit(s.charAt(stop))) stop++;
+            if (stop > at) own[owned++] = Integer.parseInt(s.substring(at, stop));
+            return true;
+        }
+
+        private boolean check(HttpResponse<String> r, int expected) {
+            if (r.statusCode() == expected) return true;
+            error(r.request().method() + " " + r.uri().getRawPath() + ": HTTP " + r.statusCode() + " " + r.body().trim());
+            return false;
+        }
+    }
+
+    private void error(String what) {
+        errors.incrementAndGet();
+        firstError.compareAndSet(null, what);
+    }
+
+    /** Latencies in nanoseconds. */
+    private static final class Samples {
+        long[] nanos = new long[1024];
+        int size;
+
+        void add(long v) {
+            if (size == nanos.length) nanos = Arrays.copyOf(nanos, size * 2);
+            nanos[size++] = v;
+        }
+
+        void addAll(Samples s) {
+            if (size + s.size > nanos.length) nanos = Arrays.copyOf(nanos, Math.max(size + s.size, nanos.length * 2));
+            System.arraycopy(s.nanos, 0, nanos, size, s.size);
+            size += s.size;
+        }
+
+        String report(String label) {
+            if (size == 0) return label + ": no requests";
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            return String.format("%s: p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms",
+                    label, ms(sorted, 0.50), ms(sorted, 0.90), ms(sorted, 0.99), ms(sorted, 0.999), sorted[size - 1] / 1e6);
+        }
+
+        private static double ms(long[] sorted, double q) {
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(q * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
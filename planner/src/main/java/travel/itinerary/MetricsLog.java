@@ -0,0 +1,88 @@
+package travel.itinerary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Appends what the histograms recorded since the previous write to a text
+ * file: one line per histogram that saw anything (count, mean, percentiles
+ * and the non-empty buckets), then the stalls of the interval with their
+ * stacks. Once the file reaches {@code maxBytes} it is rolled to
+ * {@code .1}, {@code .2}, ... and the oldest of {@code files} is dropped.
+ */
+final class MetricsLog {
+    static final long DEFAULT_INTERVAL_SECONDS = 60;
+    static final long DEFAULT_MAX_BYTES = 1 << 20;
+    static final int FILES = 5;
+
+    private final Path file;
+    private final long maxBytes;
+    private final int files;
+    private final Map<String, LatencyHistogram> histograms;
+    private final Map<String, LatencyHistogram.Snapshot> previous = new LinkedHashMap<>();
+    private final EdtWatchdog watchdog; // may be null
+    private long lastWrite = System.currentTimeMillis();
+
+    /** @param histograms by the label they are logged under, in log order */
+    MetricsLog(Path file, long maxBytes, int files, Map<String, LatencyHistogram> histograms, EdtWatchdog watchdog) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.files = files;
+        this.histograms = histograms;
+        this.watchdog = watchdog;
+        histograms.forEach((label, h) -> previous.put(label, h.snapshot()));
+    }
+
+    /** {@code $itinerary.metrics.log}, or null when no log is wanted. */
+    static Path configuredFile() {
+        String p = System.getProperty("itinerary.metrics.log");
+        return p == null || p.isEmpty() ? null : Paths.get(p);
+    }
+
+    synchronized void write() throws IOException {
+        long now = System.currentTimeMillis();
+        StringBuilder b = new StringBuilder(1024);
+        b.append(Instant.ofEpochMilli(now)).append(" last ").append((now - lastWrite + 500) / 1000).append(" s\n");
+        int width = 0;
+        for (String label : histograms.keySet()) width = Math.max(width, label.length());
+        for (Map.Entry<String, LatencyHistogram> e : histograms.entrySet()) {
+            LatencyHistogram.Snapshot current = e.getValue().snapshot();
+            LatencyHistogram.Snapshot interval = current.since(previous.put(e.getKey(), current));
+            if (interval.count() == 0) continue;
+            b.append("  ").append(e.getKey());
+            for (int i = e.getKey().length(); i < width; i++) b.append(' ');
+            b.append("  ").append(interval.report()).append('\n');
+        }
+        if (watchdog != null) {
+            for (EdtWatchdog.Stall s : watchdog.stallsSince(lastWrite)) {
+                b.append("  ").append(s.report().replace("\n", "\n  ")).append('\n');
+            }
+        }
+        lastWrite = now;
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        if (Files.exists(file) && Files.size(file) >= maxBytes) roll();
+        Files.write(file, b.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void roll() throws IOException {
+        Files.deleteIfExists(numbered(files - 1));
+        for (int i = files - 2; i >= 1; i--) {
+            Path f = numbered(i);
+            if (Files.exists(f)) Files.move(f, numbered(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(file, numbered(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path numbered(int i) {
+        return file.resolveSibling(file.getFileName() + "." + i);
+    }
+}
@@ -0,0 +1,366 @@
+package travel.itinerary;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Multi-core CSV import. The file is memory-mapped and cut into byte ranges
+ * that start on record boundaries; the ranges are parsed in parallel straight
+ * from the mapped bytes and handed back in file order.
+ *
+ * Boundaries are exact: a first parallel pass counts quote bytes per chunk, the
+ * running parity gives the quote state at every chunk start, and each chunk
+ * then scans forward to its first record terminator outside quotes. Doubled
+ * quotes flip the state twice, so they need no special case. Parsing follows
+ * {@link CsvRecordReader} rule for rule, so the rows match a serial load.
+ */
+final class ParallelCsvImporter {
+    static final int DEFAULT_CHUNK_BYTES = 8 << 20;
+
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+
+    ParallelCsvImporter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    ParallelCsvImporter(ForkJoinPool pool, int chunkBytes) {
+        if (chunkBytes < 2) throw new IllegalArgumentException("chunkBytes " + chunkBytes);
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /** Receives parsed blocks in file order together with how far the import has got. */
+    interface Sink {
+        void accept(List<ItineraryTableModel.RowBlock> blocks, long bytesDone, long totalBytes);
+    }
+
+    /**
+     * Parses {@code file} (header record skipped) into blocks for {@code model}.
+     * {@code sink} receives each range's blocks on the calling thread, in file
+     * order, as soon as that range and all ranges before it are done.
+     *
+     * @return the number of rows parsed, or -1 if {@code cancelled} stopped the import
+     */
+    int importFile(Path file, ItineraryTableModel model, int blockRows,
+                   Sink sink, BooleanSupplier cancelled) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = recordBoundaries(ch);
+            List<ForkJoinTask<List<ItineraryTableModel.RowBlock>>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long from = bounds[i], to = bounds[i + 1];
+                boolean header = i == 0;
+                tasks.add(pool.submit(() -> parseRange(ch, from, to, header, model, blockRows, cancelled)));
+            }
+            int rows = 0;
+            try {
+                for (int i = 0; i < tasks.size(); i++) {
+                    List<ItineraryTableModel.RowBlock> blocks = tasks.get(i).join();
+                    if (cancelled.getAsBoolean()) return -1;
+                    for (ItineraryTableModel.RowBlock b : blocks) rows += b.size();
+                    sink.accept(blocks, bounds[i + 1], bounds[bounds.length - 1]);
+                }
+            } finally {
+                for (ForkJoinTask<?> t : tasks) t.cancel(false);
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Returns ascending record-start offsets, beginning with 0 and ending with
+     * the file size; consecutive pairs are ranges that can be parsed on their own.
+     */
+    long[] recordBoundaries(FileChannel ch) throws IOException {
+        long size = ch.size();
+        int chunks = (int) Math.max(1, (size + chunkBytes - 1) / chunkBytes);
+        long[] nominal = new long[chunks + 1];
+        for (int i = 0; i <= chunks; i++) nominal[i] = Math.min(size, (long) i * chunkBytes);
+
+        List<ForkJoinTask<Integer>> counts = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            long from = nominal[i], to = nominal[i + 1];
+            counts.add(pool.submit(() -> countQuotes(ch, from, to)));
+        }
+        boolean[] inQuotes = new boolean[chunks];
+        int parity = 0;
+        for (int i = 0; i < chunks; i++) {
+            inQuotes[i] = (parity & 1) == 1;
+            parity ^= counts.get(i).join() & 1;
+        }
+
+        List<ForkJoinTask<Long>> starts = new ArrayList<>(chunks);
+        for (int i = 1; i < chunks; i++) {
+            long from = nominal[i], to = nominal[i + 1];
+            boolean q = inQuotes[i];
+            starts.add(pool.submit(() -> firstRecordStart(ch, from, to, q)));
+        }
+        long[] bounds = new long[chunks + 1];
+        int n = 0;
+        bounds[n++] = 0;
+        for (ForkJoinTask<Long> t : starts) {
+            long s = t.join();
+            if (s >= 0) bounds[n++] = s;
+        }
+        bounds[n++] = size;
+        return Arrays.copyOf(bounds, n);
+    }
+
+    private static int countQuotes(FileChannel ch, long from, long to) throws IOException {
+        if (to <= from) return 0;
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        int n = 0;
+        for (int i = 0, len = buf.limit(); i < len; i++) if (buf.get(i) == '"') n++;
+        return n;
+    }
+
+    /**
+     * First offset in [from, to) where a record begins, given the quote state
+     * just before {@code from}, or -1 if no record starts in the chunk.
+     */
+    private static long firstRecordStart(FileChannel ch, long from, long to, boolean inQuotes) throws IOException {
+        long base = from - 1; // the byte before the chunk tells whether it opens on a record start
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, base, to - base);
+        int limit = buf.limit();
+        for (int i = 0; i < limit; i++) {
+            byte b = buf.get(i);
+            if (i > 0 && b == '"') inQuotes = !inQuotes;
+            if (inQuotes || (b != '\n' && b != '\r')) continue;
+            if (i + 1 >= limit) return -1; // the next chunk starts on this boundary
+            if (b == '\r' && buf.get(i + 1) == '\n') continue;
+            return base + i + 1;
+        }
+        return -1;
+    }
+
+    /** Parses the records in [from, to); {@code from} must be a record start. */
+    static List<ItineraryTableModel.RowBlock> parseRange(FileChannel ch, long from, long to, boolean skipHeader,
+                                                         ItineraryTableModel model, int blockRows,
+                                                         BooleanSupplier cancelled) throws IOException {
+        List<ItineraryTableModel.RowBlock> out = new ArrayList<>();
+        if (to <= from) return out;
+        if (to - from > Integer.MAX_VALUE) throw new IOException("CSV record range too large to map: " + (to - from) + " bytes");
+        RangeParser p = new RangeParser(ch.map(FileChannel.MapMode.READ_ONLY, from, to - from), model);
+        ItineraryTableModel.RowBlock block = model.newBlock(blockRows);
+        if (skipHeader) p.skipRecord();
+        while (p.nextRecord(block)) {
+            if (block.isFull()) {
+                out.add(block);
+                if (cancelled.getAsBoolean()) return out;
+                block = model.newBlock(blockRows);
+            }
+        }
+        if (block.size() > 0) out.add(block);
+        return out;
+    }
+
+    /** Byte-level record parser over one mapped range. Not thread-safe; one per task. */
+    private static final class RangeParser {
+        private static final int COLS = ItineraryTableModel.COLS.length;
+
+        private final MappedByteBuffer buf;
+        private final ItineraryTableModel model;
+        private final StringPool strings;
+        // bytes are pulled from the mapping in bulk; per-byte get() on the buffer is much slower
+        private final byte[] window = new byte[1 << 16];
+        private int pos, end;
+
+        // per-column field bytes for the current record
+        private final byte[][] fields = new byte[COLS][64];
+        private final int[] lengths = new int[COLS];
+        private final AsciiSlice slice = new AsciiSlice();
+        private final TextCache cache = new TextCache();
+        private StringPool notesPool; // of the blocks being filled, with the cache of its ids
+        private TextCache noteCache;
+
+        RangeParser(MappedByteBuffer buf, ItineraryTableModel model) {
+            this.buf = buf;
+            this.model = model;
+            this.strings = model.pool();
+        }
+
+        void skipRecord() {
+            while (readRecord() == 0) { }
+        }
+
+        /** Adds the next non-blank record to {@code block}; false at end of range. */
+        boolean nextRecord(ItineraryTableModel.RowBlock block) {
+            int n;
+            while ((n = readRecord()) == 0) { }
+            if (n < 0) return false;
+            for (int c = n; c < COLS; c++) lengths[c] = 0;
+            block.addEncoded(
+                    encodeDate(), encodeTime(),
+                    text(ItineraryTableModel.CITY), text(ItineraryTableModel.ACTIVITY),
+                    encodeDuration(), note(block.notesPool()));
+            return true;
+        }
+
+        /** Same state machine as {@link CsvRecordReader}: 0 blank, -1 end, else field count. */
+        private int readRecord() {
+            if (!more()) return -1;
+            int count = 0, len = 0;
+            boolean inQuotes = false, quoted = false;
+            byte[] field = fields[0];
+            while (more()) {
+                byte b = window[pos++];
+                if (inQuotes) {
+                    if (b == '"') {
+                        if (more() && window[pos] == '"') { field = append(field, count, len++, b); pos++; }
+                        else inQuotes = false;
+                    } else {
+                        field = append(field, count, len++, b);
+                    }
+                } else if (b == '"') {
+                    inQuotes = quoted = true;
+                } else if (b == ',') {
+                    if (count < COLS) lengths[count] = len;
+                    count++;
+                    len = 0;
+                    field = count < COLS ? fields[count] : null;
+                } else if (b == '\n' || b == '\r') {
+                    if (b == '\r' && more() && window[pos] == '\n') pos++;
+                    if (count == 0 && len == 0 && !quoted) return 0;
+                    if (count < COLS) lengths[count] = len;
+                    return count + 1;
+                } else {
+                    field = append(field, count, len++, b);
+                }
+            }
+            if (count < COLS) lengths[count] = len;
+            return count + 1;
+        }
+
+        private boolean more() {
+            if (pos < end) return true;
+            int n = Math.min(window.length, buf.remaining());
+            if (n == 0) return false;
+            buf.get(window, 0, n);
+            pos = 0;
+            end = n;
+            return true;
+        }
+
+        private byte[] append(byte[] field, int col, int at, byte b) {
+            if (field == null) return null; // column beyond the model, dropped
+            if (at == field.length) fields[col] = field = Arrays.copyOf(field, field.length * 2);
+            field[at] = b;
+            return field;
+        }
+
+        private int encodeDate() {
+            int len = lengths[ItineraryTableModel.DATE];
+            if (len == 0) return ItineraryTableModel.NONE;
+            int d = ItineraryTableModel.parseEpochDay(slice.of(fields[ItineraryTableModel.DATE], len));
+            return d != ItineraryTableModel.INVALID ? d : model.encodeDate(decode(ItineraryTableModel.DATE));
+        }
+
+        private short encodeTime() {
+            int len = lengths[ItineraryTableModel.TIME];
+            if (len == 0) return ItineraryTableModel.NO_TIME;
+            int m = ItineraryTableModel.parseMinuteOfDay(slice.of(fields[ItineraryTableModel.TIME], len));
+            return m != ItineraryTableModel.INVALID ? (short) m : model.encodeTime(decode(ItineraryTableModel.TIME));
+        }
+
+        private int encodeDuration() {
+            int len = lengths[ItineraryTableModel.DURATION];
+            if (len == 0) return ItineraryTableModel.NONE;
+            int m = ItineraryTableModel.parseDurationMinutes(slice.of(fields[ItineraryTableModel.DURATION], len));
+            return m != ItineraryTableModel.INVALID ? m : model.encodeDuration(decode(ItineraryTableModel.DURATION));
+        }
+
+        private int text(int col) {
+            byte[] f = fields[col];
+            int len = lengths[col];
+            int id = cache.lookup(f, len);
+            if (id >= 0) return id;
+            id = strings.intern(decode(col));
+            cache.put(f, len, id);
+            return id;
+        }
+
+        private int note(StringPool pool) {
+            if (pool != notesPool) {
+                notesPool = pool;
+                noteCache = new TextCache();
+            }
+            byte[] f = fields[ItineraryTableModel.NOTES];
+            int len = lengths[ItineraryTableModel.NOTES];
+            int id = noteCache.lookup(f, len);
+            if (id >= 0) return id;
+            id = pool.intern(decode(ItineraryTableModel.NOTES));
+            noteCache.put(f, len, id);
+            return id;
+        }
+
+        private String decode(int col) {
+            return new String(fields[col], 0, lengths[col], StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Open-addressing map from field bytes to pool id, so repeated values skip
+     * String creation and the shared pool. Cleared when half full.
+     */
+    private static final class TextCache {
+        private static final int SLOTS = 1 << 15;
+        private final byte[][] keys = new byte[SLOTS][];
+        private final int[] hashes = new int[SLOTS];
+        private final int[] ids = new int[SLOTS];
+        private int size, lastSlot, lastHash;
+
+        int lookup(byte[] f, int len) {
+            int h = 1;
+            for (int i = 0; i < len; i++) h = 31 * h + f[i];
+            int slot = (h ^ (h >>> 16)) & (SLOTS - 1);
+            byte[] k;
+            while ((k = keys[slot]) != null) {
+                if (hashes[slot] == h && Arrays.equals(k, 0, k.length, f, 0, len)) return ids[slot];
+                slot = (slot + 1) & (SLOTS - 1);
+            }
+            lastSlot = slot;
+            lastHash = h;
+            return -1;
+        }
+
+        /** Must follow a missed {@link #lookup} for the same bytes. */
+        void put(byte[] f, int len, int id) {
+            if (size == SLOTS / 2) {
+                Arrays.fill(keys, null);
+                size = 0;
+                lookup(f, len);
+            }
+            keys[lastSlot] = Arrays.copyOf(f, len);
+            hashes[lastSlot] = lastHash;
+            ids[lastSlot] = id;
+            size++;
+        }
+    }
+
+    /** Reusable CharSequence view of ASCII bytes for the primitive parsers. */
+    private static final class AsciiSlice implements CharSequence {
+        private byte[] bytes;
+        private int len;
+
+        AsciiSlice of(byte[] bytes, int len) {
+            this.bytes = bytes;
+            this.len = len;
+            return this;
+        }
+
+        @Override public int length() { return len; }
+        @Override public char charAt(int i) { return (char) (bytes[i] & 0xff); }
+        @Override public CharSequence subSequence(int start, int end) { return toString().substring(start, end); }
+        @Override public String toString() { return new String(bytes, 0, len, StandardCharsets.ISO_8859_1); }
+    }
+}
@@ -0,0 +1,101 @@
+package travel.itinerary;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long the planner's user operations take, and how responsive the EDT is.
+ *
+ * Operations are timed with {@link #start()} and {@link #record}; for work
+ * that finishes in the background, from the click to the result being shown.
+ * {@link #install()} starts the {@link EdtWatchdog} and publishes everything
+ * as MXBeans under {@code travel.itinerary} (one {@link LatencyHistogram} per
+ * operation, plus the watchdog's), and with {@code -Ditinerary.metrics.log=file}
+ * writes a {@link MetricsLog} every {@code itinerary.metrics.logSeconds}
+ * seconds and at exit.
+ *
+ * {@code -Ditinerary.metrics=false} turns all of it off. {@link #ENABLED} is
+ * a static final constant, so the JIT folds the timing calls away: no clock
+ * is read, nothing is recorded and no thread or MBean is created.
+ */
+final class PlannerMetrics {
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("itinerary.metrics", "true"));
+
+    /** The timed user operations. */
+    enum Op {
+        GENERATE("Generate"), LOAD("Load"), SAVE("Save"), EXPORT("Export"), COPY("Copy"), SORT("Sort"),
+        EDIT("Edit"), MOVE("Move");
+
+        final String label;
+        final LatencyHistogram times = new LatencyHistogram();
+
+        Op(String label) {
+            this.label = label;
+        }
+    }
+
+    private static EdtWatchdog watchdog;
+
+    private PlannerMetrics() { }
+
+    /** A start time for {@link #record}; 0 when metrics are off. */
+    static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /** Records one {@code op} that began at {@code startNanos}. */
+    static void record(Op op, long startNanos) {
+        if (ENABLED) op.times.record(System.nanoTime() - startNanos);
+    }
+
+    /** Starts the watchdog, the MXBeans and the log; later calls do nothing. */
+    static synchronized void install() {
+        if (!ENABLED || watchdog != null) return;
+        watchdog = new EdtWatchdog(EdtWatchdog.defaultThresholdMillis());
+        watchdog.start();
+
+        Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+        for (Op op : Op.values()) histograms.put(op.label, op.times);
+        histograms.put("EDT lag", watchdog.lag());
+        histograms.put("EDT stall", watchdog.stalls());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(watchdog, new ObjectName("travel.itinerary:type=EdtWatchdog"));
+            for (Map.Entry<String, LatencyHistogram> e : histograms.entrySet()) {
+                server.registerMBean(e.getValue(), new ObjectName("travel.itinerary:type=Latency,name=" + e.getKey().replace(' ', '-')));
+            }
+        } catch (JMException ex) {
+            System.err.println("Could not register metrics MBeans: " + ex);
+        }
+
+        Path file = MetricsLog.configuredFile();
+        if (file == null) return;
+        MetricsLog log = new MetricsLog(file, Long.getLong("itinerary.metrics.logBytes", MetricsLog.DEFAULT_MAX_BYTES),
+                MetricsLog.FILES, histograms, watchdog);
+        long seconds = Math.max(1, Long.getLong("itinerary.metrics.logSeconds", MetricsLog.DEFAULT_INTERVAL_SECONDS));
+        ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-log");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.scheduleAtFixedRate(() -> write(log), seconds, seconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> write(log)));
+    }
+
+    private static void write(MetricsLog log) {
+        try {
+            log.write();
+        } catch (IOException ex) {
+            System.err.println("Could not write metrics log: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package travel.itinerary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Points of interest with coordinates, read from a local CSV file:
+ * <pre>
+ * Name,City,Latitude,Longitude
+ * Louvre,Paris,48.8606,2.3376
+ * Eiffel Tower,Paris,48.8584,2.2945
+ * </pre>
+ * An activity is placed at the longest POI name of its city that it contains,
+ * so "Morning: Louvre and the Seine" resolves to the Louvre. Names and cities
+ * are matched case-insensitively.
+ */
+final class PoiCatalog {
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final Map<String, List<Poi>> byCity;
+    private final double[] lat, lon; // radians, indexed by POI number
+
+    private PoiCatalog(Map<String, List<Poi>> byCity, double[] lat, double[] lon) {
+        this.byCity = byCity;
+        this.lat = lat;
+        this.lon = lon;
+    }
+
+    /** {@code $itinerary.poi} if set, else {@code poi.csv} in the data directory. */
+    static Path defaultFile() {
+        String p = System.getProperty("itinerary.poi");
+        return p != null ? Paths.get(p) : ItineraryJournal.defaultDirectory().resolve("poi.csv");
+    }
+
+    static PoiCatalog load(Path file) throws IOException {
+        Map<String, List<Poi>> byCity = new HashMap<>();
+        List<double[]> coords = new ArrayList<>();
+        try (CsvRecordReader reader = new CsvRecordReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            String[] f = new String[4];
+            int line = 0, n;
+            while ((n = reader.next(f)) >= 0) {
+                line++;
+                if (line == 1 && f[0].trim().equalsIgnoreCase("name")) continue; // header
+                String name = key(f[0]);
+                if (n < 4 || name.isEmpty()) throw new IOException(file + " record " + line + ": expected Name,City,Latitude,Longitude");
+                double la, lo;
+                try {
+                    la = Double.parseDouble(f[2].trim());
+                    lo = Double.parseDouble(f[3].trim());
+                } catch (NumberFormatException ex) {
+                    la = lo = Double.NaN;
+                }
+                if (!(Math.abs(la) <= 90 && Math.abs(lo) <= 180)) {
+                    throw new IOException(file + " record " + line + ": bad coordinates " + f[2] + "," + f[3]);
+                }
+                byCity.computeIfAbsent(key(f[1]), k -> new ArrayList<>()).add(new Poi(name, coords.size()));
+                coords.add(new double[]{Math.toRadians(la), Math.toRadians(lo)});
+            }
+        }
+        // longest names first, so the most specific match wins
+        for (List<Poi> pois : byCity.values()) pois.sort((a, b) -> b.name.length() - a.name.length());
+        double[] lat = new double[coords.size()], lon = new double[coords.size()];
+        for (int i = 0; i < lat.length; i++) {
+            lat[i] = coords.get(i)[0];
+            lon[i] = coords.get(i)[1];
+        }
+        return new PoiCatalog(byCity, lat, lon);
+    }
+
+    int size() {
+        return lat.length;
+    }
+
+    /** POI number for an activity in {@code city}, or -1 when none of its POIs is mentioned. */
+    int locate(String city, String activity) {
+        List<Poi> pois = byCity.get(key(city));
+        if (pois == null) return -1;
+        String text = activity.toLowerCase(Locale.ROOT);
+        for (Poi p : pois) {
+            if (text.contains(p.name)) return p.index;
+        }
+        return -1;
+    }
+
+    /** Great-circle distance between two POIs. */
+    double distanceKm(int a, int b) {
+        double dLat = lat[b] - lat[a], dLon = lon[b] - lon[a];
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat[a]) * Math.cos(lat[b]) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    private static String key(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Poi {
+        final String name;
+        final int index;
+
+        Poi(String name, int index) {
+            this.name = name;
+            this.index = index;
+        }
+    }
+}
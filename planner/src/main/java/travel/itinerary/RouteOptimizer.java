@@ -0,0 +1,353 @@
+package travel.itinerary;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Reorders each day's activities to cut the time spent travelling between
+ * them, placing activities with a {@link PoiCatalog}.
+ *
+ * A day is the set of rows sharing a date; the optimised day goes back into
+ * the same row positions, so other days do not move. Rows with a time are
+ * appointments: they keep their chronological order and should not start
+ * late. Rows without one start as soon as the previous activity (plus its
+ * duration and the travel) is over. Activities without coordinates cost no
+ * travel, and the route continues from the last located activity.
+ *
+ * Days of up to {@link #EXACT_STOPS} activities are searched exhaustively with
+ * branch and bound; larger days are improved with 2-opt and relocate moves
+ * from the current order. Every day has its own time budget, keeps the best
+ * order found so far when it runs out, and never ends up worse than it
+ * started. Days are solved in parallel.
+ */
+final class RouteOptimizer {
+    static final int EXACT_STOPS = 9;
+    static final long DEFAULT_BUDGET_MILLIS = 250;
+    /** Average door-to-door speed in town, walking and transit mixed. */
+    static final double KM_PER_HOUR = 20;
+    /** When the day starts for activities before the first appointment. */
+    static final int DAY_START = 8 * 60;
+
+    // a minute late costs more than any detour, so lateness is only traded for lateness
+    private static final double LATE_PENALTY = 10_000;
+    private static final double EPSILON = 1e-6;
+    private static final int MATRIX_STOPS = 1024; // larger days compute distances on demand
+
+    private final StringPool pool;
+    private final PoiCatalog pois;
+    private final long budgetNanos;
+    private final Map<Long, Integer> located = new ConcurrentHashMap<>();
+
+    /** @param pool the pool the rows to optimise were encoded with */
+    RouteOptimizer(StringPool pool, PoiCatalog pois, long budgetMillis) {
+        this.pool = pool;
+        this.pois = pois;
+        this.budgetNanos = budgetMillis * 1_000_000;
+    }
+
+    /**
+     * Computes a new row order for {@code rows}: new row {@code i} is old row
+     * {@code order[i]}, ready for {@link ItineraryTableModel#reorderRows}.
+     * Rows with an unrecognised date stay where they are.
+     */
+    Result optimize(ItineraryTableModel.RowBlock rows) {
+        int n = rows.size();
+        long[] keys = new long[n];
+        int m = 0;
+        for (int r = 0; r < n; r++) {
+            if (ItineraryTableModel.isDateValue(rows.date[r])) keys[m++] = (long) rows.date[r] << 32 | r;
+        }
+        keys = Arrays.copyOf(keys, m);
+        Arrays.parallelSort(keys);
+        // day d owns keys[from[d]..from[d + 1]), in row order
+        int[] from = new int[m + 1];
+        int days = 0;
+        for (int i = 0; i < m; i++) {
+            if (i == 0 || keys[i] >> 32 != keys[i - 1] >> 32) from[days++] = i;
+        }
+        from[days] = m;
+
+        int[] order = new int[n];
+        for (int r = 0; r < n; r++) order[r] = r;
+        Day[] solved = new Day[days];
+        long[] slots = keys;
+        IntStream.range(0, days).parallel().forEach(d -> {
+            int[] rowsOfDay = new int[from[d + 1] - from[d]];
+            for (int i = 0; i < rowsOfDay.length; i++) rowsOfDay[i] = (int) slots[from[d] + i];
+            Day day = new Day(rows, rowsOfDay);
+            day.solve();
+            for (int i = 0; i < rowsOfDay.length; i++) order[rowsOfDay[i]] = rowsOfDay[day.best[i]];
+            solved[d] = day;
+        });
+
+        Result result = new Result(order);
+        for (Day day : solved) {
+            result.days++;
+            result.stops += day.n;
+            for (int p : day.poi) if (p >= 0) result.located++;
+            if (day.changed()) result.changedDays++;
+            if (day.outOfTime) result.outOfTimeDays++;
+            result.travelBefore += day.travel(day.initial);
+            result.travelAfter += day.travel(day.best);
+        }
+        return result;
+    }
+
+    private int locate(ItineraryTableModel.RowBlock rows, int r) {
+        long key = (long) rows.city[r] << 32 | (rows.activity[r] & 0xFFFFFFFFL);
+        return located.computeIfAbsent(key, k -> pois.locate(pool.get(rows.city[r]), pool.get(rows.activity[r])));
+    }
+
+    /** Outcome of {@link #optimize}. */
+    static final class Result {
+        final int[] order;
+        int days, changedDays, outOfTimeDays, stops, located;
+        double travelBefore, travelAfter; // minutes
+
+        private Result(int[] order) {
+            this.order = order;
+        }
+
+        boolean changed() {
+            return changedDays > 0;
+        }
+
+        String report() {
+            StringBuilder b = new StringBuilder();
+            b.append(String.format("Reordered %d of %d days. Travel: %.0f min before, %.0f min after.%n",
+                    changedDays, days, travelBefore, travelAfter));
+            b.append(String.format("%d of %d activities matched a point of interest.", located, stops));
+            if (outOfTimeDays > 0) b.append(String.format("%n%d day(s) hit the time limit and kept the best order found.", outOfTimeDays));
+            return b.toString();
+        }
+    }
+
+    /** One day's stops, numbered 0..n-1 in their current order. */
+    private final class Day {
+        final int n;
+        final int[] poi, fixed, duration; // fixed: minute of day, or -1 for flexible stops
+        final int[] initial;
+        int[] best;
+        boolean outOfTime;
+        private final double[] minutes; // travel matrix between stops, or null
+        private final double start;
+        private long deadline;
+
+        Day(ItineraryTableModel.RowBlock rows, int[] rowsOfDay) {
+            n = rowsOfDay.length;
+            poi = new int[n];
+            fixed = new int[n];
+            duration = new int[n];
+            int earliest = DAY_START;
+            for (int i = 0; i < n; i++) {
+                int r = rowsOfDay[i];
+                poi[i] = locate(rows, r);
+                short t = rows.time[r];
+                fixed[i] = ItineraryTableModel.isTimeValue(t) ? t : -1;
+                if (fixed[i] >= 0) earliest = Math.min(earliest, fixed[i]);
+                int d = rows.duration[r];
+                duration[i] = ItineraryTableModel.isDurationValue(d) ? d : 0;
+            }
+            start = earliest;
+            initial = new int[n];
+            for (int i = 0; i < n; i++) initial[i] = i;
+            minutes = n <= MATRIX_STOPS && n > 1 ? matrix() : null;
+        }
+
+        private double[] matrix() {
+            double[] m = new double[n * n];
+            for (int a = 0; a < n; a++) {
+                for (int b = a + 1; b < n; b++) {
+                    if (poi[a] >= 0 && poi[b] >= 0) m[a * n + b] = m[b * n + a] = minutesBetween(poi[a], poi[b]);
+                }
+            }
+            return m;
+        }
+
+        private double minutesBetween(int poiA, int poiB) {
+            return pois.distanceKm(poiA, poiB) / KM_PER_HOUR * 60;
+        }
+
+        /** Travel from stop {@code a} to stop {@code b}, both located. */
+        private double travel(int a, int b) {
+            return minutes != null ? minutes[a * n + b] : minutesBetween(poi[a], poi[b]);
+        }
+
+        boolean changed() {
+            for (int i = 0; i < n; i++) if (best[i] != i) return true;
+            return false;
+        }
+
+        void solve() {
+            int located = 0;
+            for (int p : poi) if (p >= 0) located++;
+            if (located < 2) { // no travel to save: leave the day exactly as it is
+                best = initial;
+                return;
+            }
+            best = repaired();
+            deadline = System.nanoTime() + budgetNanos;
+            if (n <= EXACT_STOPS) exact(); else improve();
+        }
+
+        /** The current order with the appointments put back in chronological order. */
+        private int[] repaired() {
+            int[] seq = initial.clone();
+            Integer[] appts = IntStream.range(0, n).filter(i -> fixed[i] >= 0).boxed().toArray(Integer[]::new);
+            Arrays.sort(appts, (a, b) -> fixed[a] - fixed[b]); // stable: equal times keep their order
+            for (int i = 0, k = 0; i < n; i++) {
+                if (fixed[seq[i]] >= 0) seq[i] = appts[k++];
+            }
+            return seq;
+        }
+
+        /** Travel minutes along {@code seq}. */
+        double travel(int[] seq) {
+            double total = 0;
+            for (int i = 0, at = -1; i < n; i++) {
+                int s = seq[i];
+                if (poi[s] < 0) continue;
+                if (at >= 0) total += travel(at, s);
+                at = s;
+            }
+            return total;
+        }
+
+        /** Travel plus lateness penalty, or infinity when appointments are out of order. */
+        double cost(int[] seq) {
+            double clock = start, total = 0;
+            for (int i = 0, at = -1, lastFixed = -1; i < n; i++) {
+                int s = seq[i];
+                if (poi[s] >= 0) {
+                    if (at >= 0) {
+                        double t = travel(at, s);
+                        total += t;
+                        clock += t;
+                    }
+                    at = s;
+                }
+                if (fixed[s] >= 0) {
+                    if (fixed[s] < lastFixed) return Double.POSITIVE_INFINITY;
+                    lastFixed = fixed[s];
+                    if (clock > fixed[s]) total += (clock - fixed[s]) * LATE_PENALTY;
+                    else clock = fixed[s];
+                }
+                clock += duration[s];
+            }
+            return total;
+        }
+
+        // ---- exact: depth-first over orders, pruned by the best complete cost ----
+
+        private double bestCost;
+        private int[] path;
+        private int nodes;
+
+        private void exact() {
+            bestCost = cost(best);
+            path = new int[n];
+            search(0, 0, start, -1, 0, -1);
+        }
+
+        private void search(int depth, int used, double clock, int at, double cost, int lastFixed) {
+            if (outOfTime) return;
+            if (depth == n) {
+                if (cost < bestCost - EPSILON) {
+                    bestCost = cost;
+                    best = path.clone();
+                }
+                return;
+            }
+            if ((++nodes & 1023) == 0 && System.nanoTime() > deadline) {
+                outOfTime = true;
+                return;
+            }
+            for (int s = 0; s < n; s++) {
+                if ((used & 1 << s) != 0 || fixed[s] >= 0 && fixed[s] < lastFixed) continue;
+                double c = cost, t = clock;
+                int next = at;
+                if (poi[s] >= 0) {
+                    if (at >= 0) {
+                        double d = travel(at, s);
+                        c += d;
+                        t += d;
+                    }
+                    next = s;
+                }
+                if (fixed[s] >= 0) {
+                    if (t > fixed[s]) c += (t - fixed[s]) * LATE_PENALTY;
+                    else t = fixed[s];
+                }
+                if (c >= bestCost - EPSILON) continue;
+                path[depth] = s;
+                search(depth + 1, used | 1 << s, t + duration[s], next, c, fixed[s] >= 0 ? fixed[s] : lastFixed);
+            }
+        }
+
+        // ---- heuristic: first-improvement 2-opt and relocate until stuck or out of time ----
+
+        private int candidates;
+
+        private void improve() {
+            int[] seq = best, scratch = new int[n];
+            double current = cost(seq);
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (int i = 0; i < n - 1; i++) {
+                    if (System.nanoTime() > deadline) {
+                        outOfTime = true;
+                        return;
+                    }
+                    for (int j = i + 1; j < n; j++) {
+                        if (timeUp()) return;
+                        reverse(seq, i, j);
+                        double c = cost(seq);
+                        if (c < current - EPSILON) {
+                            current = c;
+                            improved = true;
+                        } else {
+                            reverse(seq, i, j);
+                        }
+                    }
+                    for (int j = 0; j < n; j++) {
+                        if (j == i) continue;
+                        if (timeUp()) return;
+                        move(seq, scratch, i, j);
+                        double c = cost(scratch);
+                        if (c < current - EPSILON) {
+                            System.arraycopy(scratch, 0, seq, 0, n);
+                            current = c;
+                            improved = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        /** Each candidate costs O(n), so the clock is read every 64 of them, not once per outer step. */
+        private boolean timeUp() {
+            if ((++candidates & 63) == 0 && System.nanoTime() > deadline) outOfTime = true;
+            return outOfTime;
+        }
+
+        private void reverse(int[] seq, int i, int j) {
+            for (; i < j; i++, j--) {
+                int t = seq[i];
+                seq[i] = seq[j];
+                seq[j] = t;
+            }
+        }
+
+        /** Writes {@code seq} with the stop at {@code i} moved to position {@code j} into {@code out}. */
+        private void move(int[] seq, int[] out, int i, int j) {
+            System.arraycopy(seq, 0, out, 0, n);
+            int s = seq[i];
+            if (i < j) System.arraycopy(seq, i + 1, out, i, j - i);
+            else System.arraycopy(seq, j, out, j + 1, i - j);
+            out[j] = s;
+        }
+    }
+}
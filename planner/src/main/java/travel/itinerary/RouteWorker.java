@@ -0,0 +1,28 @@
+package travel.itinerary;
+
+import javax.swing.SwingWorker;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Runs a {@link RouteOptimizer} off the EDT on a copy of the rows taken when
+ * it starts; the caller applies the resulting order if the table has not
+ * changed in the meantime.
+ */
+class RouteWorker extends SwingWorker<RouteOptimizer.Result, Void> {
+    private final Path poiFile;
+    private final StringPool pool;
+    private final ItineraryTableModel.RowBlock rows;
+
+    RouteWorker(Path poiFile, StringPool pool, ItineraryTableModel.RowBlock rows) {
+        this.poiFile = poiFile;
+        this.pool = pool;
+        this.rows = rows;
+    }
+
+    @Override
+    protected RouteOptimizer.Result doInBackground() throws IOException {
+        PoiCatalog pois = PoiCatalog.load(poiFile);
+        return new RouteOptimizer(pool, pois, RouteOptimizer.DEFAULT_BUDGET_MILLIS).optimize(rows);
+    }
+}
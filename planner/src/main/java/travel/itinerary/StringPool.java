@@ -0,0 +1,56 @@
+package travel.itinerary;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only dictionary that maps strings to dense int ids.
+ * Lookups are lock-free; new ids are assigned under the pool lock so the pool
+ * can be shared by background loaders and the EDT at the same time.
+ */
+final class StringPool {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] strings = new String[256];
+    private volatile int size;
+    private long charBytes; // guarded by this
+
+    /** Returns the id for {@code s}, adding it to the pool if it is new. */
+    int intern(String s) {
+        if (s == null) s = "";
+        Integer id = ids.get(s);
+        if (id != null) return id;
+        synchronized (this) {
+            id = ids.get(s);
+            if (id != null) return id;
+            int n = size;
+            String[] arr = strings;
+            if (n == arr.length) arr = Arrays.copyOf(arr, n * 2);
+            arr[n] = s;
+            strings = arr;
+            size = n + 1;
+            charBytes += s.length();
+            ids.put(s, n);
+            return n;
+        }
+    }
+
+    /** Returns the id for {@code s}, or -1 when it has never been interned. */
+    int find(String s) {
+        Integer id = ids.get(s == null ? "" : s);
+        return id == null ? -1 : id;
+    }
+
+    String get(int id) {
+        return strings[id];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Rough heap footprint: one String plus backing array and map entry per id. */
+    synchronized long estimatedBytes() {
+        // String (24) + byte[] header (16) + HashMap node (32) + boxed id (16) + array slot (4)
+        return (long) size * 92 + charBytes;
+    }
+}
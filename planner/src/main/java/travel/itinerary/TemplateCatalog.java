@@ -0,0 +1,164 @@
+package travel.itinerary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Activity templates for itinerary generation, read from a CSV file:
+ * <pre>
+ * Scope,Key,Time,Activity,Duration,Notes
+ * default,,09:00,Morning: Explore {city} landmarks,3h,Start early to avoid crowds
+ * category,beach,10:00,Beach morning near {city},3h,Sunscreen!
+ * member,beach,Barcelona
+ * city,Paris,09:00,Day {day}: Louvre and the Seine,3h,Book tickets online
+ * </pre>
+ * A city uses its own templates if it has any, else those of its category
+ * ({@code member} rows assign cities to categories), else the defaults. City
+ * and category names are matched case-insensitively. Activity and Notes may
+ * use {@code {city}} and {@code {day}} (1-based day of the trip); they are
+ * compiled once when the file is read.
+ */
+final class TemplateCatalog {
+    /** The three generic slots the planner has always generated. */
+    static final TemplateCatalog BUILT_IN = new TemplateCatalog(0, Collections.emptyMap(), Collections.emptyMap(),
+            Collections.emptyMap(), List.of(
+                    new Template("09:00", "Morning: Explore {city} landmarks", "3h", "Start early to avoid crowds"),
+                    new Template("13:00", "Afternoon: Local food & market in {city}", "2h", "Try recommended local dishes"),
+                    new Template("18:30", "Evening: Relax / nightlife / sunset views in {city}", "2h", "Great time for photos")));
+
+    private final long version;
+    private final Map<String, List<Template>> byCity, byCategory;
+    private final Map<String, String> categoryOf;
+    private final List<Template> defaults;
+
+    private TemplateCatalog(long version, Map<String, List<Template>> byCity, Map<String, List<Template>> byCategory,
+                            Map<String, String> categoryOf, List<Template> defaults) {
+        this.version = version;
+        this.byCity = byCity;
+        this.byCategory = byCategory;
+        this.categoryOf = categoryOf;
+        this.defaults = defaults;
+    }
+
+    /**
+     * Reads {@code file}. Without {@code default} rows the built-in templates
+     * remain the fallback.
+     */
+    static TemplateCatalog load(Path file, long version) throws IOException {
+        Map<String, List<Template>> byCity = new HashMap<>(), byCategory = new HashMap<>();
+        Map<String, String> categoryOf = new HashMap<>();
+        List<Template> defaults = new ArrayList<>();
+        try (CsvRecordReader reader = new CsvRecordReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            String[] f = new String[6];
+            int line = 0, n;
+            while ((n = reader.next(f)) >= 0) {
+                line++;
+                String scope = f[0].trim().toLowerCase(Locale.ROOT), key = key(f[1]);
+                if (line == 1 && scope.equals("scope")) continue; // header
+                switch (scope) {
+                    case "default": defaults.add(template(f, n, file, line)); break;
+                    case "city": byCity.computeIfAbsent(key, k -> new ArrayList<>()).add(template(f, n, file, line)); break;
+                    case "category": byCategory.computeIfAbsent(key, k -> new ArrayList<>()).add(template(f, n, file, line)); break;
+                    case "member": categoryOf.put(key(f[2]), key); break;
+                    default: throw new IOException(file + " record " + line + ": unknown scope \"" + f[0] + "\"");
+                }
+            }
+        }
+        return new TemplateCatalog(version, byCity, byCategory, categoryOf,
+                defaults.isEmpty() ? BUILT_IN.defaults : defaults);
+    }
+
+    /** Changes whenever the templates do; part of the plan cache key. */
+    long version() {
+        return version;
+    }
+
+    /** Templates to use for each day in {@code city}. */
+    List<Template> templatesFor(String city) {
+        String key = key(city);
+        List<Template> t = byCity.get(key);
+        if (t != null) return t;
+        String category = categoryOf.get(key);
+        if (category != null && (t = byCategory.get(category)) != null) return t;
+        return defaults;
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Template template(String[] f, int n, Path file, int line) throws IOException {
+        if (n < 4 || f[3].trim().isEmpty()) throw new IOException(file + " record " + line + ": missing activity");
+        return new Template(f[2].trim(), f[3], f[4].trim(), f[5]);
+    }
+
+    /** One activity slot; Activity and Notes are pre-split around their placeholders. */
+    static final class Template {
+        final String time, duration;
+        private final Text activity, notes;
+
+        Template(String time, String activity, String duration, String notes) {
+            this.time = time;
+            this.duration = duration;
+            this.activity = Text.compile(activity);
+            this.notes = Text.compile(notes);
+        }
+
+        String activity(String city, int day) { return activity.render(city, day); }
+        String notes(String city, int day) { return notes.render(city, day); }
+
+        /** Whether the text differs from day to day, i.e. uses {@code {day}}. */
+        boolean perDay() { return activity.perDay || notes.perDay; }
+    }
+
+    /** Literal parts interleaved with placeholder codes. */
+    private static final class Text {
+        private static final int CITY = 0, DAY = 1;
+
+        private final String[] literals; // literals.length == codes.length + 1
+        private final int[] codes;
+        private final boolean perDay;
+
+        private Text(String[] literals, int[] codes) {
+            this.literals = literals;
+            this.codes = codes;
+            boolean d = false;
+            for (int c : codes) d |= c == DAY;
+            this.perDay = d;
+        }
+
+        static Text compile(String s) {
+            List<String> literals = new ArrayList<>();
+            List<Integer> codes = new ArrayList<>();
+            int from = 0;
+            for (int i = s.indexOf('{'); i >= 0; i = s.indexOf('{', i + 1)) {
+                int code = s.startsWith("{city}", i) ? CITY : s.startsWith("{day}", i) ? DAY : -1;
+                if (code < 0) continue; // not a placeholder; keep the brace
+                literals.add(s.substring(from, i));
+                codes.add(code);
+                from = i + (code == CITY ? "{city}" : "{day}").length();
+                i = from - 1;
+            }
+            literals.add(s.substring(from));
+            return new Text(literals.toArray(new String[0]), codes.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        String render(String city, int day) {
+            if (codes.length == 0) return literals[0];
+            StringBuilder b = new StringBuilder(64).append(literals[0]);
+            for (int i = 0; i < codes.length; i++) {
+                if (codes[i] == CITY) b.append(city); else b.append(day);
+                b.append(literals[i + 1]);
+            }
+            return b.toString();
+        }
+    }
+}
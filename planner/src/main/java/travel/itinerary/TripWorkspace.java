@@ -0,0 +1,306 @@
+package travel.itinerary;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A directory of trip files ({@code *.csv} in the Save CSV format).
+ *
+ * The directory is indexed up front (name, size, modification time) and kept
+ * current by a {@link WatchService} thread. A trip's rows are parsed only when
+ * it is opened, and kept as an exact-size block so reopening it is a copy.
+ * Loaded trips are evicted least recently opened first once together they
+ * exceed the resident row budget. A block whose file changed on disk is
+ * dropped and parsed again on the next open.
+ *
+ * Every trip is encoded against one model, so all trips share its City and
+ * Activity {@link StringPool}: a city or activity that appears in a hundred
+ * trips is one String on the heap. Notes are mostly unique, so each trip is
+ * parsed with a notes pool of its own that goes away with the trip's block;
+ * evicting a trip frees its notes along with its int columns.
+ * Safe to use from several threads.
+ */
+final class TripWorkspace implements AutoCloseable {
+    static final long DEFAULT_RESIDENT_ROWS = 2_000_000;
+
+    private final Path dir;
+    private final ItineraryTableModel encoder;
+    private final long residentRows;
+    private final Map<Path, Trip> trips = new TreeMap<>();
+    private final LinkedHashMap<Path, Trip> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final WatchService watcher;
+    private long resident, loads, hits, evictions; // resident: rows of the loaded trips
+
+    /**
+     * @param encoder model whose shared pools every trip is encoded with; blocks
+     *                from {@link #open} can be handed straight to it
+     */
+    TripWorkspace(Path dir, ItineraryTableModel encoder, long residentRows) throws IOException {
+        this.dir = dir;
+        this.encoder = encoder;
+        this.residentRows = residentRows;
+        watcher = dir.getFileSystem().newWatchService();
+        dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        rescan();
+        Thread t = new Thread(this::watch, "trip-workspace-watcher");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** {@code $itinerary.workspace.rows} if set, else {@link #DEFAULT_RESIDENT_ROWS}. */
+    static long defaultResidentRows() {
+        return Long.getLong("itinerary.workspace.rows", DEFAULT_RESIDENT_ROWS);
+    }
+
+    Path directory() {
+        return dir;
+    }
+
+    /** Called on the watcher thread whenever the list of trips or their files change. */
+    void addChangeListener(Runnable l) {
+        listeners.add(l);
+    }
+
+    /** Trips by file name. */
+    synchronized List<Trip> trips() {
+        return new ArrayList<>(trips.values());
+    }
+
+    /**
+     * Returns the rows of the trip in {@code file}, parsing it unless an
+     * up-to-date copy is resident. Treat the block as read-only: it stays
+     * cached and is handed out again. Not to be called on the EDT for large files.
+     */
+    ItineraryTableModel.RowBlock open(Path file) throws IOException {
+        Trip trip;
+        FileTime stamp = Files.getLastModifiedTime(file);
+        synchronized (this) {
+            trip = trips.get(file);
+            if (trip == null) throw new IOException(file.getFileName() + " is not in the workspace");
+            ItineraryTableModel.RowBlock rows = trip.rows;
+            if (rows != null && stamp.equals(trip.loadedStamp)) {
+                loaded.get(file); // touch
+                hits++;
+                return rows;
+            }
+        }
+        ItineraryTableModel.RowBlock rows = parse(file, new ItineraryTableModel(encoder)); // this trip's notes pool
+        synchronized (this) {
+            loads++;
+            if (trips.get(file) != trip) return rows; // deleted or replaced meanwhile; do not cache
+            unload(trip);
+            trip.rows = rows;
+            trip.loadedStamp = stamp;
+            loaded.put(file, trip);
+            resident += rows.size();
+            for (Iterator<Trip> it = loaded.values().iterator(); resident > residentRows && it.hasNext(); ) {
+                Trip eldest = it.next();
+                if (eldest == trip) continue;
+                it.remove();
+                resident -= eldest.rows.size();
+                eldest.rows = null;
+                evictions++;
+            }
+        }
+        fireChanged();
+        return rows;
+    }
+
+    String statsReport() {
+        synchronized (this) {
+            return String.format("%d trips, %d loaded (%,d rows), %d loads, %d hits, %d evictions; %,d shared strings",
+                    trips.size(), loaded.size(), resident, loads, hits, evictions, encoder.pool().size());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+    }
+
+    /** Parses a trip file into one exact-size block encoded against {@code codec}'s pools. */
+    static ItineraryTableModel.RowBlock parse(Path file, ItineraryTableModel codec) throws IOException {
+        List<ItineraryTableModel.RowBlock> blocks = new ArrayList<>();
+        if (Files.size(file) >= CsvLoadWorker.PARALLEL_THRESHOLD) {
+            new ParallelCsvImporter().importFile(file, codec, CsvLoadWorker.BLOCK_ROWS,
+                    (b, done, size) -> blocks.addAll(b), () -> false);
+        } else {
+            try (CsvRecordReader reader = new CsvRecordReader(
+                    new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+                String[] fields = new String[ItineraryTableModel.COLS.length];
+                if (reader.next(fields) >= 0) { // header
+                    ItineraryTableModel.RowBlock block = codec.newBlock(64);
+                    int n;
+                    while ((n = reader.next(fields)) >= 0) {
+                        if (block.isFull()) {
+                            blocks.add(block);
+                            block = codec.newBlock(Math.min(block.size() * 2, CsvLoadWorker.BLOCK_ROWS));
+                        }
+                        block.add(fields, n);
+                    }
+                    blocks.add(block);
+                }
+            }
+        }
+        return concat(codec, blocks);
+    }
+
+    // one exact-size block, so a resident trip holds no slack
+    private static ItineraryTableModel.RowBlock concat(ItineraryTableModel codec, List<ItineraryTableModel.RowBlock> blocks) {
+        int total = 0;
+        for (ItineraryTableModel.RowBlock b : blocks) total += b.size();
+        ItineraryTableModel.RowBlock out = codec.newBlock(total);
+        for (ItineraryTableModel.RowBlock b : blocks) {
+            int at = out.size, n = b.size;
+            System.arraycopy(b.date, 0, out.date, at, n);
+            System.arraycopy(b.time, 0, out.time, at, n);
+            System.arraycopy(b.duration, 0, out.duration, at, n);
+            System.arraycopy(b.city, 0, out.city, at, n);
+            System.arraycopy(b.activity, 0, out.activity, at, n);
+            System.arraycopy(b.notes, 0, out.notes, at, n);
+            out.size = at + n;
+        }
+        return out;
+    }
+
+    // ---- index ----
+
+    private static boolean isTripFile(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+    }
+
+    private void rescan() throws IOException {
+        Map<Path, BasicFileAttributes> found = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, TripWorkspace::isTripFile)) {
+            for (Path f : files) {
+                BasicFileAttributes a = attributes(f);
+                if (a != null) found.put(f, a);
+            }
+        }
+        synchronized (this) {
+            for (Iterator<Trip> it = trips.values().iterator(); it.hasNext(); ) {
+                Trip trip = it.next();
+                if (!found.containsKey(trip.file)) {
+                    it.remove();
+                    unload(trip);
+                }
+            }
+            found.forEach(this::update);
+        }
+    }
+
+    /** Records the file's current size and stamp; a stale resident copy is dropped. */
+    private void update(Path file, BasicFileAttributes a) {
+        Trip trip = trips.computeIfAbsent(file, Trip::new);
+        trip.bytes = a.size();
+        trip.modified = a.lastModifiedTime();
+        if (trip.rows != null && !trip.modified.equals(trip.loadedStamp)) unload(trip);
+    }
+
+    private void unload(Trip trip) {
+        if (trip.rows == null) return;
+        loaded.remove(trip.file);
+        resident -= trip.rows.size();
+        trip.rows = null;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean overflow = false;
+                for (WatchEvent<?> e : key.pollEvents()) {
+                    if (e.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflow = true;
+                        continue;
+                    }
+                    Path file = dir.resolve((Path) e.context());
+                    if (!isTripFile(file)) continue;
+                    BasicFileAttributes a = e.kind() == StandardWatchEventKinds.ENTRY_DELETE ? null : attributes(file);
+                    synchronized (this) {
+                        if (a != null) {
+                            update(file, a);
+                        } else {
+                            Trip gone = trips.remove(file);
+                            if (gone != null) unload(gone);
+                        }
+                    }
+                }
+                if (overflow) {
+                    try {
+                        rescan();
+                    } catch (IOException e) {
+                        // keep the old index; the next event tries again
+                    }
+                }
+                fireChanged();
+                if (!key.reset()) return; // directory is gone
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed
+        }
+    }
+
+    private static BasicFileAttributes attributes(Path file) {
+        try {
+            BasicFileAttributes a = Files.readAttributes(file, BasicFileAttributes.class);
+            return a.isRegularFile() ? a : null;
+        } catch (IOException e) {
+            return null; // vanished between listing and reading
+        }
+    }
+
+    private void fireChanged() {
+        for (Runnable l : listeners) l.run();
+    }
+
+    /** One trip file. Size and stamps are as last seen by the index. */
+    static final class Trip {
+        final Path file;
+        volatile long bytes;
+        volatile FileTime modified;
+        private volatile ItineraryTableModel.RowBlock rows; // written under the workspace lock
+        private FileTime loadedStamp;
+
+        Trip(Path file) {
+            this.file = file;
+        }
+
+        String name() {
+            return file.getFileName().toString();
+        }
+
+        /** Rows of the resident copy, or -1 when the trip is not loaded. */
+        int loadedRows() {
+            ItineraryTableModel.RowBlock r = rows;
+            return r == null ? -1 : r.size();
+        }
+
+        @Override
+        public String toString() {
+            int n = loadedRows();
+            return n >= 0 ? String.format("%s  (%,d rows)", name(), n) : String.format("%s  (%,d KB)", name(), (bytes + 1023) / 1024);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package travel.itinerary;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Checks the interval trees against all pairs after every edit, insert, move and delete. */
+class ItineraryConflictsTest {
+    private static final String[] DATES = {"2026-06-01", "2026-06-02", "2026-06-03", "", "someday"};
+    private static final String[] TIMES = {"00:00", "08:30", "09:00", "23:30", "23:59", "", "noon"};
+    private static final String[] DURATIONS = {"15m", "30m", "1h", "1h30m", "3h", "26h", "0m", "", "long"};
+
+    @Test
+    void incrementalMatchesAllPairs() {
+        SplittableRandom rnd = new SplittableRandom(3);
+        for (int round = 0; round < 20; round++) {
+            ItineraryTableModel model = new ItineraryTableModel();
+            for (int i = 0; i < 30; i++) model.addRow(randomRow(rnd));
+            ItineraryConflicts conflicts = new ItineraryConflicts(model);
+            check(model, conflicts, "round " + round + " build");
+            for (int op = 0; op < 300; op++) {
+                mutate(model, rnd);
+                check(model, conflicts, "round " + round + ", op " + op);
+            }
+            conflicts.recheckAll();
+            check(model, conflicts, "round " + round + " recheck");
+            conflicts.dispose();
+        }
+    }
+
+    @Test
+    void midnightSpanReachesNextDay() {
+        ItineraryTableModel model = new ItineraryTableModel();
+        model.addRow(new Object[]{"2026-06-01", "23:30", "Oslo", "Night train", "9h", ""});
+        model.addRow(new Object[]{"2026-06-02", "08:00", "Bergen", "Breakfast", "1h", ""});
+        ItineraryConflicts conflicts = new ItineraryConflicts(model);
+        assertEquals(2, conflicts.conflictingRows());
+        model.setValueAt("08:30", 1, 1); // starts exactly when the train arrives
+        assertEquals(0, conflicts.conflictingRows());
+        model.addRow(new Object[]{"2026-06-02", "00:15", "Oslo", "Sleep", "30m", ""});
+        assertEquals(2, conflicts.conflictingRows());
+        check(model, conflicts, "midnight");
+    }
+
+    private static Object[] randomRow(SplittableRandom rnd) {
+        return new Object[]{DATES[rnd.nextInt(DATES.length)], TIMES[rnd.nextInt(TIMES.length)], "Paris", "Stop",
+                DURATIONS[rnd.nextInt(DURATIONS.length)], ""};
+    }
+
+    private static void mutate(ItineraryTableModel model, SplittableRandom rnd) {
+        int n = model.getRowCount();
+        switch (n == 0 ? 0 : rnd.nextInt(6)) {
+            case 0:
+                model.insertRow(rnd.nextInt(n + 1), randomRow(rnd));
+                break;
+            case 1:
+                model.setValueAt(DATES[rnd.nextInt(DATES.length)], rnd.nextInt(n), 0);
+                break;
+            case 2:
+                model.setValueAt(TIMES[rnd.nextInt(TIMES.length)], rnd.nextInt(n), 1);
+                break;
+            case 3:
+                model.setValueAt(DURATIONS[rnd.nextInt(DURATIONS.length)], rnd.nextInt(n), 4);
+                break;
+            case 4:
+                model.swapRows(rnd.nextInt(n), rnd.nextInt(n));
+                break;
+            default: {
+                int first = rnd.nextInt(n);
+                model.removeRows(first, Math.min(n - 1, first + rnd.nextInt(3)));
+                break;
+            }
+        }
+    }
+
+    /** O(n²) reference: a row conflicts when its half-open interval meets another row's. */
+    private static void check(ItineraryTableModel model, ItineraryConflicts conflicts, String where) {
+        int n = model.getRowCount();
+        long[] start = new long[n], end = new long[n];
+        boolean[] timed = new boolean[n];
+        for (int r = 0; r < n; r++) {
+            int day = model.epochDay(r), minutes = model.durationMinutes(r);
+            short minute = model.minuteOfDay(r);
+            timed[r] = ItineraryTableModel.isDateValue(day) && ItineraryTableModel.isTimeValue(minute)
+                    && ItineraryTableModel.isDurationValue(minutes) && minutes > 0;
+            start[r] = (long) day * 1440 + minute;
+            end[r] = start[r] + minutes;
+        }
+        int expected = 0;
+        for (int a = 0; a < n; a++) {
+            boolean overlaps = false;
+            for (int b = 0; b < n && timed[a] && !overlaps; b++) {
+                overlaps = b != a && timed[b] && start[a] < end[b] && start[b] < end[a];
+            }
+            if (overlaps) expected++;
+            assertEquals(overlaps, conflicts.conflicts(a), where + ", row " + a);
+        }
+        assertEquals(expected, conflicts.conflictingRows(), where);
+    }
+}
@@ -0,0 +1,144 @@
+package travel.itinerary;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItineraryExporterTest {
+    private static final String EOL = System.lineSeparator();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void csvMatchesGoldenOutput() throws IOException {
+        assertEquals("Date,Time,City,Activity,Duration,Notes" + EOL
+                        + "2026-06-01,09:30,Paris,Louvre,2h,\"Bring \"\"cash\"\", tickets\"" + EOL
+                        + "2026-06-02,,Rome,\"Forum\nand Palatine\",,\"\"\"\"\"\"" + EOL
+                        + "someday,noon,,Beach,long," + EOL,
+                export(ItineraryExporter.CSV, sampleRows()));
+    }
+
+    @Test
+    void jsonMatchesGoldenOutput() throws IOException {
+        assertEquals("[\n"
+                        + "  {\"Date\": \"2026-06-01\", \"Time\": \"09:30\", \"City\": \"Paris\", \"Activity\": \"Louvre\", "
+                        + "\"Duration\": \"2h\", \"Notes\": \"Bring \\\"cash\\\", tickets\"},\n"
+                        + "  {\"Date\": \"2026-06-02\", \"Time\": \"\", \"City\": \"Rome\", \"Activity\": \"Forum\\nand Palatine\", "
+                        + "\"Duration\": \"\", \"Notes\": \"\\\"\\\"\"},\n"
+                        + "  {\"Date\": \"someday\", \"Time\": \"noon\", \"City\": \"\", \"Activity\": \"Beach\", "
+                        + "\"Duration\": \"long\", \"Notes\": \"\"}\n"
+                        + "]\n",
+                export(ItineraryExporter.JSON, sampleRows()));
+    }
+
+    @Test
+    void summaryMatchesTheSummaryPanel() throws IOException {
+        ItineraryTableModel model = sampleRows();
+        assertEquals(new ItinerarySummary(model).text(), export(ItineraryExporter.SUMMARY, model));
+    }
+
+    @Test
+    void icsMatchesGoldenOutput() throws IOException {
+        String ics = export(ItineraryExporter.ICALENDAR, sampleRows())
+                .replaceAll("UID:\\d+-", "UID:T-").replaceAll("DTSTAMP:\\w+", "DTSTAMP:S");
+        assertEquals("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//Travel Itinerary Planner//EN\r\nCALSCALE:GREGORIAN\r\n"
+                        + "BEGIN:VEVENT\r\nUID:T-1@travel-itinerary-planner\r\nDTSTAMP:S\r\n"
+                        + "DTSTART:20260601T093000\r\nDTEND:20260601T113000\r\n"
+                        + "SUMMARY:Louvre\r\nLOCATION:Paris\r\nDESCRIPTION:Bring \"cash\"\\, tickets\r\nEND:VEVENT\r\n"
+                        + "BEGIN:VEVENT\r\nUID:T-2@travel-itinerary-planner\r\nDTSTAMP:S\r\n"
+                        + "DTSTART;VALUE=DATE:20260602\r\nDTEND;VALUE=DATE:20260603\r\n"
+                        + "SUMMARY:Forum\\nand Palatine\r\nLOCATION:Rome\r\nDESCRIPTION:\"\"\r\nEND:VEVENT\r\n"
+                        + "END:VCALENDAR\r\n",
+                ics);
+    }
+
+    /** Lines of 75 octets at most, never split inside a UTF-8 sequence, and unfolding gives back the text. */
+    @Test
+    void icsFoldsOnCharacterBoundaries() throws IOException {
+        String[] pieces = {"a", "Z", " ", "é", "ß", "€", "日本", "😀", "🏛️", ",", ";", "\\", "\n"};
+        SplittableRandom rnd = new SplittableRandom(37);
+        for (int round = 0; round < 50; round++) {
+            ItineraryTableModel model = new ItineraryTableModel();
+            List<String> activities = new ArrayList<>();
+            for (int r = 0; r < 40; r++) {
+                StringBuilder s = new StringBuilder();
+                for (int i = 0, n = rnd.nextInt(120); i < n; i++) s.append(pieces[rnd.nextInt(pieces.length)]);
+                if (s.length() == 0) s.append('x');
+                activities.add(s.toString());
+                model.addRow(new Object[]{"2026-06-01", "10:00", "Paris", s.toString(), "1h", ""});
+            }
+            byte[] bytes = Files.readAllBytes(write(ItineraryExporter.ICALENDAR, model));
+
+            List<String> unfolded = new ArrayList<>();
+            int from = 0;
+            for (int i = 0; i + 1 < bytes.length; i++) {
+                if (bytes[i] != '\r' || bytes[i + 1] != '\n') continue;
+                byte[] line = Arrays.copyOfRange(bytes, from, i);
+                assertTrue(line.length <= 75, "round " + round + ": " + line.length + " octets");
+                String text = strictUtf8(line, "round " + round);
+                if (text.startsWith(" ")) {
+                    int last = unfolded.size() - 1;
+                    unfolded.set(last, unfolded.get(last) + text.substring(1));
+                } else {
+                    unfolded.add(text);
+                }
+                from = i + 2;
+                i++;
+            }
+            assertEquals(bytes.length, from, "round " + round + ": output ends with CRLF");
+
+            List<String> summaries = new ArrayList<>();
+            for (String line : unfolded) if (line.startsWith("SUMMARY:")) summaries.add(line);
+            List<String> expected = new ArrayList<>();
+            for (String a : activities) expected.add("SUMMARY:" + escape(a));
+            assertEquals(expected, summaries, "round " + round);
+        }
+    }
+
+    private static ItineraryTableModel sampleRows() {
+        ItineraryTableModel model = new ItineraryTableModel();
+        model.addRow(new Object[]{"2026-06-01", "09:30", "Paris", "Louvre", "2h", "Bring \"cash\", tickets"});
+        model.addRow(new Object[]{"2026-06-02", "", "Rome", "Forum\nand Palatine", "", "\"\""});
+        model.addRow(new Object[]{"someday", "noon", "", "Beach", "long", ""});
+        return model;
+    }
+
+    private String export(ItineraryExporter.Format format, ItineraryTableModel model) throws IOException {
+        return Files.readString(write(format, model), StandardCharsets.UTF_8);
+    }
+
+    private Path write(ItineraryExporter.Format format, ItineraryTableModel model) throws IOException {
+        Path file = dir.resolve("out." + format.extension());
+        assertTrue(ItineraryExporter.write(file, format, model.copyRows(), null, () -> false));
+        return file;
+    }
+
+    private static String strictUtf8(byte[] line, String where) {
+        try {
+            return StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT).decode(ByteBuffer.wrap(line)).toString();
+        } catch (CharacterCodingException ex) {
+            throw new AssertionError(where + ": line split inside a character", ex);
+        }
+    }
+
+    /** RFC 5545 TEXT escaping. */
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,").replace("\n", "\\n");
+    }
+}
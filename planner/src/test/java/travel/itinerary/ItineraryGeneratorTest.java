@@ -0,0 +1,101 @@
+package travel.itinerary;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ItineraryGeneratorTest {
+    private static final long JUNE_1 = ItineraryTableModel.parseEpochDay("2026-06-01");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void builtInTemplatesMatchGoldenRows() throws IOException {
+        ItineraryGenerator gen = new ItineraryGenerator(new ItineraryTableModel(), dir.resolve("none.csv"), 4);
+        List<String> expected = List.of(
+                "2026-06-01|09:00|Lyon|Morning: Explore Lyon landmarks|3h|Start early to avoid crowds",
+                "2026-06-01|13:00|Lyon|Afternoon: Local food & market in Lyon|2h|Try recommended local dishes",
+                "2026-06-01|18:30|Lyon|Evening: Relax / nightlife / sunset views in Lyon|2h|Great time for photos",
+                "2026-06-02|09:00|Lyon|Morning: Explore Lyon landmarks|3h|Start early to avoid crowds",
+                "2026-06-02|13:00|Lyon|Afternoon: Local food & market in Lyon|2h|Try recommended local dishes",
+                "2026-06-02|18:30|Lyon|Evening: Relax / nightlife / sunset views in Lyon|2h|Great time for photos");
+        assertEquals(expected, rows(gen.generate("Lyon", 2, JUNE_1)));
+        assertEquals(expected, rows(gen.generate("Lyon", 2, JUNE_1)), "served from the cache");
+        assertEquals(1, gen.hits());
+        assertEquals(1, gen.misses());
+    }
+
+    @Test
+    void cacheEvictsTheLeastRecentlyUsedPlan() throws IOException {
+        ItineraryGenerator gen = new ItineraryGenerator(new ItineraryTableModel(), dir.resolve("none.csv"), 2);
+        gen.generate("A", 1, JUNE_1); // miss
+        gen.generate("B", 1, JUNE_1); // miss
+        gen.generate("A", 1, JUNE_1); // hit; B is now the eldest
+        gen.generate("C", 1, JUNE_1); // miss, evicts B
+        gen.generate("A", 1, JUNE_1); // hit
+        gen.generate("B", 1, JUNE_1); // miss, evicts C
+        gen.generate("A", 2, JUNE_1); // miss: days are part of the key; evicts A/1
+        assertEquals(2, gen.hits());
+        assertEquals(5, gen.misses());
+        assertEquals(3, gen.evictions());
+        assertEquals("Plan cache: 2/2 plans, 2 hits, 5 misses, 3 evictions", gen.statsReport());
+        // a cached plan keeps its own dates relative to each request
+        long july10 = ItineraryTableModel.parseEpochDay("2026-07-10");
+        assertEquals("2026-07-10", rows(gen.generate("B", 1, july10)).get(0).split("\\|")[0]);
+    }
+
+    @Test
+    void reloadedTemplatesReplaceCachedPlans() throws IOException, InterruptedException {
+        Path file = dir.resolve("templates.csv");
+        writeTemplates(file, "city,Paris,09:00,Day {day}: Louvre,3h,Book tickets", 1);
+        ItineraryGenerator gen = new ItineraryGenerator(new ItineraryTableModel(), file, 8);
+        assertEquals(List.of("2026-06-01|09:00|Paris|Day 1: Louvre|3h|Book tickets",
+                "2026-06-02|09:00|Paris|Day 2: Louvre|3h|Book tickets"), rows(gen.generate("Paris", 2, JUNE_1)));
+        assertEquals("2026-06-01|09:00|Rome|Morning: Explore Rome landmarks|3h|Start early to avoid crowds",
+                rows(gen.generate("Rome", 1, JUNE_1)).get(0), "other cities keep the defaults");
+
+        writeTemplates(file, "city,Paris,10:00,Orsay,2h,", 2);
+        Thread.sleep(ItineraryGenerator.CHECK_MILLIS + 100);
+        assertEquals(List.of("2026-06-01|10:00|Paris|Orsay|2h|", "2026-06-02|10:00|Paris|Orsay|2h|"),
+                rows(gen.generate("Paris", 2, JUNE_1)), "stale plan served after a reload");
+        assertEquals(3, gen.misses());
+        assertEquals(0, gen.hits());
+
+        // a broken file is reported once and the templates before it stay in effect
+        writeTemplates(file, "planet,Mars,10:00,Crater,2h,", 3);
+        Thread.sleep(ItineraryGenerator.CHECK_MILLIS + 100);
+        assertThrows(IOException.class, () -> gen.generate("Paris", 2, JUNE_1));
+        Thread.sleep(ItineraryGenerator.CHECK_MILLIS + 100);
+        assertEquals("2026-06-01|10:00|Paris|Orsay|2h|", rows(gen.generate("Paris", 2, JUNE_1)).get(0));
+    }
+
+    /** Writes one template line and moves the file's timestamp forward so the change is always seen. */
+    private static void writeTemplates(Path file, String line, int generation) throws IOException {
+        Files.writeString(file, "Scope,Key,Time,Activity,Duration,Notes\n" + line + "\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_700_000_000_000L + generation * 60_000L));
+    }
+
+    private static List<String> rows(ItineraryTableModel.RowBlock block) {
+        List<String> out = new ArrayList<>();
+        StringBuilder b = new StringBuilder();
+        for (int r = 0; r < block.size(); r++) {
+            b.setLength(0);
+            for (int c = 0; c < ItineraryTableModel.COLS.length; c++) {
+                if (c > 0) b.append('|');
+                block.appendCell(b, r, c);
+            }
+            out.add(b.toString());
+        }
+        return out;
+    }
+}
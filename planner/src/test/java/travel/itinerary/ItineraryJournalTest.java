@@ -0,0 +1,199 @@
+package travel.itinerary;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Restores a model from snapshot plus journals, after compactions and after crashes. Runs on the EDT. */
+class ItineraryJournalTest {
+    @TempDir
+    Path root;
+
+    private Path dir;
+
+    private final SplittableRandom rnd = new SplittableRandom(5);
+
+    @BeforeEach
+    void dataDirectory() {
+        dir = root.resolve("data");
+    }
+
+    @Test
+    void replaysAcrossCompactions() throws Exception {
+        onEdt(() -> {
+            ItineraryTableModel model = new ItineraryTableModel();
+            ItineraryJournal journal = new ItineraryJournal(dir, model);
+            assertFalse(journal.open());
+            for (int round = 0; round < 4; round++) {
+                mutate(model, 40);
+                journal.compact();
+                awaitSnapshot(dir);
+                mutate(model, 40);
+                assertEquals(cells(model), cells(reopen()), "round " + round);
+            }
+        });
+    }
+
+    @Test
+    void reopensRepeatedlyAfterCrashes() throws Exception {
+        onEdt(() -> {
+            ItineraryTableModel model = new ItineraryTableModel();
+            assertFalse(new ItineraryJournal(dir, model).open());
+            mutate(model, 60);
+            for (int crash = 0; crash < 4; crash++) {
+                // each restart replays, compacts, and carries on from the restored model
+                ItineraryTableModel restored = new ItineraryTableModel();
+                assertTrue(new ItineraryJournal(dir, restored).open());
+                assertEquals(cells(model), cells(restored), "restart " + crash);
+                awaitSnapshot(dir);
+                model = restored;
+                mutate(model, 30);
+            }
+            assertEquals(cells(model), cells(reopen()));
+        });
+    }
+
+    @Test
+    void stopsAtTornTail() throws Exception {
+        onEdt(() -> {
+            ItineraryTableModel model = new ItineraryTableModel();
+            new ItineraryJournal(dir, model).open();
+            mutate(model, 20);
+            List<List<String>> before = cells(model);
+            model.addRow(new Object[]{"2026-07-01", "08:00", "Rome", "Forum", "1h", "lost in the crash"});
+            Path last = latestJournal(dir);
+            try (FileChannel ch = FileChannel.open(last, StandardOpenOption.WRITE)) {
+                ch.truncate(ch.size() - 3);
+            }
+            assertEquals(before, cells(reopen()));
+        });
+    }
+
+    @Test
+    void reportsSnapshotFailureOnce() throws Exception {
+        List<String> failures = new ArrayList<>();
+        onEdt(() -> {
+            ItineraryTableModel model = new ItineraryTableModel();
+            ItineraryJournal journal = new ItineraryJournal(dir, model);
+            journal.setFailureListener(failures::add);
+            journal.open();
+            Files.createDirectory(dir.resolve(ItineraryJournal.SNAPSHOT_FILE + ".tmp")); // blocks the snapshot write
+            for (int i = 0; i < 3; i++) {
+                mutate(model, 10);
+                journal.compact();
+            }
+            mutate(model, 10);
+            assertEquals(cells(model), cells(reopen()), "journals kept after failed snapshots");
+        });
+        for (int i = 0; i < 500 && failures.isEmpty(); i++) {
+            Thread.sleep(10);
+            SwingUtilities.invokeAndWait(() -> { });
+        }
+        assertEquals(1, failures.size(), failures.toString());
+    }
+
+    /** Restores a copy of the directory, so the restore's own compaction leaves the live journal alone. */
+    private ItineraryTableModel reopen() throws IOException, InterruptedException {
+        Path copy = Files.createTempDirectory(root, "restore");
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) Files.copy(p, copy.resolve(p.getFileName()));
+        }
+        Files.deleteIfExists(copy.resolve(ItineraryJournal.SNAPSHOT_FILE + ".tmp"));
+        ItineraryTableModel m = new ItineraryTableModel();
+        if (new ItineraryJournal(copy, m).open()) awaitSnapshot(copy);
+        return m;
+    }
+
+    /** Random inserts, edits, moves and deletes, each journaled as its own record. */
+    private void mutate(ItineraryTableModel m, int ops) {
+        String[] cities = {"Paris", "Rome", "Oslo", "Kyoto"};
+        for (int i = 0; i < ops; i++) {
+            int n = m.getRowCount(), op = n == 0 ? 0 : rnd.nextInt(5);
+            switch (op) {
+                case 0:
+                case 1:
+                    m.insertRow(rnd.nextInt(n + 1), new Object[]{
+                            "2026-06-" + (10 + rnd.nextInt(20)), rnd.nextBoolean() ? "09:15" : "sometime",
+                            cities[rnd.nextInt(cities.length)], "Stop " + rnd.nextInt(100), "1h", "note " + rnd.nextInt(1000)});
+                    break;
+                case 2:
+                    m.setValueAt("edited " + rnd.nextInt(1000), rnd.nextInt(n), rnd.nextInt(ItineraryTableModel.COLS.length));
+                    break;
+                case 3:
+                    m.swapRows(rnd.nextInt(n), rnd.nextInt(n));
+                    break;
+                default: {
+                    int first = rnd.nextInt(n);
+                    m.removeRows(first, Math.min(n - 1, first + rnd.nextInt(3)));
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void awaitSnapshot(Path dir) throws IOException, InterruptedException {
+        // the snapshot is written on the compactor thread; the latest journal generation names it
+        Path snap = dir.resolve(ItineraryJournal.SNAPSHOT_FILE);
+        long gen = generation(latestJournal(dir));
+        for (int i = 0; i < 500 && !(Files.exists(snap) && ItinerarySnapshot.generation(snap) >= gen); i++) Thread.sleep(10);
+        assertEquals(gen, ItinerarySnapshot.generation(snap));
+    }
+
+    private static Path latestJournal(Path dir) throws IOException {
+        Path latest = null;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "journal-*.log")) {
+            for (Path p : ds) if (latest == null || generation(p) > generation(latest)) latest = p;
+        }
+        return latest;
+    }
+
+    private static long generation(Path journal) {
+        String name = journal.getFileName().toString();
+        return Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length()));
+    }
+
+    private static List<List<String>> cells(ItineraryTableModel m) {
+        List<List<String>> out = new ArrayList<>();
+        for (int r = 0; r < m.getRowCount(); r++) {
+            List<String> row = new ArrayList<>();
+            for (int c = 0; c < m.getColumnCount(); c++) row.add((String) m.getValueAt(r, c));
+            out.add(row);
+        }
+        return out;
+    }
+
+    private interface EdtBody {
+        void run() throws Exception;
+    }
+
+    private static void onEdt(EdtBody body) throws Exception {
+        Exception[] failure = new Exception[1];
+        Error[] error = new Error[1];
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                body.run();
+            } catch (Exception ex) {
+                failure[0] = ex;
+            } catch (Error err) {
+                error[0] = err;
+            }
+        });
+        if (error[0] != null) throw error[0];
+        if (failure[0] != null) throw failure[0];
+    }
+}
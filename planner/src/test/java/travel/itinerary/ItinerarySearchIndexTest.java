@@ -0,0 +1,116 @@
+package travel.itinerary;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Checks index queries against a scan of the model as rows are added, edited, moved and removed. */
+class ItinerarySearchIndexTest {
+    private static final String[] CITIES = {"Paris", "paris", "Rome", "Oslo", "Kyoto", ""};
+    private static final String[] ACTIVITIES = {"Louvre", "Musée d'Orsay", "Forum walk", "Fjord cruise",
+            "Tea ceremony", "Lunch at the market", "", "LOUVRE tour"};
+    private static final String[] NOTES = {"", "book ahead", "Bring cash", "closed Mondays", "cruise deck 3"};
+    private static final String[] NEEDLES = {"", "a", "ou", "LOU", "louvre", "ruis", "the m", "zzz", "é", "e c",
+            "paris", "book ahead", "musée"};
+    private static final String[] QUERY_CITIES = {"", "paris", "ROME", " oslo ", "lisbon"};
+
+    @Test
+    void queriesMatchScan() {
+        SplittableRandom rnd = new SplittableRandom(13);
+        for (int round = 0; round < 10; round++) {
+            ItineraryTableModel model = new ItineraryTableModel();
+            for (int i = 0; i < 40; i++) model.addRow(randomRow(rnd));
+            ItinerarySearchIndex index = new ItinerarySearchIndex(model);
+            for (int op = 0; op < 200; op++) {
+                mutate(model, rnd);
+                for (int q = 0; q < 3; q++) {
+                    ItinerarySearchIndex.Query query = randomQuery(rnd);
+                    assertEquals(scan(model, query), index.query(query),
+                            "round " + round + ", op " + op + ", text '" + query.text + "', city '" + query.city
+                                    + "', days " + query.fromDay + ".." + query.toDay);
+                }
+            }
+            index.dispose();
+        }
+    }
+
+    @Test
+    void followsPoolCompaction() {
+        ItineraryTableModel model = new ItineraryTableModel();
+        for (int i = 0; i < 50; i++) model.addRow(new Object[]{"2026-06-01", "09:00", "Paris", "Old stop " + i, "1h", ""});
+        ItinerarySearchIndex index = new ItinerarySearchIndex(model);
+        ItinerarySearchIndex.Query old = new ItinerarySearchIndex.Query("old stop", null, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertEquals(50, index.query(old).cardinality());
+        model.removeRows(2, 49);
+        model.addRow(new Object[]{"2026-06-02", "10:00", "Rome", "New stop", "1h", ""});
+        assertTrue(model.compactPools());
+        assertEquals(scan(model, old), index.query(old));
+        ItinerarySearchIndex.Query fresh = new ItinerarySearchIndex.Query("new", "rome", Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertEquals(scan(model, fresh), index.query(fresh));
+        assertEquals(1, index.query(fresh).cardinality());
+    }
+
+    private static Object[] randomRow(SplittableRandom rnd) {
+        return new Object[]{rnd.nextInt(8) == 0 ? "TBD" : "2026-06-" + (10 + rnd.nextInt(10)), "09:00",
+                CITIES[rnd.nextInt(CITIES.length)], ACTIVITIES[rnd.nextInt(ACTIVITIES.length)], "1h",
+                NOTES[rnd.nextInt(NOTES.length)]};
+    }
+
+    private static void mutate(ItineraryTableModel model, SplittableRandom rnd) {
+        int n = model.getRowCount();
+        switch (n == 0 ? 0 : rnd.nextInt(5)) {
+            case 0:
+                model.insertRow(rnd.nextInt(n + 1), randomRow(rnd));
+                break;
+            case 1: {
+                int col = rnd.nextInt(ItineraryTableModel.COLS.length);
+                model.setValueAt(randomRow(rnd)[col], rnd.nextInt(n), col);
+                break;
+            }
+            case 2:
+                model.swapRows(rnd.nextInt(n), rnd.nextInt(n));
+                break;
+            case 3:
+                model.setValueAt("Side trip " + rnd.nextInt(1000), rnd.nextInt(n), 3);
+                break;
+            default: {
+                int first = rnd.nextInt(n);
+                model.removeRows(first, Math.min(n - 1, first + rnd.nextInt(4)));
+                break;
+            }
+        }
+    }
+
+    private static ItinerarySearchIndex.Query randomQuery(SplittableRandom rnd) {
+        int from = rnd.nextBoolean() ? Integer.MIN_VALUE : ItineraryTableModel.parseEpochDay("2026-06-" + (10 + rnd.nextInt(10)));
+        int to = rnd.nextBoolean() ? Integer.MAX_VALUE : ItineraryTableModel.parseEpochDay("2026-06-" + (10 + rnd.nextInt(10)));
+        return new ItinerarySearchIndex.Query(NEEDLES[rnd.nextInt(NEEDLES.length)],
+                QUERY_CITIES[rnd.nextInt(QUERY_CITIES.length)], from, to);
+    }
+
+    /** Reference: text is a substring of City, Activity or Notes; city is equal; dates are inclusive. */
+    private static BitSet scan(ItineraryTableModel model, ItinerarySearchIndex.Query q) {
+        BitSet out = new BitSet();
+        for (int r = 0; r < model.getRowCount(); r++) {
+            String city = lower(model.getValueAt(r, 2));
+            if (!q.text.isEmpty() && !city.contains(q.text) && !lower(model.getValueAt(r, 3)).contains(q.text)
+                    && !lower(model.getValueAt(r, 5)).contains(q.text)) continue;
+            if (!q.city.isEmpty() && !city.equals(q.city)) continue;
+            if (q.fromDay != Integer.MIN_VALUE || q.toDay != Integer.MAX_VALUE) {
+                int day = model.epochDay(r);
+                if (!ItineraryTableModel.isDateValue(day) || day < q.fromDay || day > q.toDay) continue;
+            }
+            out.set(r);
+        }
+        return out;
+    }
+
+    private static String lower(Object cell) {
+        return ((String) cell).toLowerCase(Locale.ROOT);
+    }
+}
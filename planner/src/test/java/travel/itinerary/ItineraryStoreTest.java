@@ -0,0 +1,184 @@
+package travel.itinerary;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Workers add, edit, delete and query their own rows in shared trips while
+ * another thread flushes; every query must see exactly the worker's rows, and
+ * a reload from disk must give back what was in memory.
+ */
+class ItineraryStoreTest {
+    private static final String[] TRIPS = {"alpha", "beta", "gamma"};
+    private static final int WORKERS = 6, OPS = 400;
+    private static final Pattern ID = Pattern.compile("\"id\": (\\d+)");
+    private static final Pattern ACTIVITY = Pattern.compile("\"Activity\": \"([^\"]*)\"");
+    private static final Pattern NOTES = Pattern.compile("\"Notes\": \"([^\"]*)\"");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void concurrentChangesSurviveFlushAndReload() throws Exception {
+        ItineraryStore store = new ItineraryStore(dir, dir.resolve("no-templates.csv"));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean done = new AtomicBoolean();
+        Map<String, AtomicInteger> generated = new ConcurrentHashMap<>();
+        for (String t : TRIPS) generated.put(t, new AtomicInteger());
+
+        // worker w owns the rows whose activity starts with "w<w>-"; ids are per trip, so keys are "trip#id"
+        List<Map<String, String[]>> owned = new ArrayList<>();
+        Thread[] workers = new Thread[WORKERS];
+        for (int w = 0; w < WORKERS; w++) {
+            Map<String, String[]> mine = new HashMap<>();
+            owned.add(mine);
+            int worker = w;
+            workers[w] = new Thread(() -> {
+                try {
+                    work(store, worker, mine, generated);
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            });
+        }
+        Thread flusher = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    store.flush();
+                    Thread.sleep(2);
+                }
+            } catch (Throwable ex) {
+                failure.compareAndSet(null, ex);
+            }
+        });
+        flusher.start();
+        for (Thread t : workers) t.start();
+        for (Thread t : workers) t.join();
+        done.set(true);
+        flusher.join();
+        if (failure.get() != null) throw new AssertionError(failure.get());
+        store.flush();
+
+        // what each trip should hold, compared in memory and after a reload from the files
+        Map<String, List<String>> expected = new TreeMap<>();
+        for (String trip : TRIPS) expected.put(trip, new ArrayList<>());
+        for (int w = 0; w < WORKERS; w++) {
+            for (String[] row : owned.get(w).values()) expected.get(row[0]).add(row[1] + " / " + row[2]);
+        }
+        for (String trip : TRIPS) {
+            for (int i = 0; i < generated.get(trip).get(); i++) {
+                expected.get(trip).add("Morning: Explore Paris landmarks / Start early to avoid crowds");
+                expected.get(trip).add("Afternoon: Local food & market in Paris / Try recommended local dishes");
+                expected.get(trip).add("Evening: Relax / nightlife / sunset views in Paris / Great time for photos");
+            }
+            Collections.sort(expected.get(trip));
+        }
+        assertEquals(expected, contents(store));
+        assertEquals(expected, contents(new ItineraryStore(dir, dir.resolve("no-templates.csv"))));
+    }
+
+    @Test
+    void flushCompactsAnInMemoryStore() throws IOException {
+        ItineraryStore store = new ItineraryStore(null, dir.resolve("no-templates.csv"));
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String json = store.add("solo", new String[]{"2026-06-01", "", "Oslo", "stop " + i, "", "draft " + i});
+            Matcher m = ID.matcher(json);
+            assertTrue(m.find(), json);
+            int id = Integer.parseInt(m.group(1));
+            if (i % 10 != 0) {
+                assertTrue(store.delete("solo", id));
+            } else {
+                assertNotNull(store.edit("solo", id, new String[]{null, null, null, null, null, "final " + i}));
+                expected.add("stop " + i + " / final " + i);
+            }
+        }
+        Collections.sort(expected);
+        store.flush(); // almost every pooled string is garbage by now
+        assertEquals(expected, query(store, "solo", null));
+        assertEquals(List.of("stop 190 / final 190"), query(store, "solo", "stop 190"));
+        assertEquals(Map.of("solo", 20), store.list());
+    }
+
+    private static void work(ItineraryStore store, int w, Map<String, String[]> mine, Map<String, AtomicInteger> generated)
+            throws IOException {
+        SplittableRandom rnd = new SplittableRandom(43 + w);
+        String prefix = "w" + w + "-";
+        List<String> keys = new ArrayList<>();
+        for (int op = 0; op < OPS; op++) {
+            int choice = keys.isEmpty() ? 0 : rnd.nextInt(10);
+            if (choice < 4) {
+                String trip = TRIPS[rnd.nextInt(TRIPS.length)];
+                String activity = prefix + op, notes = "note " + w + "-" + op;
+                String json = store.add(trip, new String[]{"2026-06-01", "09:00", "Paris", activity, "1h", notes});
+                Matcher m = ID.matcher(json);
+                assertTrue(m.find(), json);
+                String key = trip + "#" + m.group(1);
+                mine.put(key, new String[]{trip, activity, notes, m.group(1)});
+                keys.add(key);
+            } else if (choice < 6) {
+                String[] row = mine.remove(keys.remove(rnd.nextInt(keys.size())));
+                assertTrue(store.delete(row[0], Integer.parseInt(row[3])), "delete " + row[1]);
+            } else if (choice < 8) {
+                String[] row = mine.get(keys.get(rnd.nextInt(keys.size())));
+                row[2] = "edited " + w + "-" + op;
+                String json = store.edit(row[0], Integer.parseInt(row[3]), new String[]{null, null, null, null, null, row[2]});
+                assertNotNull(json, "edit " + row[1]);
+            } else if (choice == 8) {
+                String trip = TRIPS[rnd.nextInt(TRIPS.length)];
+                assertEquals(3, store.generate(trip, "Paris", 1, ItineraryTableModel.parseEpochDay("2026-06-02")));
+                generated.get(trip).incrementAndGet();
+            } else {
+                // only this worker touches rows with its prefix, so the answer is exact
+                for (String trip : TRIPS) {
+                    List<String> expected = new ArrayList<>();
+                    for (String[] row : mine.values()) if (row[0].equals(trip)) expected.add(row[1] + " / " + row[2]);
+                    Collections.sort(expected);
+                    assertEquals(expected, query(store, trip, prefix), "worker " + w + ", op " + op + ", " + trip);
+                }
+            }
+        }
+    }
+
+    private static Map<String, List<String>> contents(ItineraryStore store) throws IOException {
+        Map<String, List<String>> out = new TreeMap<>();
+        for (String trip : TRIPS) out.put(trip, query(store, trip, null));
+        return out;
+    }
+
+    /** Sorted "activity / notes" of the rows matching {@code text}. */
+    private static List<String> query(ItineraryStore store, String trip, String text) throws IOException {
+        StringBuilder json = new StringBuilder();
+        if (!store.query(trip, new ItinerarySearchIndex.Query(text, null, Integer.MIN_VALUE, Integer.MAX_VALUE), json)) {
+            return new ArrayList<>();
+        }
+        List<String> rows = new ArrayList<>();
+        Matcher a = ACTIVITY.matcher(json), n = NOTES.matcher(json);
+        while (a.find()) {
+            assertTrue(n.find(), json.toString());
+            rows.add(a.group(1) + " / " + n.group(1));
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+}
@@ -0,0 +1,91 @@
+package travel.itinerary;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/** The cached summary must read the same as one built from scratch, whatever the edits in between. */
+class ItinerarySummaryTest {
+    @Test
+    void cachedTextMatchesFreshText() {
+        SplittableRandom rnd = new SplittableRandom(41);
+        for (int round = 0; round < 20; round++) {
+            ItineraryTableModel model = new ItineraryTableModel();
+            for (int i = 0; i < 10; i++) model.addRow(row(rnd));
+            ItinerarySummary summary = new ItinerarySummary(model);
+            assertEquals(fromScratch(model), summary.text());
+            for (int op = 0; op < 200; op++) {
+                // several changes may pile up between two reads
+                for (int k = rnd.nextInt(3); k >= 0; k--) mutate(model, rnd);
+                String text = summary.text();
+                assertEquals(fromScratch(model), text, "round " + round + ", op " + op);
+                assertSame(text, summary.text(), "unchanged model, same String");
+            }
+        }
+    }
+
+    private static Object[] row(SplittableRandom rnd) {
+        return new Object[]{"2026-06-" + (10 + rnd.nextInt(10)), rnd.nextBoolean() ? "09:00" : "",
+                "City " + rnd.nextInt(5), "Activity " + rnd.nextInt(1000), "1h", "Note " + rnd.nextInt(100)};
+    }
+
+    private static void mutate(ItineraryTableModel model, SplittableRandom rnd) {
+        int n = model.getRowCount();
+        switch (n == 0 ? 0 : rnd.nextInt(8)) {
+            case 0:
+                model.insertRow(rnd.nextInt(n + 1), row(rnd));
+                break;
+            case 1:
+                model.batch(() -> {
+                    int at = rnd.nextInt(n + 1);
+                    for (int i = 0; i < 3; i++) model.insertRow(at + i, row(rnd));
+                });
+                break;
+            case 2:
+                model.removeRow(rnd.nextInt(n));
+                break;
+            case 3: {
+                int first = rnd.nextInt(n);
+                model.removeRows(first, Math.min(n - 1, first + rnd.nextInt(4)));
+                break;
+            }
+            case 4:
+                model.setValueAt("Edited " + rnd.nextInt(1000), rnd.nextInt(n), rnd.nextInt(ItineraryTableModel.COLS.length));
+                break;
+            case 5:
+                model.swapRows(rnd.nextInt(n), rnd.nextInt(n));
+                break;
+            case 6: {
+                int[] order = new int[n];
+                for (int i = 0; i < n; i++) order[i] = i;
+                for (int i = n - 1; i > 0; i--) {
+                    int j = rnd.nextInt(i + 1), t = order[i];
+                    order[i] = order[j];
+                    order[j] = t;
+                }
+                model.reorderRows(order);
+                break;
+            }
+            default:
+                if (rnd.nextInt(10) == 0) model.setRowCount(0);
+                else model.setRow(rnd.nextInt(n), row(rnd));
+                break;
+        }
+    }
+
+    /** The documented layout, built straight from the cells. */
+    private static String fromScratch(ItineraryTableModel m) {
+        StringBuilder b = new StringBuilder(ItinerarySummary.TITLE);
+        for (int r = 0; r < m.getRowCount(); r++) {
+            b.append(r + 1).append(". ").append(m.getValueAt(r, ItineraryTableModel.DATE)).append(' ')
+                    .append(m.getValueAt(r, ItineraryTableModel.TIME)).append(" — ")
+                    .append(m.getValueAt(r, ItineraryTableModel.ACTIVITY)).append(" (")
+                    .append(m.getValueAt(r, ItineraryTableModel.CITY)).append(")\n    Notes: ")
+                    .append(m.getValueAt(r, ItineraryTableModel.NOTES)).append("\n\n");
+        }
+        return b.toString();
+    }
+}
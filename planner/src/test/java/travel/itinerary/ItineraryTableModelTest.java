@@ -0,0 +1,180 @@
+package travel.itinerary;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Events fired by batches and reorders, which the journal, indexes, summary and sorter all rely on. */
+class ItineraryTableModelTest {
+    private static final int INSERT = TableModelEvent.INSERT, UPDATE = TableModelEvent.UPDATE,
+            DELETE = TableModelEvent.DELETE, ALL = TableModelEvent.ALL_COLUMNS;
+
+    private ItineraryTableModel model;
+    private final List<TableModelEvent> events = new ArrayList<>();
+
+    @BeforeEach
+    void fiveRows() {
+        model = new ItineraryTableModel();
+        for (int i = 0; i < 5; i++) model.addRow(row("Stop " + i));
+        model.addTableModelListener(events::add);
+    }
+
+    @Test
+    void adjacentInsertsMerge() {
+        model.batch(() -> {
+            model.insertRow(2, row("a"));
+            model.insertRow(3, row("b")); // right after the first
+            model.insertRow(2, row("c")); // at its start
+        });
+        assertEvent(2, 4, ALL, INSERT);
+        assertActivities("Stop 0", "Stop 1", "c", "a", "b", "Stop 2", "Stop 3", "Stop 4");
+    }
+
+    @Test
+    void updateInsideInsertedRowsIsAbsorbed() {
+        model.batch(() -> {
+            model.insertRow(1, row("a"));
+            model.insertRow(2, row("b"));
+            model.setValueAt("edited", 2, ItineraryTableModel.NOTES);
+        });
+        assertEvent(1, 2, ALL, INSERT);
+    }
+
+    @Test
+    void updatesMergeIntoTheirSpan() {
+        model.batch(() -> {
+            model.setValueAt("x", 3, ItineraryTableModel.NOTES);
+            model.setValueAt("y", 1, ItineraryTableModel.NOTES);
+        });
+        assertEvent(1, 3, ItineraryTableModel.NOTES, UPDATE);
+
+        model.batch(() -> {
+            model.setValueAt("x", 4, ItineraryTableModel.NOTES);
+            model.setValueAt("y", 0, ItineraryTableModel.CITY);
+        });
+        assertEvent(0, 4, ALL, UPDATE);
+    }
+
+    @Test
+    void adjacentDeletesMerge() {
+        model.batch(() -> {
+            model.removeRow(3);
+            model.removeRow(2); // just before
+            model.removeRow(1);
+        });
+        assertEvent(1, 3, ALL, DELETE);
+        assertActivities("Stop 0", "Stop 4");
+    }
+
+    @Test
+    void deletesAtTheSameRowMerge() {
+        model.batch(() -> {
+            model.removeRow(1);
+            model.removeRow(1);
+        });
+        assertEvent(1, 2, ALL, DELETE);
+        assertActivities("Stop 0", "Stop 3", "Stop 4");
+    }
+
+    @Test
+    void anythingElseBecomesDataChanged() {
+        model.batch(() -> {
+            model.insertRow(1, row("a"));
+            model.removeRow(4);
+        });
+        assertDataChanged();
+
+        model.batch(() -> {
+            model.insertRow(0, row("b"));
+            model.insertRow(3, row("c")); // not adjacent
+        });
+        assertDataChanged();
+
+        model.batch(() -> {
+            model.setValueAt("x", 1, ItineraryTableModel.NOTES);
+            model.insertRow(1, row("d"));
+        });
+        assertDataChanged();
+
+        model.batch(() -> {
+            model.removeRow(0);
+            model.removeRow(3); // not adjacent
+        });
+        assertDataChanged();
+
+        model.batch(() -> {
+            model.insertRow(1, row("e"));
+            model.setValueAt("x", 3, ItineraryTableModel.NOTES); // outside the inserted rows
+        });
+        assertDataChanged();
+    }
+
+    @Test
+    void nestedBatchesFireOnce() {
+        model.batch(() -> {
+            model.addRow(row("a"));
+            model.batch(() -> model.addRow(row("b")));
+            assertEquals(0, events.size());
+        });
+        assertEvent(5, 6, ALL, INSERT);
+        model.batch(() -> { });
+        assertEquals(0, events.size());
+    }
+
+    @Test
+    void reorderReportsOnlyTheMovedSpan() {
+        model.reorderRows(new int[]{0, 3, 1, 2, 4});
+        assertEvent(1, 3, ALL, UPDATE);
+        assertActivities("Stop 0", "Stop 3", "Stop 1", "Stop 2", "Stop 4");
+        model.reorderRows(new int[]{0, 1, 2, 3, 4});
+        assertEquals(0, events.size());
+    }
+
+    @Test
+    void reorderRejectsWhatIsNotAPermutation() {
+        int[][] bad = {
+                {0, 1, 2, 3},          // too short
+                {0, 1, 2, 3, 4, 5},    // too long
+                {0, 2, 2, 3, 4},       // repeats a row
+                {1, 0, 2, 3, 5},       // row out of range
+                {0, 3, 1, 3, 4},       // repeat inside the moved span
+                {0, 4, 2, 3, 4},       // takes a row from outside the moved span
+                {0, -1, 2, 3, 4},
+        };
+        for (int[] order : bad) {
+            assertThrows(IllegalArgumentException.class, () -> model.reorderRows(order), Arrays.toString(order));
+            assertActivities("Stop 0", "Stop 1", "Stop 2", "Stop 3", "Stop 4");
+            assertEquals(0, events.size());
+        }
+    }
+
+    private static Object[] row(String activity) {
+        return new Object[]{"2026-06-01", "09:00", "Paris", activity, "1h", ""};
+    }
+
+    private void assertEvent(int first, int last, int column, int type) {
+        assertEquals(1, events.size(), "events fired");
+        TableModelEvent e = events.remove(0);
+        assertEquals(first, e.getFirstRow(), "first row");
+        assertEquals(last, e.getLastRow(), "last row");
+        assertEquals(column, e.getColumn(), "column");
+        assertEquals(type, e.getType(), "type");
+    }
+
+    private void assertDataChanged() {
+        assertEvent(0, Integer.MAX_VALUE, ALL, UPDATE);
+    }
+
+    private void assertActivities(String... expected) {
+        List<String> actual = new ArrayList<>();
+        for (int r = 0; r < model.getRowCount(); r++) actual.add((String) model.getValueAt(r, ItineraryTableModel.ACTIVITY));
+        assertEquals(List.of(expected), actual);
+    }
+}
@@ -0,0 +1,75 @@
+package travel.itinerary;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+    @Test
+    void bucketsMeetAtTheirBounds() {
+        long previous = 0;
+        for (int i = 0; i < LatencyHistogram.BUCKETS - 1; i++) {
+            long upper = LatencyHistogram.upperMicros(i);
+            assertTrue(upper > previous, "bucket " + i + " is empty");
+            assertEquals(i, LatencyHistogram.bucket(upper - 1), "last value of bucket " + i);
+            assertEquals(i + 1, LatencyHistogram.bucket(upper), "first value of bucket " + (i + 1));
+            previous = upper;
+        }
+        assertEquals(0, LatencyHistogram.bucket(0));
+        assertEquals(7, LatencyHistogram.bucket(7));
+    }
+
+    @Test
+    void longValuesLandInTheLastBucket() {
+        int last = LatencyHistogram.BUCKETS - 1;
+        assertEquals(last, LatencyHistogram.bucket(LatencyHistogram.upperMicros(last - 1)));
+        assertEquals(last, LatencyHistogram.bucket(LatencyHistogram.upperMicros(last)));
+        assertEquals(last, LatencyHistogram.bucket(Long.MAX_VALUE / 1000));
+    }
+
+    @Test
+    void upperBoundIsWithinAnEighthOfTheValue() {
+        SplittableRandom rnd = new SplittableRandom(17);
+        for (int i = 0; i < 100_000; i++) {
+            long micros = 8 + (rnd.nextLong(1L << 37) >>> rnd.nextInt(38));
+            int b = LatencyHistogram.bucket(micros);
+            long upper = LatencyHistogram.upperMicros(b);
+            assertTrue(upper > micros, micros + " above its bucket");
+            assertTrue(upper - micros <= micros / 8.0, micros + " rounds to " + upper);
+        }
+        for (long micros = 0; micros < 8; micros++) assertEquals(micros + 1, LatencyHistogram.upperMicros(LatencyHistogram.bucket(micros)));
+    }
+
+    @Test
+    void percentilesMatchSortedValues() {
+        SplittableRandom rnd = new SplittableRandom(19);
+        LatencyHistogram h = new LatencyHistogram();
+        LatencyHistogram.Snapshot before = h.snapshot();
+        long[] nanos = new long[5000];
+        for (int i = 0; i < 200; i++) h.record(5_000_000_000L); // before the interval below
+        LatencyHistogram.Snapshot start = h.snapshot();
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = (long) Math.exp(rnd.nextDouble(5, 20)); // 150 ns .. 8 min
+            h.record(nanos[i]);
+        }
+        LatencyHistogram.Snapshot interval = h.snapshot().since(start);
+        assertEquals(nanos.length, interval.count());
+        assertEquals(nanos.length + 200, h.snapshot().since(before).count());
+
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        // since() does not know the interval's true maximum, only its highest bucket
+        long max = LatencyHistogram.upperMicros(LatencyHistogram.bucket(sorted[sorted.length - 1] / 1000)) * 1000;
+        assertEquals(Arrays.stream(nanos).sum() / 1e6 / nanos.length, interval.meanMillis(), 1e-6);
+        for (double q : new double[]{0.001, 0.25, 0.5, 0.9, 0.99, 0.999, 1}) {
+            long v = sorted[(int) Math.max(1, Math.ceil(q * sorted.length)) - 1];
+            long bound = LatencyHistogram.upperMicros(LatencyHistogram.bucket(v / 1000)) * 1000;
+            assertEquals(Math.min(bound, max) / 1e6, interval.percentileMillis(q), 1e-9, "q " + q);
+        }
+        assertEquals(0, LatencyHistogram.Snapshot.empty().percentileMillis(0.5));
+    }
+}
@@ -0,0 +1,138 @@
+package travel.itinerary;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelCsvImporterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void boundariesAreTheFirstRecordStartOfEachChunk() throws IOException {
+        SplittableRandom rnd = new SplittableRandom(7);
+        for (int round = 0; round < 200; round++) {
+            byte[] csv = randomCsv(rnd, 1 + rnd.nextInt(40)).getBytes(StandardCharsets.UTF_8);
+            Path file = write(csv);
+            int chunk = 2 + rnd.nextInt(64);
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                long[] bounds = new ParallelCsvImporter(ForkJoinPool.commonPool(), chunk).recordBoundaries(ch);
+                assertArrayEquals(expectedBoundaries(csv, chunk), bounds, "round " + round + ", chunk " + chunk);
+            }
+        }
+    }
+
+    @Test
+    void parallelImportMatchesSerialReader() throws IOException {
+        SplittableRandom rnd = new SplittableRandom(11);
+        for (int round = 0; round < 50; round++) {
+            String csv = randomCsv(rnd, 1 + rnd.nextInt(200));
+            Path file = write(csv.getBytes(StandardCharsets.UTF_8));
+            ItineraryTableModel model = new ItineraryTableModel();
+            List<ItineraryTableModel.RowBlock> blocks = new ArrayList<>();
+            int rows = new ParallelCsvImporter(ForkJoinPool.commonPool(), 2 + rnd.nextInt(256))
+                    .importFile(file, model, 1 + rnd.nextInt(32), (b, done, size) -> blocks.addAll(b), () -> false);
+            for (ItineraryTableModel.RowBlock b : blocks) model.appendBlock(b);
+
+            List<String[]> expected = serial(csv);
+            assertEquals(expected.size(), rows, "round " + round);
+            assertEquals(expected.size(), model.getRowCount(), "round " + round);
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < ItineraryTableModel.COLS.length; c++) {
+                    assertEquals(expected.get(r)[c], model.getValueAt(r, c), "round " + round + ", row " + r + ", column " + c);
+                }
+            }
+        }
+    }
+
+    private Path write(byte[] csv) throws IOException {
+        Path file = Files.createTempFile(dir, "trip", ".csv");
+        Files.write(file, csv);
+        return file;
+    }
+
+    /** Header plus records whose fields exercise quoting, embedded separators and both line endings. */
+    private static String randomCsv(SplittableRandom rnd, int records) {
+        StringBuilder b = new StringBuilder("Date,Time,City,Activity,Duration,Notes\n");
+        String[] plain = {"2026-06-01", "09:30", "Paris", "Louvre", "2h", "", "x", "1h30m"};
+        String[] quoted = {"\"a,b\"", "\"say \"\"hi\"\"\"", "\"two\nlines\"", "\"cr\r\nlf\"", "\"\"", "\"\"\"\"", "\",\n,\""};
+        for (int r = 0; r < records; r++) {
+            int fields = 1 + rnd.nextInt(7);
+            for (int f = 0; f < fields; f++) {
+                if (f > 0) b.append(',');
+                b.append(rnd.nextInt(3) == 0 ? quoted[rnd.nextInt(quoted.length)] : plain[rnd.nextInt(plain.length)]);
+            }
+            int end = rnd.nextInt(10);
+            b.append(end == 0 ? "\r\n" : end == 1 ? "\r" : end == 2 ? "\n\n" : "\n");
+        }
+        if (rnd.nextBoolean()) b.setLength(b.length() - 1); // no trailing terminator
+        return b.toString();
+    }
+
+    /** Record starts found by one scan from the top, then the first one in each nominal chunk. */
+    private static long[] expectedBoundaries(byte[] csv, int chunk) {
+        boolean[] start = new boolean[csv.length + 1];
+        boolean inQuotes = false;
+        for (int i = 0; i < csv.length; i++) {
+            byte b = csv[i];
+            if (b == '"') inQuotes = !inQuotes;
+            if (inQuotes || (b != '\n' && b != '\r')) continue;
+            if (b == '\r' && i + 1 < csv.length && csv[i + 1] == '\n') continue;
+            start[i + 1] = true;
+        }
+        int chunks = Math.max(1, (csv.length + chunk - 1) / chunk);
+        List<Long> out = new ArrayList<>();
+        out.add(0L);
+        for (int c = 1; c < chunks; c++) {
+            int from = c * chunk, to = Math.min(csv.length, from + chunk);
+            for (int i = from; i < to; i++) {
+                if (start[i]) {
+                    out.add((long) i);
+                    break;
+                }
+            }
+        }
+        out.add((long) csv.length);
+        long[] bounds = new long[out.size()];
+        Arrays.setAll(bounds, i -> out.get(i));
+        return bounds;
+    }
+
+    private static List<String[]> serial(String csv) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (CsvRecordReader reader = new CsvRecordReader(new StringReader(csv))) {
+            String[] fields = new String[ItineraryTableModel.COLS.length];
+            if (reader.next(fields) < 0) return rows;
+            ItineraryTableModel model = new ItineraryTableModel();
+            int n;
+            while ((n = reader.next(fields)) >= 0) {
+                ItineraryTableModel.RowBlock block = model.newBlock(1);
+                block.add(fields, n);
+                String[] row = new String[fields.length];
+                StringBuilder cell = new StringBuilder();
+                for (int c = 0; c < row.length; c++) {
+                    cell.setLength(0);
+                    block.appendCell(cell, 0, c);
+                    row[c] = cell.toString();
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,206 @@
+package travel.itinerary;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Checks the optimizer against an independent cost model and every ordering of small days. */
+class RouteOptimizerTest {
+    private static final int POIS = 20;
+    private static final String[] TIMES = {"08:00", "09:30", "11:00", "13:00", "15:30", "18:00"};
+    private static final String[] DURATIONS = {"15m", "30m", "1h", "1h30m", "2h", ""};
+
+    @TempDir
+    Path dir;
+
+    private PoiCatalog pois;
+
+    /** POIs P00..P19 scattered over central Paris; the fixed-width names never contain one another. */
+    @BeforeEach
+    void catalog() throws IOException {
+        SplittableRandom rnd = new SplittableRandom(23);
+        StringBuilder csv = new StringBuilder("Name,City,Latitude,Longitude\n");
+        for (int i = 0; i < POIS; i++) {
+            csv.append(String.format(Locale.ROOT, "P%02d,Paris,%.5f,%.5f%n", i, 48.82 + rnd.nextDouble() * 0.08,
+                    2.25 + rnd.nextDouble() * 0.17));
+        }
+        Path file = dir.resolve("poi.csv");
+        Files.writeString(file, csv);
+        pois = PoiCatalog.load(file);
+    }
+
+    @Test
+    void exactDaysMatchBruteForce() {
+        SplittableRandom rnd = new SplittableRandom(29);
+        for (int round = 0; round < 40; round++) {
+            int n = round == 0 ? RouteOptimizer.EXACT_STOPS : 2 + rnd.nextInt(RouteOptimizer.EXACT_STOPS - 2);
+            ItineraryTableModel model = new ItineraryTableModel();
+            for (int i = 0; i < n; i++) model.addRow(randomRow(rnd, "2026-06-01"));
+            RouteOptimizer.Result result = optimizer(model).optimize(model.copyRows());
+            assertEquals(0, result.outOfTimeDays, "round " + round);
+
+            Stops day = new Stops(model, rows(0, n));
+            double best = bruteForce(day, new int[n], 0, 0);
+            assertEquals(best, day.cost(result.order), 1e-6, "round " + round + ", " + n + " stops");
+        }
+    }
+
+    @Test
+    void daysWithoutTwoLocatedStopsAreLeftAlone() {
+        ItineraryTableModel model = new ItineraryTableModel();
+        // no located stops, appointments out of chronological order
+        model.addRow(new Object[]{"2026-06-01", "15:00", "Paris", "Rest", "1h", ""});
+        model.addRow(new Object[]{"2026-06-01", "09:00", "Paris", "Lunch", "1h", ""});
+        // one located stop, also out of order
+        model.addRow(new Object[]{"2026-06-02", "18:00", "Paris", "See P03", "1h", ""});
+        model.addRow(new Object[]{"2026-06-02", "10:00", "Paris", "Shopping", "1h", ""});
+        model.addRow(new Object[]{"2026-06-02", "", "Paris", "Coffee", "30m", ""});
+        // a lone stop, and a day with nothing but flexible unlocated stops
+        model.addRow(new Object[]{"2026-06-03", "12:00", "Paris", "See P04", "1h", ""});
+        model.addRow(new Object[]{"2026-06-04", "", "Paris", "Museum pass", "1h", ""});
+        model.addRow(new Object[]{"2026-06-04", "", "Paris", "Laundry", "1h", ""});
+        RouteOptimizer.Result result = optimizer(model).optimize(model.copyRows());
+        assertArrayEquals(rows(0, model.getRowCount()), result.order);
+        assertEquals(4, result.days);
+        assertEquals(0, result.changedDays);
+        assertFalse(result.changed());
+    }
+
+    @Test
+    void appointmentsKeepTheirTimes() {
+        ItineraryTableModel model = new ItineraryTableModel();
+        // a long flexible stop first would make the 09:00 appointment late
+        model.addRow(new Object[]{"2026-06-01", "", "Paris", "See P01", "3h", ""});
+        model.addRow(new Object[]{"2026-06-01", "09:00", "Paris", "See P02", "1h", ""});
+        RouteOptimizer.Result result = optimizer(model).optimize(model.copyRows());
+        assertArrayEquals(new int[]{1, 0}, result.order);
+        assertEquals(0, new Stops(model, rows(0, 2)).lateness(result.order), 1e-9);
+        assertEquals(1, result.changedDays);
+
+        // heuristic days: appointments stay chronological and the cost never rises
+        SplittableRandom rnd = new SplittableRandom(31);
+        for (int round = 0; round < 10; round++) {
+            int n = RouteOptimizer.EXACT_STOPS + 1 + rnd.nextInt(30);
+            model = new ItineraryTableModel();
+            for (int i = 0; i < n; i++) model.addRow(randomRow(rnd, "2026-06-01"));
+            result = optimizer(model).optimize(model.copyRows());
+            Stops day = new Stops(model, rows(0, n));
+            int lastFixed = -1;
+            for (int s : result.order) {
+                if (day.fixed[s] < 0) continue;
+                assertTrue(day.fixed[s] >= lastFixed, "round " + round + ": appointment moved before an earlier one");
+                lastFixed = day.fixed[s];
+            }
+            assertTrue(day.cost(result.order) <= day.cost(day.chronological()) + 1e-6, "round " + round);
+        }
+    }
+
+    private RouteOptimizer optimizer(ItineraryTableModel model) {
+        return new RouteOptimizer(model.pool(), pois, 10_000);
+    }
+
+    private static Object[] randomRow(SplittableRandom rnd, String date) {
+        String activity = rnd.nextInt(5) == 0 ? "Free time" : String.format("See P%02d", rnd.nextInt(POIS));
+        String time = rnd.nextInt(3) == 0 ? TIMES[rnd.nextInt(TIMES.length)] : "";
+        return new Object[]{date, time, "Paris", activity, DURATIONS[rnd.nextInt(DURATIONS.length)], ""};
+    }
+
+    private static int[] rows(int from, int to) {
+        int[] r = new int[to - from];
+        for (int i = 0; i < r.length; i++) r[i] = from + i;
+        return r;
+    }
+
+    /** Lowest cost over every ordering that keeps the appointments chronological. */
+    private static double bruteForce(Stops day, int[] seq, int depth, int used) {
+        if (depth == seq.length) return day.cost(seq);
+        double best = Double.POSITIVE_INFINITY;
+        for (int s = 0; s < seq.length; s++) {
+            if ((used & 1 << s) != 0) continue;
+            seq[depth] = s;
+            best = Math.min(best, bruteForce(day, seq, depth + 1, used | 1 << s));
+        }
+        return best;
+    }
+
+    /** The documented cost model, written out independently of the optimizer. */
+    private final class Stops {
+        final int n;
+        final int[] poi, fixed, duration;
+        final double start;
+
+        Stops(ItineraryTableModel model, int[] rows) {
+            n = rows.length;
+            poi = new int[n];
+            fixed = new int[n];
+            duration = new int[n];
+            int earliest = RouteOptimizer.DAY_START;
+            for (int i = 0; i < n; i++) {
+                int r = rows[i];
+                poi[i] = pois.locate((String) model.getValueAt(r, 2), (String) model.getValueAt(r, 3));
+                short t = model.minuteOfDay(r);
+                fixed[i] = ItineraryTableModel.isTimeValue(t) ? t : -1;
+                if (fixed[i] >= 0) earliest = Math.min(earliest, fixed[i]);
+                int d = model.durationMinutes(r);
+                duration[i] = ItineraryTableModel.isDurationValue(d) ? d : 0;
+            }
+            start = earliest;
+        }
+
+        /** Travel minutes plus 10,000 per minute late; infinite if appointments are out of order. */
+        double cost(int[] seq) {
+            double[] c = walk(seq);
+            return c[0] + c[1] * 10_000;
+        }
+
+        double lateness(int[] seq) {
+            return walk(seq)[1];
+        }
+
+        private double[] walk(int[] seq) {
+            double clock = start, travel = 0, late = 0;
+            int at = -1, lastFixed = -1;
+            for (int s : seq) {
+                if (poi[s] >= 0) {
+                    if (at >= 0) {
+                        double t = pois.distanceKm(poi[at], poi[s]) / RouteOptimizer.KM_PER_HOUR * 60;
+                        travel += t;
+                        clock += t;
+                    }
+                    at = s;
+                }
+                if (fixed[s] >= 0) {
+                    if (fixed[s] < lastFixed) return new double[]{Double.POSITIVE_INFINITY, 0};
+                    lastFixed = fixed[s];
+                    if (clock > fixed[s]) late += clock - fixed[s];
+                    else clock = fixed[s];
+                }
+                clock += duration[s];
+            }
+            return new double[]{travel, late};
+        }
+
+        /** The input order with the appointments sorted into its appointment slots. */
+        int[] chronological() {
+            List<Integer> appts = new ArrayList<>();
+            for (int i = 0; i < n; i++) if (fixed[i] >= 0) appts.add(i);
+            appts.sort((a, b) -> fixed[a] - fixed[b]);
+            int[] seq = rows(0, n);
+            for (int i = 0, k = 0; i < n; i++) if (fixed[i] >= 0) seq[i] = appts.get(k++);
+            return seq;
+        }
+    }
+}